@@ -0,0 +1,30 @@
+package com.yourapp.dashboard.productivity_dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class DashboardConfig {
+
+    /**
+     * Bounded pool the dashboard page loads its widgets on, so one page costs the slowest widget
+     * rather than the sum of all of them. When the queue is full the request thread loads the
+     * widget itself.
+     */
+    @Bean(name = "dashboardExecutor")
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${dashboard.fan-out.parallelism:8}") int parallelism,
+            @Value("${dashboard.fan-out.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, parallelism));
+        executor.setMaxPoolSize(Math.max(1, parallelism));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.yourapp.dashboard.productivity_dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class SchedulingConfig {
+
+    /**
+     * Bounded pool the hourly habit job fans its partitions out to. A parallelism of 0 uses one
+     * thread per core; when the queue is full the scheduling thread runs the partition itself.
+     */
+    @Bean(name = "habitSchedulerExecutor")
+    public ThreadPoolTaskExecutor habitSchedulerExecutor(
+            @Value("${habit.scheduler.parallelism:0}") int parallelism,
+            @Value("${habit.scheduler.queue-capacity:1000}") int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("habit-scheduler-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
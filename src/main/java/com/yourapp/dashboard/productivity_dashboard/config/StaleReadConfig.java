@@ -0,0 +1,27 @@
+package com.yourapp.dashboard.productivity_dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class StaleReadConfig {
+
+    /**
+     * Pool the read services load on while a request waits with a deadline, so a slow load can
+     * finish in the background and replace the stale result the request was given. It is small and
+     * rejects work when full; a full pool means the database is already struggling.
+     */
+    @Bean(name = "staleRefreshExecutor")
+    public ThreadPoolTaskExecutor staleRefreshExecutor(
+            @Value("${stale-reads.refresh-threads:4}") int threads,
+            @Value("${stale-reads.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("stale-refresh-");
+        return executor;
+    }
+}
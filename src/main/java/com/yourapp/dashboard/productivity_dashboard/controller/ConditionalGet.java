@@ -0,0 +1,25 @@
+package com.yourapp.dashboard.productivity_dashboard.controller;
+
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Marks a GET handler whose response is fully determined by its URL, the versions of
+ * {@link #dependsOn()} and the current {@link #period()} of local time. Such handlers get an ETag
+ * and answer a matching {@code If-None-Match} with 304 before they run, see
+ * {@link ConditionalGetInterceptor}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    DataVersionRegistry.Domain[] dependsOn();
+
+    /** How long the response stays the same without writes, {@code FOREVER} if it does not age. */
+    ChronoUnit period() default ChronoUnit.FOREVER;
+}
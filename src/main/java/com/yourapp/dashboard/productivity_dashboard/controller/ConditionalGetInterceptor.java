@@ -0,0 +1,158 @@
+package com.yourapp.dashboard.productivity_dashboard.controller;
+
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+import com.yourapp.dashboard.productivity_dashboard.service.StaleWhileRevalidate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Strong ETags for {@link ConditionalGet} handlers, built from the request URL and the in-memory
+ * {@link DataVersionRegistry} versions, so a client revalidating an unchanged page gets a 304
+ * without any service or repository call.
+ * <p>
+ * The versions are read before the handler runs; a write that lands while it runs only makes the
+ * body newer than its tag, which costs the client one more full response. Only complete, fresh 200
+ * responses are tagged: handlers that render a degraded response call
+ * {@link #skip(HttpServletRequest)}, and responses built from stale reads are left out as well.
+ * Views get their ETag after the handler, JSON bodies from {@link ConditionalGetBodyAdvice} just
+ * before they are written.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".etag";
+    private static final String SKIP_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".skip";
+
+    private final DataVersionRegistry dataVersions;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> notModified = new ConcurrentHashMap<>();
+    private final Map<String, Counter> full = new ConcurrentHashMap<>();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public ConditionalGetInterceptor(DataVersionRegistry dataVersions, MeterRegistry meterRegistry) {
+        this.dataVersions = dataVersions;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("http.conditional.not.modified.ratio", this, ConditionalGetInterceptor::notModifiedRatio)
+            .description("Share of ETag-enabled GETs answered with 304")
+            .register(meterRegistry);
+    }
+
+    /** Keeps the current response from getting an ETag, e.g. because parts of it are missing. */
+    public static void skip(HttpServletRequest request) {
+        request.setAttribute(SKIP_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        ConditionalGet conditional = method.getMethodAnnotation(ConditionalGet.class);
+        // Flash messages after a redirect are not part of the tag
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+        if (conditional == null || (flash != null && !flash.isEmpty())) {
+            return true;
+        }
+        String endpoint = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        String etag = etag(request, conditional);
+        requestCount.incrementAndGet();
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModifiedCount.incrementAndGet();
+            counter(notModified, endpoint, "not_modified").increment();
+            writeHeaders(response, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        counter(full, endpoint, "full").increment();
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView != null) {
+            writeETag(request, response);
+        }
+    }
+
+    /** Adds the ETag worked out for this request, unless the response may not be revalidated. */
+    static void writeETag(HttpServletRequest request, HttpServletResponse response) {
+        Object etag = request.getAttribute(ETAG_ATTRIBUTE);
+        if (etag != null && request.getAttribute(SKIP_ATTRIBUTE) == null
+                && request.getAttribute(StaleWhileRevalidate.STALE_SINCE_ATTRIBUTE) == null
+                && response.getStatus() == HttpServletResponse.SC_OK) {
+            writeHeaders(response, (String) etag);
+        }
+    }
+
+    private String etag(HttpServletRequest request, ConditionalGet conditional) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            key.append('?').append(request.getQueryString());
+        }
+        key.append('|').append(dataVersions.epoch())
+            .append('|').append(dataVersions.tag(Arrays.asList(conditional.dependsOn())));
+        if (conditional.period() != ChronoUnit.FOREVER) {
+            key.append('|').append(LocalDateTime.now().truncatedTo(conditional.period()));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // If-None-Match compares weakly, so a W/ prefix added by a proxy still matches
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeHeaders(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        // Let browsers keep the page but check back every time
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+
+    private double notModifiedRatio() {
+        long requests = requestCount.get();
+        return requests == 0 ? 0 : (double) notModifiedCount.get() / requests;
+    }
+
+    private Counter counter(Map<String, Counter> counters, String endpoint, String result) {
+        return counters.computeIfAbsent(endpoint, e -> Counter.builder("http.conditional.requests")
+            .description("GETs of ETag-enabled endpoints by outcome")
+            .tag("endpoint", e)
+            .tag("result", result)
+            .register(meterRegistry));
+    }
+}
@@ -1,56 +1,151 @@
 package com.yourapp.dashboard.productivity_dashboard.controller;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.TaskView;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+import com.yourapp.dashboard.productivity_dashboard.service.FragmentCache;
 import com.yourapp.dashboard.productivity_dashboard.service.HabitService;
 import com.yourapp.dashboard.productivity_dashboard.service.PomodoroService;
 import com.yourapp.dashboard.productivity_dashboard.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.HashMap;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Controller
 @RequestMapping("/dashboard")
 public class DashboardController {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
 
     @Autowired
     private TaskService taskService;
     @Autowired private HabitService habitService;
     @Autowired private PomodoroService pomodoroService;
+    @Autowired private FragmentCache fragmentCache;
+    @Autowired @Qualifier("dashboardExecutor") private TaskExecutor dashboardExecutor;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    // Time the page waits for all widgets; the ones still loading are shown empty
+    @Value("${dashboard.fan-out.timeout-ms:2000}")
+    private long timeoutMillis;
 
     @GetMapping
-    public String viewDashboard(Model model) {
+    @ConditionalGet(dependsOn = {DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS,
+        DataVersionRegistry.Domain.TASKS, DataVersionRegistry.Domain.POMODORO}, period = ChronoUnit.MINUTES)
+    public String viewDashboard(Model model, HttpServletRequest request, HttpServletResponse response) {
         LocalDateTime today = LocalDateTime.now();
-        LocalDateTime now = LocalDateTime.now();
         LocalDateTime weekStart = today.with(DayOfWeek.MONDAY);
         LocalDateTime weekEnd = today.with(DayOfWeek.SUNDAY);
-        LocalDateTime endOfDay = LocalDateTime.of(today.toLocalDate(), LocalTime.MAX);
-        Map<String, Long> stats = taskService.getTodayTaskStats();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        // Every widget loads concurrently; habit status waits only on today's habits
+        CompletableFuture<Map<String, Long>> taskStats = loadWithin(taskService::getTodayTaskStats, deadline);
+        CompletableFuture<List<TaskView>> todayTasks = load(taskService::findTasksForToday);
+        CompletableFuture<List<Habit>> todayHabits = load(habitService::getTodayHabits);
+        CompletableFuture<Map<Long, Boolean>> habitStatus =
+            todayHabits.thenApplyAsync(habits ->
+                withDeadline(() -> habitService.getCompletedTodayStatus(habits), deadline), dashboardExecutor);
+        CompletableFuture<Integer> todayPomodoro = loadWithin(pomodoroService::getTodayPomodoroMinutes, deadline);
+        CompletableFuture<List<TaskView>> completedTasks = load(taskService::getCompletedTasks);
+        CompletableFuture<List<TaskView>> pendingTasks = load(taskService::getPendingTasks);
+
+        List<String> unavailable = new ArrayList<>();
+        // The weekly charts only load when their rendered fragment is out of date
+        String weeklyCharts = fragmentCache.render(request, response, "dashboard", "weeklyCharts",
+            EnumSet.of(DataVersionRegistry.Domain.TASKS, DataVersionRegistry.Domain.POMODORO), variables -> {
+                CompletableFuture<long[]> weeklyTasks =
+                    loadWithin(() -> taskService.countCompletedTasksByDay(weekStart, weekEnd), deadline);
+                CompletableFuture<long[]> weeklyPomodoro =
+                    loadWithin(() -> pomodoroService.sumPomodoroMinutesByDay(weekStart, weekEnd), deadline);
+                int failed = unavailable.size();
+                variables.put("weeklyTasks", await("weeklyTasks", weeklyTasks, new long[7], deadline, unavailable));
+                variables.put("weeklyPomodoro", await("weeklyPomodoro", weeklyPomodoro, new long[7], deadline, unavailable));
+                // Charts drawn from fallback zeros are not kept
+                return unavailable.size() > failed
+                    ? LocalDateTime.now()
+                    : today.toLocalDate().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atStartOfDay();
+            });
+        Map<String, Long> stats = await("taskStats", taskStats, Map.of(), deadline, unavailable);
         model.addAttribute("completedCount", stats.get("completed"));
         model.addAttribute("pendingCount", stats.get("pending"));
-        model.addAttribute("todayTasks", taskService.findTasksForToday());
-        List<Habit> todayHabits = habitService.getTodayHabits();
-        Map<Long, Boolean> habitStatus = new HashMap<>();
-
-        for (Habit habit : todayHabits) {
-            habitStatus.put(habit.getId(), habitService.isCompletedToday(habit));
+        model.addAttribute("todayTasks", await("todayTasks", todayTasks, List.of(), deadline, unavailable));
+        model.addAttribute("todayHabits", await("todayHabits", todayHabits, List.of(), deadline, unavailable));
+        model.addAttribute("habitStatus", await("habitStatus", habitStatus, Map.of(), deadline, unavailable));
+        model.addAttribute("todayPomodoro", await("todayPomodoro", todayPomodoro, 0, deadline, unavailable));
+        model.addAttribute("completedTasks", await("completedTasks", completedTasks, List.of(), deadline, unavailable));
+        model.addAttribute("pendingTasks", await("pendingTasks", pendingTasks, List.of(), deadline, unavailable));
+        model.addAttribute("renderedFragments", Map.of("weeklyCharts", weeklyCharts));
+        model.addAttribute("unavailableWidgets", unavailable);
+        if (!unavailable.isEmpty()) {
+            ConditionalGetInterceptor.skip(request);
         }
-
-        model.addAttribute("todayHabits", todayHabits);
-        model.addAttribute("habitStatus", habitStatus);
-        model.addAttribute("todayPomodoro", pomodoroService.getTodayPomodoroMinutes());
-        model.addAttribute("completedTasks", taskService.getCompletedTasks());
-        model.addAttribute("pendingTasks", taskService.getPendingTasks());
-        model.addAttribute("weeklyTasks", taskService.countCompletedTasksByDay(weekStart, weekEnd));
-        model.addAttribute("weeklyPomodoro", pomodoroService.sumPomodoroMinutesByDay(weekStart, weekEnd));
         return "dashboard";
     }
+
+    // For widgets read through the stale-while-revalidate cache, whose loads run on its own executor
+    // and are left to finish for the next request
+    private <T> CompletableFuture<T> load(Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(loader, dashboardExecutor);
+    }
+
+    // For widgets that query on the dashboard pool themselves
+    private <T> CompletableFuture<T> loadWithin(Supplier<T> loader, long deadline) {
+        return CompletableFuture.supplyAsync(() -> withDeadline(loader, deadline), dashboardExecutor);
+    }
+
+    /**
+     * Runs the loader in a transaction that times out at {@code deadline}, so its queries get the
+     * remaining time as their JDBC query timeout and a widget the page stopped waiting for does not
+     * hold on to a pool thread and a connection.
+     */
+    private <T> T withDeadline(Supplier<T> loader, long deadline) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        // Transaction timeouts are whole seconds, round up so a nearly spent deadline still gets one
+        transaction.setTimeout((int) Math.max(1, (remainingMillis + 999) / 1000));
+        return transaction.execute(status -> loader.get());
+    }
+
+    /** The widget's data, or {@code fallback} if it failed or is not ready by {@code deadline}. */
+    private <T> T await(String widget, CompletableFuture<T> future, T fallback, long deadline,
+                        List<String> unavailable) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Does not interrupt the loader, it stops when its query timeout runs out. This only
+            // keeps dependent widgets from starting
+            future.cancel(false);
+            logger.warn("Dashboard widget {} timed out after {} ms", widget, timeoutMillis);
+        } catch (ExecutionException e) {
+            logger.error("Dashboard widget {} failed", widget, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unavailable.add(widget);
+        return fallback;
+    }
 }
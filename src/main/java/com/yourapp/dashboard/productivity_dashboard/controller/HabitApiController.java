@@ -1,12 +1,24 @@
 package com.yourapp.dashboard.productivity_dashboard.controller;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitHeatmap;
 import com.yourapp.dashboard.productivity_dashboard.dto.HabitLogDto;
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitPreviewRequest;
+import com.yourapp.dashboard.productivity_dashboard.dto.Trends;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+import com.yourapp.dashboard.productivity_dashboard.service.HabitHeatmapService;
 import com.yourapp.dashboard.productivity_dashboard.service.HabitService;
+import com.yourapp.dashboard.productivity_dashboard.service.StreakBackfill;
+import com.yourapp.dashboard.productivity_dashboard.service.TrendsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -15,9 +27,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class HabitApiController {
 
+    private static final int MAX_PREVIEW_COUNT = 100;
+    private static final int MIN_HEATMAP_YEAR = 2000;
+
     private final HabitService habitService;
+    private final StreakBackfill streakBackfill;
+    private final HabitHeatmapService heatmapService;
+    private final TrendsService trendsService;
 
     @GetMapping("/{id}/logs")
+    @ConditionalGet(dependsOn = {DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS})
     public ResponseEntity<List<HabitLogDto>> getLogs(@PathVariable Long id,
                                                      @RequestParam int page,
                                                      @RequestParam int size) {
@@ -32,9 +51,68 @@ public class HabitApiController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // A year of completions as a run-length bitmap, defaulting to the current year
+    @GetMapping("/{id}/heatmap")
+    public ResponseEntity<HabitHeatmap> heatmap(@PathVariable Long id,
+                                                @RequestParam(required = false) Integer year) {
+        int current = Year.now().getValue();
+        int requested = year != null ? year : current;
+        if (requested < MIN_HEATMAP_YEAR || requested > current + 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return habitService.getHabit(id)
+                .map(habit -> ResponseEntity.ok(heatmapService.heatmap(habit, requested)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Rolling 7/30/90-day completion rates and weekday/hour patterns of all active habits and of tasks
+    @GetMapping("/trends")
+    public ResponseEntity<Trends> trends() {
+        return ResponseEntity.ok(trendsService.trends());
+    }
+
     @PostMapping("/logs/{logId}/complete")
     public ResponseEntity<Void> complete(@PathVariable Long logId){
         habitService.markDone(logId);
         return ResponseEntity.ok().build();
     }
+
+    // Next occurrences of a habit that has not been saved, nothing is persisted
+    @PostMapping("/preview")
+    public ResponseEntity<List<ZonedDateTime>> preview(@RequestBody HabitPreviewRequest request,
+                                                       @RequestParam(defaultValue = "10") int count) {
+        boolean hasRule = request.recurrenceRule() != null && !request.recurrenceRule().isBlank();
+        if ((request.recurrence() == null && !hasRule) || count < 1 || count > MAX_PREVIEW_COUNT) {
+            return ResponseEntity.badRequest().build();
+        }
+        Habit draft = new Habit();
+        draft.setRecurrence(request.recurrence());
+        draft.setScheduledTime(request.scheduledTime());
+        draft.setTimeZone(request.timeZone());
+        draft.setWeeklyDay(request.weeklyDay());
+        draft.setMonthlyDay(request.monthlyDay());
+        draft.setYearlyMonth(request.yearlyMonth());
+        draft.setYearlyDay(request.yearlyDay());
+        draft.setAllowMultipleDaily(request.allowMultipleDaily());
+        draft.setDailyReminderTimes(request.dailyReminderTimes());
+        draft.setRecurrenceRule(hasRule ? request.recurrenceRule() : null);
+        ZonedDateTime from = ZonedDateTime.now(ZoneId.systemDefault());
+        try {
+            return ResponseEntity.ok(habitService.previewOccurrences(draft, from, count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Recomputes every habit's streaks from its logs in the background, 409 while a run is in progress
+    @PostMapping("/streaks/backfill")
+    public ResponseEntity<StreakBackfill.Progress> backfillStreaks() {
+        HttpStatus status = streakBackfill.start() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(streakBackfill.getProgress());
+    }
+
+    @GetMapping("/streaks/backfill")
+    public ResponseEntity<StreakBackfill.Progress> streakBackfillProgress() {
+        return ResponseEntity.ok(streakBackfill.getProgress());
+    }
 }
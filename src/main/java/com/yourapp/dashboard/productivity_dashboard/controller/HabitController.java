@@ -1,13 +1,27 @@
 package com.yourapp.dashboard.productivity_dashboard.controller;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitProgressView;
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitTodayView;
+import com.yourapp.dashboard.productivity_dashboard.dto.TodayLogView;
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+import com.yourapp.dashboard.productivity_dashboard.service.FragmentCache;
+import com.yourapp.dashboard.productivity_dashboard.service.HabitHeatmapService;
 import com.yourapp.dashboard.productivity_dashboard.service.HabitProcessingService;
+import com.yourapp.dashboard.productivity_dashboard.service.HabitProgressProjectionService;
 import com.yourapp.dashboard.productivity_dashboard.service.HabitService;
+import com.yourapp.dashboard.productivity_dashboard.service.HourlySlotState;
 import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
 import com.yourapp.dashboard.productivity_dashboard.service.Priority;
+import com.yourapp.dashboard.productivity_dashboard.service.RollupService;
+import com.yourapp.dashboard.productivity_dashboard.service.StreakEngine;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -18,12 +32,15 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/habits")
@@ -31,65 +48,88 @@ public class HabitController {
 
     private final HabitService habitService;
     private final HabitProcessingService habitProcessingService;
+    private final HabitProgressProjectionService progressProjectionService;
     private final HabitLogRepository logRepo;
+    private final StreakEngine streakEngine;
+    private final HabitHeatmapService heatmapService;
+    private final RollupService rollupService;
+    private final FragmentCache fragmentCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public HabitController(HabitService habitService, 
                          HabitProcessingService habitProcessingService,
-                         HabitLogRepository logRepo) {
+                         HabitProgressProjectionService progressProjectionService,
+                         HabitLogRepository logRepo,
+                         StreakEngine streakEngine,
+                         HabitHeatmapService heatmapService,
+                         RollupService rollupService,
+                         FragmentCache fragmentCache,
+                         ApplicationEventPublisher eventPublisher) {
         this.habitService = habitService;
         this.habitProcessingService = habitProcessingService;
+        this.progressProjectionService = progressProjectionService;
         this.logRepo = logRepo;
+        this.streakEngine = streakEngine;
+        this.heatmapService = heatmapService;
+        this.rollupService = rollupService;
+        this.fragmentCache = fragmentCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
-    public String viewHabits(Model model) {
-        // Process habits for today in a separate transaction
-        habitProcessingService.processHabitsForToday();
-        
-        // Get all active (non-archived) habits
-        List<Habit> habits = habitService.getAllHabits();
+    @ConditionalGet(dependsOn = {DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS},
+        period = ChronoUnit.MINUTES)
+    public String viewHabits(Model model, HttpServletRequest request, HttpServletResponse response) {
+        // Logs are created ahead of time by HabitLogMaterializer, this view only reads them
         
         // Get today's habits with progress information from the processing service
-        List<Habit> todaysHabits = habitProcessingService.getTodaysHabits();
-        
-        // Calculate progress for each habit
-        Map<Long, Double> habitProgress = new HashMap<>();
-        Map<Long, Integer> totalOccurrences = new HashMap<>();
-        Map<Long, Integer> completedOccurrences = new HashMap<>();
+        List<HabitTodayView> todaysHabits = habitProcessingService.getTodaysHabits();
         
-        for (Habit habit : habits) {
-            // Get progress from the service
-            List<Habit> habitWithProgress = habitService.getTodaysHabits().stream()
-                .filter(h -> h.getId().equals(habit.getId()))
-                .collect(Collectors.toList());
+        // The habit cards are served from the fragment cache until a habit changes or the hour turns
+        String todayCards = fragmentCache.render(request, response, "habits", "todayCards",
+            EnumSet.of(DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS), variables -> {
+                // Calculate progress for all habits in one pass
+                Map<Long, HabitProgressView> progressViews = progressProjectionService.projectToday(habitService.getAllHabits());
+                Map<Long, Double> habitProgress = new HashMap<>();
+                Map<Long, Integer> totalOccurrences = new HashMap<>();
+                Map<Long, Integer> completedOccurrences = new HashMap<>();
                 
-            if (!habitWithProgress.isEmpty()) {
-                Habit h = habitWithProgress.get(0);
-                habitProgress.put(habit.getId(), h.getProgress());
-                totalOccurrences.put(habit.getId(), h.getTotalOccurrences());
-                completedOccurrences.put(habit.getId(), h.getCompletedOccurrences());
-            } else {
-                // Default values if no progress data
-                habitProgress.put(habit.getId(), 0.0);
-                totalOccurrences.put(habit.getId(), 0);
-                completedOccurrences.put(habit.getId(), 0);
-            }
-        }
+                for (HabitProgressView view : progressViews.values()) {
+                    habitProgress.put(view.habitId(), view.progress());
+                    totalOccurrences.put(view.habitId(), view.totalOccurrences());
+                    completedOccurrences.put(view.habitId(), view.completedOccurrences());
+                }
+                
+                variables.put("todaysHabits", todaysHabits);
+                variables.put("habitProgress", habitProgress);
+                variables.put("totalOccurrences", totalOccurrences);
+                variables.put("completedOccurrences", completedOccurrences);
+                return nextHourlyLogChange(todaysHabits, LocalDateTime.now());
+            });
+        String allCards = fragmentCache.render(request, response, "habits", "allCards",
+            EnumSet.of(DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS), variables -> {
+                List<Habit> habits = habitService.getAllHabits();
+                variables.put("habits", habits);
+                // Next occurrences are computed from the clock, hourly ones move every hour
+                LocalDateTime expiresAt = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                for (Habit habit : habits) {
+                    LocalDateTime next = habit.getNextOccurrence();
+                    if (next.isBefore(expiresAt)) {
+                        expiresAt = next;
+                    }
+                }
+                return expiresAt;
+            });
         
         // Get habit statistics
         Map<String, Object> stats = habitService.getHabitStats();
         
         // Add attributes to the model
-        model.addAttribute("habits", habits);
         model.addAttribute("todaysHabits", todaysHabits);
         model.addAttribute("stats", stats);
         model.addAttribute("habit", new Habit());
-        
-        // Add progress information
-        model.addAttribute("habitProgress", habitProgress);
-        model.addAttribute("totalOccurrences", totalOccurrences);
-        model.addAttribute("completedOccurrences", completedOccurrences);
+        model.addAttribute("renderedFragments", Map.of("todayCards", todayCards, "allCards", allCards));
         
         // Add enums for the form
         model.addAttribute("priorities", Priority.values());
@@ -98,6 +138,28 @@ public class HabitController {
         
         return "habits";
     }
+
+    /**
+     * When today's cards next look different without a write: an hourly log turns from upcoming
+     * to missed at its time and drops off the list a minute later, and the visible window moves
+     * with the hour.
+     */
+    private static LocalDateTime nextHourlyLogChange(List<HabitTodayView> todaysHabits, LocalDateTime now) {
+        LocalDateTime next = now.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        for (HabitTodayView habit : todaysHabits) {
+            if (habit.recurrence() != Recurrence.HOURLY) {
+                continue;
+            }
+            for (TodayLogView log : habit.logs()) {
+                LocalDateTime at = log.scheduledDateTime();
+                LocalDateTime change = at.isAfter(now) ? at : at.plusMinutes(1);
+                if (change.isAfter(now) && change.isBefore(next)) {
+                    next = change;
+                }
+            }
+        }
+        return next;
+    }
     
     @GetMapping("/archived")
     public String viewArchivedHabits(Model model) {
@@ -109,7 +171,8 @@ public class HabitController {
     public String addHabit(@ModelAttribute Habit habit, 
                           @RequestParam(required = false) Integer dayOfWeek,
                           @RequestParam(required = false) Integer dayOfMonth,
-                          @RequestParam(required = false) Integer month) {
+                          @RequestParam(required = false) Integer month,
+                          RedirectAttributes redirectAttributes) {
         
         // Set recurrence-specific fields
         if (habit.getRecurrence() == Recurrence.WEEKLY && dayOfWeek != null) {
@@ -121,7 +184,11 @@ public class HabitController {
             habit.setYearlyDay(dayOfMonth);
         }
         
-        habitService.createHabit(habit);
+        try {
+            habitService.createHabit(habit);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Failed to add habit: " + e.getMessage());
+        }
         return "redirect:/habits";
     }
     
@@ -160,7 +227,10 @@ public class HabitController {
                 log = logRepo.save(log);
                 
                 // Update habit streaks
-                habitService.updateHabitStreaks(habit);
+                streakEngine.onSkipped(habit, log.getScheduledDateTime());
+                rollupService.refreshHabitDay(id, log.getScheduledDateTime());
+                habitService.advanceNextScheduled(habit, log.getScheduledDateTime());
+                eventPublisher.publishEvent(HabitChangeEvent.of(id, HabitChangeEvent.Type.SKIPPED));
                 
                 redirectAttributes.addFlashAttribute("successMessage", "Habit marked as skipped!");
             } else {
@@ -200,7 +270,11 @@ public class HabitController {
                     logRepo.save(log);
                     
                     // Update habit streaks
-                    habitService.updateHabitStreaks(habit);
+                    streakEngine.onCompleted(habit, log.getScheduledDateTime());
+                    heatmapService.record(habit, log.getScheduledDateTime(), true);
+                    rollupService.refreshHabitDay(habitId, log.getScheduledDateTime());
+                    habitService.advanceNextScheduled(habit, log.getScheduledDateTime());
+                    eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.COMPLETED));
                     
                     redirectAttributes.addFlashAttribute("successMessage", "Habit marked as completed for " + 
                         log.getScheduledDateTime().format(DateTimeFormatter.ofPattern("h:mma")) + "!");
@@ -213,17 +287,34 @@ public class HabitController {
                 LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
                 LocalDateTime endOfDay = startOfDay.plusDays(1);
                 
-                // Find or create today's log for this habit
-                List<HabitLog> todayLogs = logRepo.findByHabitAndScheduledDateTimeBetween(
-                    habit, startOfDay, endOfDay);
-                
                 HabitLog log;
-                if (todayLogs.isEmpty()) {
-                    log = new HabitLog();
-                    log.setHabit(habit);
-                    log.setScheduledDateTime(now);
+                if (habit.getRecurrence() == Recurrence.HOURLY) {
+                    // Hourly habits complete the current hour's slot, indexed in the zone the today view and
+                    // the materializer use so the hour matches the slot that was shown
+                    ZoneId zone = HabitService.TODAY_ZONE;
+                    ZonedDateTime zonedNow = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone);
+                    LocalDate day = zonedNow.toLocalDate();
+                    HourlySlotState slots = HourlySlotState.of(day, zone, logRepo.findLogsInTimeRange(
+                        habit, HourlySlotState.dayStart(day, zone), HourlySlotState.dayEnd(day, zone)));
+                    int hour = zonedNow.getHour();
+                    log = slots.get(hour);
+                    if (log == null) {
+                        log = new HabitLog();
+                        log.setHabit(habit);
+                        log.setScheduledDateTime(slots.systemTimeOf(hour));
+                    }
                 } else {
-                    log = todayLogs.get(0);
+                    // Find or create today's log for this habit
+                    List<HabitLog> todayLogs = logRepo.findByHabitAndScheduledDateTimeBetween(
+                        habit, startOfDay, endOfDay);
+                    
+                    if (todayLogs.isEmpty()) {
+                        log = new HabitLog();
+                        log.setHabit(habit);
+                        log.setScheduledDateTime(now);
+                    } else {
+                        log = todayLogs.get(0);
+                    }
                 }
                 
                 if (!log.getCompleted()) {
@@ -232,7 +323,11 @@ public class HabitController {
                     logRepo.save(log);
                     
                     // Update habit streaks
-                    habitService.updateHabitStreaks(habit);
+                    streakEngine.onCompleted(habit, log.getScheduledDateTime());
+                    heatmapService.record(habit, log.getScheduledDateTime(), true);
+                    rollupService.refreshHabitDay(habitId, log.getScheduledDateTime());
+                    habitService.advanceNextScheduled(habit, log.getScheduledDateTime());
+                    eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.COMPLETED));
                     
                     redirectAttributes.addFlashAttribute("successMessage", "Habit marked as completed!");
                 } else {
@@ -283,6 +378,8 @@ public class HabitController {
     
     @GetMapping("/stats")
     @ResponseBody
+    @ConditionalGet(dependsOn = {DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS},
+        period = ChronoUnit.DAYS)
     public Map<String, Object> getHabitStats() {
         return habitService.getHabitStats();
     }
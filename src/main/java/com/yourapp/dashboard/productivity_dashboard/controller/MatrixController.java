@@ -1,14 +1,22 @@
 package com.yourapp.dashboard.productivity_dashboard.controller;
 
 import com.yourapp.dashboard.productivity_dashboard.model.MatrixItem;
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+import com.yourapp.dashboard.productivity_dashboard.service.FragmentCache;
 import com.yourapp.dashboard.productivity_dashboard.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Controller
     public class MatrixController {
@@ -16,16 +24,32 @@ import java.util.Map;
         @Autowired
         private TaskService taskService;
 
-        @GetMapping("/matrix")
-        public String showMatrix(Model model) {
-            Map<String, List<MatrixItem>> matrix = taskService.getMatrixItems();
+        @Autowired
+        private FragmentCache fragmentCache;
 
-            model.addAttribute("doFirst", matrix.get("doFirst"));
-            model.addAttribute("schedule", matrix.get("schedule"));
-            model.addAttribute("delegate", matrix.get("delegate"));
-            model.addAttribute("eliminate", matrix.get("eliminate"));
+        @GetMapping("/matrix")
+        @ConditionalGet(dependsOn = {DataVersionRegistry.Domain.TASKS, DataVersionRegistry.Domain.HABITS,
+            DataVersionRegistry.Domain.LOGS}, period = ChronoUnit.MINUTES)
+        public String showMatrix(Model model, HttpServletRequest request, HttpServletResponse response) {
+            String quadrants = fragmentCache.render(request, response, "matrix", "quadrants",
+                EnumSet.of(DataVersionRegistry.Domain.TASKS, DataVersionRegistry.Domain.HABITS,
+                    DataVersionRegistry.Domain.LOGS), variables -> {
+                    Map<String, List<MatrixItem>> matrix = taskService.getMatrixItems();
+
+                    variables.put("doFirst", matrix.get("doFirst"));
+                    variables.put("schedule", matrix.get("schedule"));
+                    variables.put("delegate", matrix.get("delegate"));
+                    variables.put("eliminate", matrix.get("eliminate"));
+
+                    // The first item that is not due yet moves to an urgent quadrant when it falls due
+                    return Stream.concat(matrix.get("schedule").stream(), matrix.get("eliminate").stream())
+                        .map(MatrixItem::getDueDate)
+                        .min(LocalDateTime::compareTo)
+                        .orElse(null);
+                });
+
+            model.addAttribute("renderedFragments", Map.of("quadrants", quadrants));
 
             return "matrix";
         }
     }
-
@@ -1,6 +1,8 @@
 package com.yourapp.dashboard.productivity_dashboard.controller;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.TaskView;
 import com.yourapp.dashboard.productivity_dashboard.model.Task;
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
 import com.yourapp.dashboard.productivity_dashboard.service.TaskService;
 import com.yourapp.dashboard.productivity_dashboard.service.Priority;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,6 +20,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +43,7 @@ public class TaskController {
     }
     
     @GetMapping("/tasks")
+    @ConditionalGet(dependsOn = DataVersionRegistry.Domain.TASKS, period = ChronoUnit.DAYS)
     public String viewTasks(@RequestParam(value = "year", required = false) Integer year, 
                           Model model, 
                           HttpServletRequest request) {
@@ -65,7 +69,7 @@ public class TaskController {
         }
         
         // Get pending tasks for the pending tab
-        List<Task> pendingTasks = service.getPendingTasks();
+        List<TaskView> pendingTasks = service.getPendingTasks();
         
         // Get completed tasks grouped by month for the completed tab
         Map<String, List<Task>> completedTasksByMonth = service.getCompletedTasksGroupedByMonth();
@@ -0,0 +1,9 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+/**
+ * One year of a habit's completions in its own zone. {@code runs} is the base64 of alternating
+ * clear/set run lengths as unsigned LEB128 varints, starting with a clear run; bit {@code i} is day
+ * {@code i + 1} of the year, or for {@code HOUR} granularity hour {@code i % 24} of day {@code i / 24 + 1}.
+ */
+public record HabitHeatmap(long habitId, int year, String granularity, int length, int completed, String runs) {
+}
@@ -0,0 +1,21 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Schedule fields of a habit that has not been saved yet, for previewing its occurrences.
+ */
+public record HabitPreviewRequest(Recurrence recurrence,
+                                  LocalTime scheduledTime,
+                                  String timeZone,
+                                  DayOfWeek weeklyDay,
+                                  Integer monthlyDay,
+                                  Integer yearlyMonth,
+                                  Integer yearlyDay,
+                                  boolean allowMultipleDaily,
+                                  List<LocalTime> dailyReminderTimes,
+                                  String recurrenceRule) {}
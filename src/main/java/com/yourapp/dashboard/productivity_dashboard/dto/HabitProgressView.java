@@ -0,0 +1,8 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+public record HabitProgressView(Long habitId, double progress, int totalOccurrences, int completedOccurrences) {
+
+    public static HabitProgressView empty(Long habitId) {
+        return new HabitProgressView(habitId, 0.0, 0, 0);
+    }
+}
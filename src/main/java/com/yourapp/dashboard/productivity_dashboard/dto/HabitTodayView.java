@@ -0,0 +1,33 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.service.Priority;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Read model of a card on the habits page: the schedule fields of an active habit and its logs for
+ * today, without the habit's {@code logs} association.
+ */
+public record HabitTodayView(Long id,
+                             String name,
+                             Priority priority,
+                             Recurrence recurrence,
+                             String recurrenceRule,
+                             DayOfWeek weeklyDay,
+                             Integer monthlyDay,
+                             Integer yearlyMonth,
+                             Integer yearlyDay,
+                             LocalTime scheduledTime,
+                             int currentStreak,
+                             List<TodayLogView> logs) {
+
+    public static HabitTodayView of(Habit habit, List<TodayLogView> logs) {
+        return new HabitTodayView(habit.getId(), habit.getName(), habit.getPriority(), habit.getRecurrence(),
+            habit.getRecurrenceRule(), habit.getWeeklyDay(), habit.getMonthlyDay(), habit.getYearlyMonth(),
+            habit.getYearlyDay(), habit.getScheduledTime(), habit.getCurrentStreak(), List.copyOf(logs));
+    }
+}
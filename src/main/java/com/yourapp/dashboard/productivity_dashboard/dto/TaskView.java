@@ -0,0 +1,18 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+import com.yourapp.dashboard.productivity_dashboard.service.Priority;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a task in the task lists, read with a JPQL constructor expression instead of
+ * loading the entity.
+ */
+public record TaskView(Long id,
+                       String title,
+                       String category,
+                       Priority priority,
+                       LocalDateTime dueDate,
+                       boolean completed,
+                       LocalDateTime completionTimestamp) {
+}
@@ -0,0 +1,9 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One of today's logs of a habit as shown on its card, read with a JPQL constructor expression.
+ */
+public record TodayLogView(Long habitId, Long id, LocalDateTime scheduledDateTime, boolean completed) {
+}
@@ -0,0 +1,26 @@
+package com.yourapp.dashboard.productivity_dashboard.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rolling completion trends of every active habit and of tasks, as of {@code asOf}. Weekday arrays
+ * are indexed from Sunday = 0 and, like the hour-of-day array, cover the longest window.
+ */
+public record Trends(LocalDate asOf, List<HabitTrend> habits, List<Rate> tasks) {
+
+    public record HabitTrend(long habitId, String name, List<Rate> windows,
+                             int[] weekdayCompleted, int[] weekdayResolved, int[] hourCompleted) {
+    }
+
+    /**
+     * @param resolved completed, missed and skipped occurrences; always 0 for tasks
+     */
+    public record Rate(int days, int completed, int resolved, double completionRate) {
+
+        public static Rate of(int days, int completed, int resolved) {
+            double rate = resolved == 0 ? 0 : Math.round((double) completed / resolved * 1000) / 10.0;
+            return new Rate(days, completed, resolved, rate);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.yourapp.dashboard.productivity_dashboard.event;
+
+/**
+ * Published whenever a habit or one of its logs changes in a way that affects what the habit
+ * pages show. Listeners that cache derived views use it to drop stale entries.
+ *
+ * @param habitId the changed habit, or {@code null} when the change spans several habits
+ * @param type    what happened
+ */
+public record HabitChangeEvent(Long habitId, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        ARCHIVED,
+        UNARCHIVED,
+        DELETED,
+        COMPLETED,
+        SKIPPED,
+        MISSED,
+        GENERATED
+    }
+
+    public static HabitChangeEvent of(Long habitId, Type type) {
+        return new HabitChangeEvent(habitId, type);
+    }
+}
@@ -0,0 +1,22 @@
+package com.yourapp.dashboard.productivity_dashboard.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published when the habit rollups of a range of days were recounted, so in-memory aggregates over
+ * them can reload those days.
+ *
+ * @param habitId the recounted habit, or {@code null} when every habit was recounted
+ * @param from    first recounted day, or {@code null} when the habit's rollups were dropped
+ * @param to      last recounted day, inclusive
+ */
+public record RollupChangeEvent(Long habitId, LocalDate from, LocalDate to) {
+
+    public static RollupChangeEvent recounted(Long habitId, LocalDate from, LocalDate to) {
+        return new RollupChangeEvent(habitId, from, to);
+    }
+
+    public static RollupChangeEvent dropped(Long habitId) {
+        return new RollupChangeEvent(habitId, null, null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.yourapp.dashboard.productivity_dashboard.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Tasks completed (by due day) and pomodoro focus minutes (by start day) on one day, in server time.
+ */
+@Entity
+@Table(name = "daily_activity_rollup")
+public class DailyActivityRollup {
+
+    @Id
+    @Column(name = "activity_day")
+    private LocalDate day;
+
+    @Column(name = "tasks_completed")
+    private long tasksCompleted;
+
+    @Column(name = "focus_minutes")
+    private long focusMinutes;
+
+    public DailyActivityRollup() {
+    }
+
+    public DailyActivityRollup(LocalDate day) {
+        this.day = day;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public long getTasksCompleted() {
+        return tasksCompleted;
+    }
+
+    public void setTasksCompleted(long tasksCompleted) {
+        this.tasksCompleted = tasksCompleted;
+    }
+
+    public long getFocusMinutes() {
+        return focusMinutes;
+    }
+
+    public void setFocusMinutes(long focusMinutes) {
+        this.focusMinutes = focusMinutes;
+    }
+}
@@ -3,12 +3,19 @@ package com.yourapp.dashboard.productivity_dashboard.model;
 import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
 import com.yourapp.dashboard.productivity_dashboard.service.Priority;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_habit_archived_dow_mask", columnList = "archived, day_of_week_mask"),
+    @Index(name = "idx_habit_archived_next_scheduled", columnList = "archived, next_scheduled")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "habit")
 public class Habit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -39,6 +46,17 @@ public class Habit {
     private Integer yearlyMonth;                  // 1-12 for YEARLY recurrence
     private Integer yearlyDay;                    // 1-31 for YEARLY recurrence
 
+    private String recurrenceRule;                // optional RRULE, e.g. FREQ=WEEKLY;BYDAY=MO,WE,FR
+
+    // Compiled from recurrenceRule or the fields above, see RecurrenceRule
+    private Integer dayOfWeekMask;                // bit 0-6 = Monday-Sunday
+    private Long dayOfMonthMask;                  // bit 1-31
+    private Integer monthMask;                    // bit 1-12
+    private Integer ruleInterval;
+    private Long ruleAnchor;                      // period index of ruleStart
+    private LocalDate ruleStart;
+    private LocalDate ruleUntil;
+
     private Boolean archived = false;
     
     public boolean isArchived() {
@@ -48,6 +66,7 @@ public class Habit {
     private int bestStreak = 0;
     private int missedCount = 0;
     private LocalDate lastCompleted;
+    private LocalDateTime streakThrough;          // end of the last period counted in currentStreak, system time
     
     @Transient
     private double progress = 0.0;
@@ -58,9 +77,13 @@ public class Habit {
     @Transient
     private int completedOccurrences = 0;
     private LocalDateTime lastScheduled;
-    private LocalDateTime nextScheduled;
+    private LocalDateTime nextScheduled;          // next occurrence in system time, null when archived or the rule ran out
     private Integer gracePeriodMinutes = 15; // Default 15-minute grace period
     private boolean allowMultipleDaily = false;
+    @ElementCollection
+    @CollectionTable(name = "habit_reminder_times", joinColumns = @JoinColumn(name = "habit_id"))
+    @Column(name = "reminder_time")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "habit-reminder-times")
     private List<LocalTime> dailyReminderTimes = new ArrayList<>(); // For multiple daily reminders
     private String timeZone = ZoneId.systemDefault().toString(); // Store user's timezone
     
@@ -174,6 +197,14 @@ public class Habit {
         this.bestStreak = bestStreak;
     }
 
+    public LocalDateTime getStreakThrough() {
+        return streakThrough;
+    }
+
+    public void setStreakThrough(LocalDateTime streakThrough) {
+        this.streakThrough = streakThrough;
+    }
+
     public LocalDate getLastCompleted() {
         return lastCompleted;
     }
@@ -209,6 +240,14 @@ public class Habit {
     public void setLastScheduled(LocalDateTime lastScheduled) {
         this.lastScheduled = lastScheduled;
     }
+
+    public LocalDateTime getNextScheduled() {
+        return nextScheduled;
+    }
+
+    public void setNextScheduled(LocalDateTime nextScheduled) {
+        this.nextScheduled = nextScheduled;
+    }
     
     public double getProgress() {
         return progress;
@@ -250,9 +289,6 @@ public class Habit {
         this.timeZone = timeZone != null ? timeZone : ZoneId.systemDefault().toString();
     }
     
-    @ElementCollection
-    @CollectionTable(name = "habit_reminder_times", joinColumns = @JoinColumn(name = "habit_id"))
-    @Column(name = "reminder_time")
     public List<LocalTime> getDailyReminderTimes() {
         if (dailyReminderTimes == null) {
             dailyReminderTimes = new ArrayList<>();
@@ -297,6 +333,77 @@ public class Habit {
         return totalLogs > 0 ? (completedLogs * 100.0) / totalLogs : 0.0;
     }
     
+    // An invalid rule fails the flush, so the stored masks never disagree with the stored rule
+    @PrePersist
+    @PreUpdate
+    void compileRecurrence() {
+        RecurrenceRule.of(this).applyTo(this);
+    }
+
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+
+    public Integer getDayOfWeekMask() {
+        return dayOfWeekMask;
+    }
+
+    public void setDayOfWeekMask(Integer dayOfWeekMask) {
+        this.dayOfWeekMask = dayOfWeekMask;
+    }
+
+    public Long getDayOfMonthMask() {
+        return dayOfMonthMask;
+    }
+
+    public void setDayOfMonthMask(Long dayOfMonthMask) {
+        this.dayOfMonthMask = dayOfMonthMask;
+    }
+
+    public Integer getMonthMask() {
+        return monthMask;
+    }
+
+    public void setMonthMask(Integer monthMask) {
+        this.monthMask = monthMask;
+    }
+
+    public Integer getRuleInterval() {
+        return ruleInterval;
+    }
+
+    public void setRuleInterval(Integer ruleInterval) {
+        this.ruleInterval = ruleInterval;
+    }
+
+    public Long getRuleAnchor() {
+        return ruleAnchor;
+    }
+
+    public void setRuleAnchor(Long ruleAnchor) {
+        this.ruleAnchor = ruleAnchor;
+    }
+
+    public LocalDate getRuleStart() {
+        return ruleStart;
+    }
+
+    public void setRuleStart(LocalDate ruleStart) {
+        this.ruleStart = ruleStart;
+    }
+
+    public LocalDate getRuleUntil() {
+        return ruleUntil;
+    }
+
+    public void setRuleUntil(LocalDate ruleUntil) {
+        this.ruleUntil = ruleUntil;
+    }
+
     @Transient
     public LocalDateTime getCreatedAt() {
         return createdAt;
@@ -0,0 +1,96 @@
+package com.yourapp.dashboard.productivity_dashboard.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * How many of a habit's logs scheduled on one day, in server time, were completed, missed or skipped.
+ * Rebuilt from the logs for the affected day on every change, and kept after old logs are purged.
+ */
+@Entity
+@IdClass(HabitDailyRollup.Key.class)
+@Table(name = "habit_daily_rollup", indexes = @Index(name = "idx_habit_daily_rollup_day", columnList = "rollup_day"))
+public class HabitDailyRollup {
+
+    @Id
+    @Column(name = "habit_id")
+    private Long habitId;
+
+    @Id
+    @Column(name = "rollup_day")
+    private LocalDate day;
+
+    private int completed;
+
+    private int missed;
+
+    private int skipped;
+
+    public Long getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(Long habitId) {
+        this.habitId = habitId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public int getMissed() {
+        return missed;
+    }
+
+    public void setMissed(int missed) {
+        this.missed = missed;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public static class Key implements Serializable {
+        private Long habitId;
+        private LocalDate day;
+
+        public Key() {
+        }
+
+        public Key(Long habitId, LocalDate day) {
+            this.habitId = habitId;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(habitId, key.habitId) && Objects.equals(day, key.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(habitId, day);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.yourapp.dashboard.productivity_dashboard.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * How many of a habit's logs scheduled on one day, in server time, were completed in each hour of
+ * the day. Hours without completions have no row. Maintained alongside {@link HabitDailyRollup}.
+ */
+@Entity
+@IdClass(HabitHourRollup.Key.class)
+@Table(name = "habit_hour_rollup", indexes = @Index(name = "idx_habit_hour_rollup_day", columnList = "rollup_day"))
+public class HabitHourRollup {
+
+    @Id
+    @Column(name = "habit_id")
+    private Long habitId;
+
+    @Id
+    @Column(name = "rollup_day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "hour_of_day")
+    private int hour;
+
+    private int completed;
+
+    public Long getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(Long habitId) {
+        this.habitId = habitId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public int getHour() {
+        return hour;
+    }
+
+    public void setHour(int hour) {
+        this.hour = hour;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public static class Key implements Serializable {
+        private Long habitId;
+        private LocalDate day;
+        private int hour;
+
+        public Key() {
+        }
+
+        public Key(Long habitId, LocalDate day, int hour) {
+            this.habitId = habitId;
+            this.day = day;
+            this.hour = hour;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return hour == key.hour && Objects.equals(habitId, key.habitId) && Objects.equals(day, key.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(habitId, day, hour);
+        }
+    }
+}
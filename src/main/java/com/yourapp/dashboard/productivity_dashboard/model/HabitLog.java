@@ -1,10 +1,15 @@
 package com.yourapp.dashboard.productivity_dashboard.model;
 
+import com.yourapp.dashboard.productivity_dashboard.service.LogSlotIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_habit_log_habit_slot",
+    columnNames = {"habit_id", "scheduled_date_time"}),
+    indexes = @Index(name = "idx_habit_log_scheduled", columnList = "scheduled_date_time"))
+@EntityListeners(LogSlotIndexListener.class)
 public class HabitLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
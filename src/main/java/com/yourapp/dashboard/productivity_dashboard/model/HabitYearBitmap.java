@@ -0,0 +1,93 @@
+package com.yourapp.dashboard.productivity_dashboard.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which occurrences of a habit were completed in one calendar year of the habit's zone: one bit per
+ * day, or per hour for hourly habits, run-length encoded (see
+ * {@link com.yourapp.dashboard.productivity_dashboard.service.CompletionBitmap}).
+ */
+@Entity
+@Table(name = "habit_year_bitmap", uniqueConstraints = @UniqueConstraint(name = "uk_habit_year_bitmap",
+    columnNames = {"habit_id", "bitmap_year"}))
+public class HabitYearBitmap {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "habit_id", nullable = false)
+    private Long habitId;
+
+    @Column(name = "bitmap_year", nullable = false)
+    private int year;
+
+    private boolean hourly;
+
+    // Run lengths; a year of hourly bits needs at most 2 bytes per run
+    @Column(length = 16384)
+    private byte[] runs;
+
+    private int completed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(Long habitId) {
+        this.habitId = habitId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public void setYear(int year) {
+        this.year = year;
+    }
+
+    public boolean isHourly() {
+        return hourly;
+    }
+
+    public void setHourly(boolean hourly) {
+        this.hourly = hourly;
+    }
+
+    public byte[] getRuns() {
+        return runs;
+    }
+
+    public void setRuns(byte[] runs) {
+        this.runs = runs;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,55 @@
+package com.yourapp.dashboard.productivity_dashboard.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a background job has got, kept across restarts so each run only covers new ground.
+ */
+@Entity
+@Table(name = "job_watermark")
+public class JobWatermark {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    private LocalDateTime watermark;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public JobWatermark() {
+    }
+
+    public JobWatermark(String name, LocalDateTime watermark) {
+        this.name = name;
+        this.watermark = watermark;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(LocalDateTime watermark) {
+        this.watermark = watermark;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,409 @@
+package com.yourapp.dashboard.productivity_dashboard.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A habit's recurrence compiled into bitmasks, so that "is the habit due on this date" is a handful
+ * of bit tests instead of a switch over {@link Recurrence}.
+ * <p>
+ * A rule is written in a subset of iCalendar RRULE syntax, e.g. {@code FREQ=WEEKLY;BYDAY=MO,WE,FR}
+ * or {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=TU;COUNT=10}. Supported parts are FREQ, BYDAY (without
+ * ordinals), BYMONTHDAY (1 to 31, or -1 for the last day), BYMONTH, INTERVAL, COUNT and UNTIL. As in
+ * RFC 5545, a weekly rule without BYDAY falls on the weekday of its start date, a monthly rule without
+ * BYMONTHDAY on its day of month, and a yearly rule on its month and day. Habits without a rule are
+ * compiled from {@code weeklyDay}, {@code monthlyDay} and {@code yearlyMonth}/{@code yearlyDay}.
+ * <p>
+ * Masks: bit 0-6 of the day-of-week mask are Monday to Sunday, bit 1-31 of the day-of-month mask are
+ * the days, bit 1-12 of the month mask the months. A day of month past the end of a short month is
+ * due on that month's last day. COUNT is turned into UNTIL when the rule is compiled, counting due
+ * days. The interval is checked against the period index of the start date (day, Monday-based week,
+ * month or year, depending on FREQ).
+ */
+public final class RecurrenceRule {
+    public static final int ALL_DAYS_OF_WEEK = 0x7F;
+    public static final long ALL_DAYS_OF_MONTH = 0xFFFFFFFEL;
+    public static final int ALL_MONTHS = 0x1FFE;
+
+    private static final int MAX_COUNT = 10_000;
+    // Days and periods examined while expanding COUNT, enough for any rule due at least once a month
+    private static final long MAX_SCAN = 1_000_000;
+    private static final DateTimeFormatter RRULE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final List<List<Integer>> WEEK_MASKS_BY_DAY = weekMasksByDay();
+
+    private final Recurrence frequency;
+    private final int dayOfWeekMask;
+    private final long dayOfMonthMask;
+    private final int monthMask;
+    private final int interval;
+    private final LocalDate start;
+    private final LocalDate until;
+
+    private RecurrenceRule(Recurrence frequency, int dayOfWeekMask, long dayOfMonthMask, int monthMask,
+                           int interval, LocalDate start, LocalDate until) {
+        this.frequency = frequency;
+        this.dayOfWeekMask = dayOfWeekMask;
+        this.dayOfMonthMask = dayOfMonthMask;
+        this.monthMask = monthMask;
+        this.interval = interval;
+        this.start = start;
+        this.until = until;
+    }
+
+    /**
+     * Parses an RRULE starting on {@code start}.
+     *
+     * @throws IllegalArgumentException if the rule is malformed or uses unsupported parts
+     */
+    public static RecurrenceRule parse(String rule, LocalDate start) {
+        String text = rule.trim();
+        if (text.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            text = text.substring(6);
+        }
+
+        Recurrence frequency = null;
+        Integer dayOfWeekMask = null;
+        Long dayOfMonthMask = null;
+        Integer monthMask = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDate until = null;
+
+        for (String part : text.split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+            }
+            String name = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(eq + 1).trim().toUpperCase(Locale.ROOT);
+            switch (name) {
+                case "FREQ":
+                    frequency = parseFrequency(value);
+                    break;
+                case "BYDAY":
+                    dayOfWeekMask = parseDays(value);
+                    break;
+                case "BYMONTHDAY":
+                    dayOfMonthMask = parseMonthDays(value);
+                    break;
+                case "BYMONTH":
+                    monthMask = parseMonths(value);
+                    break;
+                case "INTERVAL":
+                    interval = parseNumber(name, value, 1, 1000);
+                    break;
+                case "COUNT":
+                    count = parseNumber(name, value, 1, MAX_COUNT);
+                    break;
+                case "UNTIL":
+                    until = parseDate(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported recurrence rule part: " + name);
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("Recurrence rule needs a FREQ: " + rule);
+        }
+        if (count != null && until != null) {
+            throw new IllegalArgumentException("Recurrence rule cannot have both COUNT and UNTIL: " + rule);
+        }
+
+        // RFC 5545 defaults: unspecified parts follow the start date
+        if (frequency == Recurrence.WEEKLY && dayOfWeekMask == null) {
+            dayOfWeekMask = dayOfWeekBit(start.getDayOfWeek());
+        }
+        if ((frequency == Recurrence.MONTHLY || frequency == Recurrence.YEARLY)
+                && dayOfMonthMask == null && dayOfWeekMask == null) {
+            dayOfMonthMask = 1L << start.getDayOfMonth();
+        }
+        if (frequency == Recurrence.YEARLY && monthMask == null) {
+            monthMask = 1 << start.getMonthValue();
+        }
+
+        RecurrenceRule compiled = new RecurrenceRule(frequency,
+            dayOfWeekMask != null ? dayOfWeekMask : ALL_DAYS_OF_WEEK,
+            dayOfMonthMask != null ? dayOfMonthMask : ALL_DAYS_OF_MONTH,
+            monthMask != null ? monthMask : ALL_MONTHS,
+            interval, start, until);
+        return count != null ? compiled.withUntil(compiled.nthDueDay(count)) : compiled;
+    }
+
+    /**
+     * Compiles the habit's rule, or its legacy recurrence fields if it has none. The start date is
+     * the habit's compiled start, its creation date or today, in that order.
+     */
+    public static RecurrenceRule of(Habit habit) {
+        LocalDate start = habit.getRuleStart() != null ? habit.getRuleStart()
+            : habit.getCreatedAt() != null ? habit.getCreatedAt().toLocalDate() : LocalDate.now();
+        if (habit.getRecurrenceRule() != null && !habit.getRecurrenceRule().isBlank()) {
+            return parse(habit.getRecurrenceRule(), start);
+        }
+
+        Recurrence frequency = habit.getRecurrence();
+        if (frequency == null) {
+            return legacy(Recurrence.DAILY, 0, 0L, 0);
+        }
+        switch (frequency) {
+            case WEEKLY:
+                return legacy(frequency, habit.getWeeklyDay() != null ? dayOfWeekBit(habit.getWeeklyDay()) : 0,
+                    ALL_DAYS_OF_MONTH, ALL_MONTHS);
+            case MONTHLY:
+                return legacy(frequency, ALL_DAYS_OF_WEEK, dayOfMonthBit(habit.getMonthlyDay()), ALL_MONTHS);
+            case YEARLY:
+                return legacy(frequency, ALL_DAYS_OF_WEEK, dayOfMonthBit(habit.getYearlyDay()),
+                    habit.getYearlyMonth() != null && habit.getYearlyMonth() >= 1 && habit.getYearlyMonth() <= 12
+                        ? 1 << habit.getYearlyMonth() : 0);
+            default:
+                return legacy(frequency, ALL_DAYS_OF_WEEK, ALL_DAYS_OF_MONTH, ALL_MONTHS);
+        }
+    }
+
+    /**
+     * The rule stored on the habit by {@link #applyTo(Habit)}, without parsing anything. Falls back
+     * to {@link #of(Habit)} for habits that have not been compiled yet.
+     */
+    public static RecurrenceRule compiled(Habit habit) {
+        if (habit.getRuleInterval() == null || habit.getDayOfWeekMask() == null
+                || habit.getDayOfMonthMask() == null || habit.getMonthMask() == null) {
+            return of(habit);
+        }
+        return new RecurrenceRule(habit.getRecurrence() != null ? habit.getRecurrence() : Recurrence.DAILY,
+            habit.getDayOfWeekMask(), habit.getDayOfMonthMask(), habit.getMonthMask(),
+            habit.getRuleInterval(), habit.getRuleStart(), habit.getRuleUntil());
+    }
+
+    /** Stores the compiled rule on the habit. A rule also sets the habit's recurrence to its FREQ. */
+    public void applyTo(Habit habit) {
+        if (habit.getRecurrenceRule() != null && !habit.getRecurrenceRule().isBlank()) {
+            habit.setRecurrence(frequency);
+        }
+        habit.setDayOfWeekMask(dayOfWeekMask);
+        habit.setDayOfMonthMask(dayOfMonthMask);
+        habit.setMonthMask(monthMask);
+        habit.setRuleInterval(interval);
+        habit.setRuleAnchor(start != null ? periodIndex(frequency, start) : 0L);
+        habit.setRuleStart(start);
+        habit.setRuleUntil(until);
+    }
+
+    public boolean isDueOn(LocalDate day) {
+        if ((start != null && day.isBefore(start)) || (until != null && day.isAfter(until))) {
+            return false;
+        }
+        if ((monthMask & (1 << day.getMonthValue())) == 0
+                || (dayOfWeekMask & dayOfWeekBit(day.getDayOfWeek())) == 0) {
+            return false;
+        }
+        int dayOfMonth = day.getDayOfMonth();
+        boolean dayMatches = (dayOfMonthMask & (1L << dayOfMonth)) != 0
+            // Days past the end of a short month fall on its last day
+            || (dayOfMonth == day.lengthOfMonth() && (dayOfMonthMask >>> dayOfMonth) != 0);
+        if (!dayMatches) {
+            return false;
+        }
+        return interval == 1 || start == null
+            || Math.floorMod(periodIndex(frequency, day) - periodIndex(frequency, start), interval) == 0;
+    }
+
+    public Recurrence getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Index of the period {@code day} falls in, for interval checks: the epoch day for hourly and
+     * daily rules, the Monday-based epoch week for weekly, the epoch month for monthly and the year
+     * for yearly rules.
+     */
+    public static long periodIndex(Recurrence frequency, LocalDate day) {
+        switch (frequency) {
+            case WEEKLY:
+                // 1970-01-01 was a Thursday, shift so weeks start on Monday
+                return Math.floorDiv(day.toEpochDay() + 3, 7);
+            case MONTHLY:
+                return day.getYear() * 12L + day.getMonthValue() - 1;
+            case YEARLY:
+                return day.getYear();
+            default:
+                return day.toEpochDay();
+        }
+    }
+
+    public static int dayOfWeekBit(DayOfWeek dayOfWeek) {
+        return 1 << (dayOfWeek.getValue() - 1);
+    }
+
+    /** Every day-of-week mask that includes {@code dayOfWeek}, for an indexable {@code IN} predicate. */
+    public static List<Integer> weekMasksContaining(DayOfWeek dayOfWeek) {
+        return WEEK_MASKS_BY_DAY.get(dayOfWeek.getValue() - 1);
+    }
+
+    private static RecurrenceRule legacy(Recurrence frequency, int dayOfWeekMask, long dayOfMonthMask, int monthMask) {
+        return new RecurrenceRule(frequency, dayOfWeekMask, dayOfMonthMask, monthMask, 1, null, null);
+    }
+
+    private RecurrenceRule withUntil(LocalDate until) {
+        return new RecurrenceRule(frequency, dayOfWeekMask, dayOfMonthMask, monthMask, interval, start, until);
+    }
+
+    /**
+     * The {@code n}th due day from the start, or the end of the search if there are fewer. Only the
+     * periods the interval selects are visited, and of monthly and yearly periods only the months in
+     * the month mask.
+     *
+     * @throws IllegalArgumentException if finding it would take more than {@link #MAX_SCAN} steps
+     */
+    private LocalDate nthDueDay(int n) {
+        LocalDate limit = start.plusYears(Math.max(100, (long) n * interval));
+        boolean byMonth = frequency == Recurrence.MONTHLY || frequency == Recurrence.YEARLY;
+        int found = 0;
+        long steps = 0;
+        for (long period = periodIndex(frequency, start); ; period += interval) {
+            LocalDate from = periodStart(frequency, period);
+            if (!from.isBefore(limit)) {
+                return limit;
+            }
+            LocalDate to = periodStart(frequency, period + 1);
+            for (LocalDate chunk = from; chunk.isBefore(to); chunk = byMonth ? chunk.plusMonths(1) : to) {
+                if (++steps > MAX_SCAN) {
+                    throw new IllegalArgumentException("Recurrence rule is due too rarely to expand COUNT=" + n);
+                }
+                if (byMonth && (monthMask & (1 << chunk.getMonthValue())) == 0) {
+                    continue;
+                }
+                LocalDate end = byMonth ? chunk.plusMonths(1) : to;
+                for (LocalDate day = chunk.isBefore(start) ? start : chunk; day.isBefore(end); day = day.plusDays(1)) {
+                    if (++steps > MAX_SCAN) {
+                        throw new IllegalArgumentException("Recurrence rule is due too rarely to expand COUNT=" + n);
+                    }
+                    if (isDueOn(day) && ++found == n) {
+                        return day;
+                    }
+                }
+            }
+        }
+    }
+
+    /** First day of the period with index {@code period}, the inverse of {@link #periodIndex}. */
+    private static LocalDate periodStart(Recurrence frequency, long period) {
+        switch (frequency) {
+            case WEEKLY:
+                return LocalDate.ofEpochDay(period * 7 - 3);
+            case MONTHLY:
+                return LocalDate.of((int) Math.floorDiv(period, 12), (int) Math.floorMod(period, 12) + 1, 1);
+            case YEARLY:
+                return LocalDate.of((int) period, 1, 1);
+            default:
+                return LocalDate.ofEpochDay(period);
+        }
+    }
+
+    private static long dayOfMonthBit(Integer dayOfMonth) {
+        return dayOfMonth != null && dayOfMonth >= 1 && dayOfMonth <= 31 ? 1L << dayOfMonth : 0L;
+    }
+
+    private static Recurrence parseFrequency(String value) {
+        try {
+            return Recurrence.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported recurrence frequency: " + value);
+        }
+    }
+
+    private static int parseDays(String value) {
+        int mask = 0;
+        for (String day : value.split(",")) {
+            switch (day.trim()) {
+                case "MO": mask |= dayOfWeekBit(DayOfWeek.MONDAY); break;
+                case "TU": mask |= dayOfWeekBit(DayOfWeek.TUESDAY); break;
+                case "WE": mask |= dayOfWeekBit(DayOfWeek.WEDNESDAY); break;
+                case "TH": mask |= dayOfWeekBit(DayOfWeek.THURSDAY); break;
+                case "FR": mask |= dayOfWeekBit(DayOfWeek.FRIDAY); break;
+                case "SA": mask |= dayOfWeekBit(DayOfWeek.SATURDAY); break;
+                case "SU": mask |= dayOfWeekBit(DayOfWeek.SUNDAY); break;
+                default: throw new IllegalArgumentException("Unsupported BYDAY value: " + day);
+            }
+        }
+        return mask;
+    }
+
+    private static long parseMonthDays(String value) {
+        long mask = 0;
+        for (String day : value.split(",")) {
+            int dayOfMonth = Integer.parseInt(day.trim());
+            if (dayOfMonth == -1) {
+                // The last day: 31 is clamped to the end of every shorter month
+                dayOfMonth = 31;
+            }
+            if (dayOfMonth < 1 || dayOfMonth > 31) {
+                throw new IllegalArgumentException("Unsupported BYMONTHDAY value: " + day);
+            }
+            mask |= 1L << dayOfMonth;
+        }
+        return mask;
+    }
+
+    private static int parseMonths(String value) {
+        int mask = 0;
+        for (String month : value.split(",")) {
+            mask |= 1 << parseNumber("BYMONTH", month.trim(), 1, 12);
+        }
+        return mask;
+    }
+
+    private static int parseNumber(String name, String value, int min, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ": " + value);
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value.length() > 8 ? value.substring(0, 8) : value, RRULE_DATE);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid UNTIL date: " + value);
+        }
+    }
+
+    private static List<List<Integer>> weekMasksByDay() {
+        List<List<Integer>> byDay = new ArrayList<>(7);
+        for (int day = 0; day < 7; day++) {
+            List<Integer> masks = new ArrayList<>(64);
+            for (int mask = 1; mask <= ALL_DAYS_OF_WEEK; mask++) {
+                if ((mask & (1 << day)) != 0) {
+                    masks.add(mask);
+                }
+            }
+            byDay.add(Collections.unmodifiableList(masks));
+        }
+        return Collections.unmodifiableList(byDay);
+    }
+}
@@ -2,11 +2,14 @@ package com.yourapp.dashboard.productivity_dashboard.model;
 
 import com.yourapp.dashboard.productivity_dashboard.service.Priority;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import jakarta.persistence.Column;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
 public class Task {
 
     @Id
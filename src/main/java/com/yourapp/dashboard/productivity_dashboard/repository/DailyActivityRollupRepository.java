@@ -0,0 +1,21 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.DailyActivityRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyActivityRollupRepository extends JpaRepository<DailyActivityRollup, LocalDate> {
+
+    List<DailyActivityRollup> findByDayBetween(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM DailyActivityRollup r WHERE r.day >= :from AND r.day <= :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    boolean existsBy();
+}
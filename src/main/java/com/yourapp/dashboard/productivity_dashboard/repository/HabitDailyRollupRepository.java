@@ -0,0 +1,67 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.HabitDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HabitDailyRollupRepository extends JpaRepository<HabitDailyRollup, HabitDailyRollup.Key> {
+
+    @Modifying
+    @Query("DELETE FROM HabitDailyRollup r WHERE r.day >= :from AND r.day <= :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM HabitDailyRollup r WHERE r.habitId = :habitId AND r.day = :day")
+    int deleteHabitDay(@Param("habitId") Long habitId, @Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM HabitDailyRollup r WHERE r.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") Long habitId);
+
+    // Counts every habit's logs scheduled in [start, end) per day; run after deleteBetween for the same days
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO HabitDailyRollup (habitId, day, completed, missed, skipped) " +
+           "SELECT l.habit.id, CAST(l.scheduledDateTime AS LocalDate), " +
+           "SUM(CASE WHEN l.completed = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN l.missed = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN l.skipped = true THEN 1 ELSE 0 END) " +
+           "FROM HabitLog l WHERE l.scheduledDateTime >= :start AND l.scheduledDateTime < :end " +
+           "GROUP BY l.habit.id, CAST(l.scheduledDateTime AS LocalDate)")
+    int insertFromLogs(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Same for one habit, the log change that triggered it is flushed first
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO HabitDailyRollup (habitId, day, completed, missed, skipped) " +
+           "SELECT l.habit.id, CAST(l.scheduledDateTime AS LocalDate), " +
+           "SUM(CASE WHEN l.completed = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN l.missed = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN l.skipped = true THEN 1 ELSE 0 END) " +
+           "FROM HabitLog l WHERE l.habit.id = :habitId " +
+           "AND l.scheduledDateTime >= :start AND l.scheduledDateTime < :end " +
+           "GROUP BY l.habit.id, CAST(l.scheduledDateTime AS LocalDate)")
+    int insertFromLogs(@Param("habitId") Long habitId,
+                       @Param("start") LocalDateTime start,
+                       @Param("end") LocalDateTime end);
+
+    // Completed, missed and skipped totals over the inclusive day range, a single row
+    @Query("SELECT COALESCE(SUM(r.completed), 0), COALESCE(SUM(r.missed), 0), COALESCE(SUM(r.skipped), 0) " +
+           "FROM HabitDailyRollup r WHERE r.day >= :from AND r.day <= :to")
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Per-day totals over the inclusive day range, for charts
+    @Query("SELECT r.day, SUM(r.completed), SUM(r.missed), SUM(r.skipped) FROM HabitDailyRollup r " +
+           "WHERE r.day >= :from AND r.day <= :to GROUP BY r.day ORDER BY r.day")
+    List<Object[]> sumByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<HabitDailyRollup> findByDayBetween(LocalDate from, LocalDate to);
+
+    List<HabitDailyRollup> findByHabitIdAndDayBetween(Long habitId, LocalDate from, LocalDate to);
+
+    boolean existsBy();
+}
@@ -0,0 +1,56 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.HabitHourRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HabitHourRollupRepository extends JpaRepository<HabitHourRollup, HabitHourRollup.Key> {
+
+    List<HabitHourRollup> findByDayBetween(LocalDate from, LocalDate to);
+
+    List<HabitHourRollup> findByHabitIdAndDayBetween(Long habitId, LocalDate from, LocalDate to);
+
+    boolean existsBy();
+
+    @Modifying
+    @Query("DELETE FROM HabitHourRollup r WHERE r.day >= :from AND r.day <= :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM HabitHourRollup r WHERE r.habitId = :habitId AND r.day = :day")
+    int deleteHabitDay(@Param("habitId") Long habitId, @Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM HabitHourRollup r WHERE r.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") Long habitId);
+
+    // Completed logs scheduled in [start, end) per habit, scheduled day and hour they were completed in
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO HabitHourRollup (habitId, day, hour, completed) " +
+           "SELECT l.habit.id, CAST(l.scheduledDateTime AS LocalDate), " +
+           "HOUR(COALESCE(l.completedDateTime, l.scheduledDateTime)), COUNT(l) " +
+           "FROM HabitLog l WHERE l.completed = true " +
+           "AND l.scheduledDateTime >= :start AND l.scheduledDateTime < :end " +
+           "GROUP BY l.habit.id, CAST(l.scheduledDateTime AS LocalDate), " +
+           "HOUR(COALESCE(l.completedDateTime, l.scheduledDateTime))")
+    int insertFromLogs(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Same for one habit
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO HabitHourRollup (habitId, day, hour, completed) " +
+           "SELECT l.habit.id, CAST(l.scheduledDateTime AS LocalDate), " +
+           "HOUR(COALESCE(l.completedDateTime, l.scheduledDateTime)), COUNT(l) " +
+           "FROM HabitLog l WHERE l.habit.id = :habitId AND l.completed = true " +
+           "AND l.scheduledDateTime >= :start AND l.scheduledDateTime < :end " +
+           "GROUP BY l.habit.id, CAST(l.scheduledDateTime AS LocalDate), " +
+           "HOUR(COALESCE(l.completedDateTime, l.scheduledDateTime))")
+    int insertFromLogs(@Param("habitId") Long habitId,
+                       @Param("start") LocalDateTime start,
+                       @Param("end") LocalDateTime end);
+}
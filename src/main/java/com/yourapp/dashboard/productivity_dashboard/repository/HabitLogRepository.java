@@ -1,5 +1,6 @@
 package com.yourapp.dashboard.productivity_dashboard.repository;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.TodayLogView;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,12 +56,41 @@ public interface HabitLogRepository extends JpaRepository<HabitLog, Long>, Habit
     // Find logs by completion status
     List<HabitLog> findByCompleted(Boolean completed);
     
+    // Ids of the given habits with a completed log in [start, end), one query for a whole page of habits
+    @Query("SELECT DISTINCT l.habit.id FROM HabitLog l WHERE l.habit.id IN :habitIds AND l.completed = true " +
+           "AND l.scheduledDateTime >= :start AND l.scheduledDateTime < :end")
+    List<Long> findCompletedHabitIdsBetween(
+        @Param("habitIds") Collection<Long> habitIds,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
+    // Today's logs of the given habits as read-only views, one query for all cards of the habits page
+    @Query("SELECT new com.yourapp.dashboard.productivity_dashboard.dto.TodayLogView(" +
+           "l.habit.id, l.id, l.scheduledDateTime, l.completed) FROM HabitLog l WHERE l.habit.id IN :habitIds " +
+           "AND l.scheduledDateTime >= :start AND l.scheduledDateTime < :end ORDER BY l.scheduledDateTime")
+    List<TodayLogView> findTodayViewsBetween(
+        @Param("habitIds") Collection<Long> habitIds,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
+    // (habit id, earliest scheduled time) of the given habits' logs in [start, end], for the matrix
+    @Query("SELECT l.habit.id, MIN(l.scheduledDateTime) FROM HabitLog l WHERE l.habit.id IN :habitIds " +
+           "AND l.scheduledDateTime BETWEEN :start AND :end GROUP BY l.habit.id")
+    List<Object[]> findFirstScheduledBetween(
+        @Param("habitIds") Collection<Long> habitIds,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
     // Find logs by habit, completion status true, and within a date range
     List<HabitLog> findByHabitAndCompletedTrueAndScheduledDateTimeBetween(
         Habit habit, LocalDateTime start, LocalDateTime end);
     
     // Find most recent logs, ordered by scheduled date/time (newest first)
-    List<HabitLog> findTop50ByOrderByScheduledDateTimeDesc();
+    List<HabitLog> findTop10ByOrderByScheduledDateTimeDesc();
+
+    // Earliest and latest scheduled time, a single row
+    @Query("SELECT MIN(l.scheduledDateTime), MAX(l.scheduledDateTime) FROM HabitLog l")
+    List<Object[]> findScheduledDateTimeRange();
     
     // Find logs by habit, not completed, not missed, and scheduled before a specific time
     List<HabitLog> findByHabitAndCompletedFalseAndMissedFalseAndScheduledDateTimeBefore(
@@ -75,6 +106,44 @@ public interface HabitLogRepository extends JpaRepository<HabitLog, Long>, Habit
     // Find logs scheduled between two dates
     List<HabitLog> findByScheduledDateTimeBetween(LocalDateTime start, LocalDateTime end);
     
+    // Find (habit id, scheduled time) pairs of all active habits' logs within a window, without hydrating entities
+    @Query("SELECT l.habit.id, l.scheduledDateTime FROM HabitLog l WHERE l.habit.archived = false " +
+           "AND l.scheduledDateTime BETWEEN :start AND :end")
+    List<Object[]> findActiveHabitSlotsBetween(
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+    
+    // (habit id, scheduled time) pairs of all logs within a window, for seeding the log slot index
+    @Query("SELECT l.habit.id, l.scheduledDateTime FROM HabitLog l " +
+           "WHERE l.scheduledDateTime >= :start AND l.scheduledDateTime < :end")
+    List<Object[]> findSlotsBetween(
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+    
+    // Same as above, restricted to the given habits
+    @Query("SELECT l.habit.id, l.scheduledDateTime FROM HabitLog l WHERE l.habit.id IN :habitIds " +
+           "AND l.scheduledDateTime BETWEEN :start AND :end")
+    List<Object[]> findHabitSlotsBetween(
+        @Param("habitIds") Collection<Long> habitIds,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+    
+    // Count total and completed logs per active habit over its current progress period
+    // (today for hourly, this week for daily, this month for weekly, this year otherwise)
+    @Query("SELECT h.id, COUNT(l), SUM(CASE WHEN l.completed = true THEN 1 ELSE 0 END) " +
+           "FROM HabitLog l JOIN l.habit h WHERE h.archived = false AND l.scheduledDateTime < :end AND (" +
+           "(h.recurrence = 'HOURLY' AND l.scheduledDateTime >= :dayStart) OR " +
+           "(h.recurrence = 'DAILY' AND l.scheduledDateTime >= :weekStart) OR " +
+           "(h.recurrence = 'WEEKLY' AND l.scheduledDateTime >= :monthStart) OR " +
+           "(h.recurrence IN ('MONTHLY', 'YEARLY') AND l.scheduledDateTime >= :yearStart)) " +
+           "GROUP BY h.id")
+    List<Object[]> countProgressByActiveHabit(
+        @Param("dayStart") LocalDateTime dayStart,
+        @Param("weekStart") LocalDateTime weekStart,
+        @Param("monthStart") LocalDateTime monthStart,
+        @Param("yearStart") LocalDateTime yearStart,
+        @Param("end") LocalDateTime end);
+    
     // Check if a log exists for a specific habit and time
     boolean existsByHabitAndScheduledDateTime(Habit habit, LocalDateTime scheduledDateTime);
     
@@ -122,6 +191,14 @@ public interface HabitLogRepository extends JpaRepository<HabitLog, Long>, Habit
         Habit habit, LocalDateTime after);
     
     // Find logs by habit and date range for a specific timezone
+    // Completed slots of a habit in [start, end), to build its completion bitmap for a year
+    @Query("SELECT l.scheduledDateTime FROM HabitLog l WHERE l.habit = :habit AND l.completed = true AND " +
+           "l.scheduledDateTime >= :start AND l.scheduledDateTime < :end")
+    List<LocalDateTime> findCompletedTimesBetween(
+        @Param("habit") Habit habit,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
     @Query("SELECT l FROM HabitLog l WHERE l.habit = :habit AND " +
            "l.scheduledDateTime >= :start AND l.scheduledDateTime < :end " +
            "ORDER BY l.scheduledDateTime")
@@ -149,9 +226,18 @@ public interface HabitLogRepository extends JpaRepository<HabitLog, Long>, Habit
         @Param("now") LocalDateTime now,
         @Param("dueTime") LocalDateTime dueTime);
     
-    // Find logs that were missed but not yet processed
-    @Query("SELECT l FROM HabitLog l WHERE l.missed = true AND l.missedDateTime IS NULL")
-    List<HabitLog> findUnprocessedMissedLogs();
+    // Marks open logs scheduled in [from, to) of active habits with the given grace period as missed
+    @Modifying
+    @Query("UPDATE HabitLog l SET l.missed = true, l.missedDateTime = :stamp " +
+           "WHERE l.scheduledDateTime >= :from AND l.scheduledDateTime < :to " +
+           "AND l.completed = false AND l.missed = false AND l.skipped = false " +
+           "AND l.habit.id IN (SELECT h.id FROM Habit h WHERE h.archived = false " +
+           "AND COALESCE(h.gracePeriodMinutes, 15) = :grace)")
+    int markMissedBetween(
+        @Param("grace") int gracePeriodMinutes,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("stamp") LocalDateTime stamp);
     
     // Find logs that were completed within grace period
     @Query("SELECT l FROM HabitLog l WHERE l.habit = :habit AND " +
@@ -177,7 +263,7 @@ public interface HabitLogRepository extends JpaRepository<HabitLog, Long>, Habit
     // Delete old logs
     @Modifying
     @Query("DELETE FROM HabitLog l WHERE l.scheduledDateTime < :cutoff")
-    void deleteByScheduledDateTimeBefore(@Param("cutoff") LocalDateTime cutoff);
+    int deleteByScheduledDateTimeBefore(@Param("cutoff") LocalDateTime cutoff);
     
     // Find logs for a specific date
     @Query("SELECT l FROM HabitLog l WHERE FUNCTION('DATE', l.scheduledDateTime) = :date")
@@ -208,4 +294,7 @@ public interface HabitLogRepository extends JpaRepository<HabitLog, Long>, Habit
     void deleteByHabitId(@Param("habitId") Long habitId);
 
     List<HabitLog> findByCompletedFalseAndNotifSentFalseAndScheduledDateTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    List<HabitLog> findByHabitInAndCompletedFalseAndNotifSentFalseAndScheduledDateTimeBetween(
+            Collection<Habit> habits, LocalDateTime start, LocalDateTime end);
 }
@@ -5,8 +5,24 @@ import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface HabitLogRepositoryCustom {
+
+    /** Streaks of one habit as recomputed from its logs; {@code countedThrough} is the last counted log. */
+    record StreakIslands(long habitId, int bestStreak, int currentStreak, LocalDateTime countedThrough) {
+    }
+
+    /** A log as the streak backfill sees it. */
+    record LogStatus(long habitId, LocalDateTime scheduledDateTime, boolean completed, boolean skipped,
+                     boolean missed) {
+    }
+
+
     List<HabitLog> findLogsByHabitAndDateRange(Habit habit, LocalDateTime start, LocalDateTime end);
     void markLogsAsProcessed(List<Long> logIds);
+    int insertLogsIgnoringDuplicates(List<HabitLog> logs);
+    boolean supportsStreakIslands();
+    void forEachStreakIslands(String timeZone, LocalDateTime before, Consumer<StreakIslands> action);
+    void forEachLogStatus(String islandsTimeZone, LocalDateTime before, Consumer<LogStatus> action);
 }
@@ -7,20 +7,161 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 @Transactional(readOnly = true)
 public class HabitLogRepositoryImpl implements HabitLogRepositoryCustom {
     private static final Logger logger = LoggerFactory.getLogger(HabitLogRepositoryImpl.class);
 
+    private static final String LOG_COLUMNS =
+        "habit_id, scheduled_date_time, completed, missed, skipped, notif_sent, grace_period_used, " +
+        "completed_in_grace_period, rescheduled, error, time_zone, created_at, updated_at";
+    private static final String LOG_VALUES = "(?, ?, false, false, false, false, false, false, false, false, ?, ?, ?)";
+    private static final int PARAMETERS_PER_LOG = 5;
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    // Habits whose every period is due, the only ones the islands query can tell gaps for: no
+    // recurrence rule, and not hourly, which steps over the sleep window. One parameter, the zone
+    private static final String ISLAND_HABITS = "(h.time_zone = ? OR h.time_zone IS NULL) " +
+        "AND (h.recurrence_rule IS NULL OR h.recurrence_rule = '') AND COALESCE(h.recurrence, 'DAILY') <> 'HOURLY'";
+
+    private static final String STREAK_ISLANDS_SQL = """
+        SELECT habit_id,
+               MAX(streak) AS best_streak,
+               MAX(CASE WHEN island = last_island THEN streak END) AS current_streak,
+               MAX(CASE WHEN island = last_island THEN counted_through END) AS counted_through
+        FROM (
+            SELECT habit_id, island, SUM(done) AS streak,
+                   MAX(CASE WHEN done = 1 OR skipped = 1 THEN last_time END) AS counted_through,
+                   MAX(island) OVER (PARTITION BY habit_id) AS last_island
+            FROM (
+                SELECT habit_id, done, skipped, last_time,
+                       SUM(CASE WHEN done = 0 AND skipped = 0 THEN missed
+                                WHEN previous_counted = 1 AND previous_period = period - 1 THEN 0
+                                ELSE 1 END)
+                           OVER (PARTITION BY habit_id ORDER BY period ROWS UNBOUNDED PRECEDING) AS island
+                FROM (
+                    SELECT habit_id, period, done, skipped, missed, last_time,
+                           LAG(period) OVER (PARTITION BY habit_id ORDER BY period) AS previous_period,
+                           LAG(CASE WHEN done = 1 OR skipped = 1 THEN 1 ELSE 0 END)
+                               OVER (PARTITION BY habit_id ORDER BY period) AS previous_counted
+                    FROM (
+                        SELECT habit_id, period, MAX(done) AS done, MAX(skipped) AS skipped, MAX(missed) AS missed,
+                               MAX(scheduled_date_time) AS last_time
+                        FROM (
+                            SELECT l.habit_id, %s AS period, l.scheduled_date_time,
+                                   CASE WHEN l.completed = TRUE THEN 1 ELSE 0 END AS done,
+                                   CASE WHEN l.skipped = TRUE THEN 1 ELSE 0 END AS skipped,
+                                   CASE WHEN l.missed = TRUE THEN 1 ELSE 0 END AS missed
+                            FROM habit_log l JOIN habit h ON h.id = l.habit_id
+                            WHERE %s AND l.scheduled_date_time < ?
+                        ) logs
+                        GROUP BY habit_id, period
+                    ) periods
+                ) linked
+            ) flagged
+            GROUP BY habit_id, island
+        ) islands
+        GROUP BY habit_id
+        """;
+
+    // How each database spells "insert unless (habit_id, scheduled_date_time) is taken", and the
+    // day of a timestamp counted from 1970-01-01 (null where window functions are not used)
+    enum Dialect {
+        // Not ON DUPLICATE KEY UPDATE: Connector/J sets CLIENT_FOUND_ROWS, which counts every
+        // duplicate as an affected row, while INSERT IGNORE reports only the rows it inserted
+        MYSQL("INSERT IGNORE INTO habit_log (" + LOG_COLUMNS + ") VALUES ", LOG_VALUES, "", "(TO_DAYS(%s) - 719528)"),
+        POSTGRESQL("INSERT INTO habit_log (" + LOG_COLUMNS + ") VALUES ", LOG_VALUES,
+            " ON CONFLICT (habit_id, scheduled_date_time) DO NOTHING",
+            "(CAST(%s AS DATE) - DATE '1970-01-01')"),
+        H2("MERGE INTO habit_log t USING (VALUES ",
+            "(CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))",
+            ") s (habit_id, scheduled_date_time, time_zone, created_at, updated_at) " +
+            "ON t.habit_id = s.habit_id AND t.scheduled_date_time = s.scheduled_date_time " +
+            "WHEN NOT MATCHED THEN INSERT (" + LOG_COLUMNS + ") VALUES (s.habit_id, s.scheduled_date_time, " +
+            "false, false, false, false, false, false, false, false, s.time_zone, s.created_at, s.updated_at)",
+            "DATEDIFF(DAY, DATE '1970-01-01', %s)"),
+        // Unknown database: plain single-row inserts, a duplicate-key error skips only that row
+        GENERIC("INSERT INTO habit_log (" + LOG_COLUMNS + ") VALUES ", LOG_VALUES, "", null);
+
+        private final String prefix;
+        private final String row;
+        private final String suffix;
+        private final String epochDay;
+
+        Dialect(String prefix, String row, String suffix, String epochDay) {
+            this.prefix = prefix;
+            this.row = row;
+            this.suffix = suffix;
+            this.epochDay = epochDay;
+        }
+
+        String statement(int rows) {
+            StringBuilder sql = new StringBuilder(prefix.length() + rows * (row.length() + 2) + suffix.length());
+            sql.append(prefix);
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(row);
+            }
+            return sql.append(suffix).toString();
+        }
+
+        /**
+         * Numbers the periods of each habit's recurrence consecutively, the same way as
+         * {@code StreakEngine.Cadence}: epoch hours, days and Monday-based weeks, months since year 0, years.
+         */
+        String periodKey(String column) {
+            String day = String.format(epochDay, column);
+            return String.format("CASE h.recurrence " +
+                "WHEN 'HOURLY' THEN " + day + " * 24 + EXTRACT(HOUR FROM %1$s) " +
+                "WHEN 'WEEKLY' THEN FLOOR((" + day + " + 3) / 7) " +
+                "WHEN 'MONTHLY' THEN EXTRACT(YEAR FROM %1$s) * 12 + EXTRACT(MONTH FROM %1$s) - 1 " +
+                "WHEN 'YEARLY' THEN EXTRACT(YEAR FROM %1$s) " +
+                "ELSE " + day + " END", column);
+        }
+
+        static Dialect of(String databaseProductName) {
+            String name = databaseProductName == null ? "" : databaseProductName.toLowerCase();
+            if (name.contains("mysql") || name.contains("mariadb")) {
+                return MYSQL;
+            }
+            if (name.contains("postgres")) {
+                return POSTGRESQL;
+            }
+            if (name.contains("h2")) {
+                return H2;
+            }
+            return GENERIC;
+        }
+    }
+
+    private volatile Dialect dialect;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Override
     public List<HabitLog> findLogsByHabitAndDateRange(Habit habit, LocalDateTime start, LocalDateTime end) {
         try {
@@ -59,4 +200,120 @@ public class HabitLogRepositoryImpl implements HabitLogRepositoryCustom {
             throw e;
         }
     }
+
+    /**
+     * Inserts new, not yet completed logs, skipping every slot that already has a log. Relies on the
+     * unique (habit_id, scheduled_date_time) constraint, so concurrent generators cannot create
+     * duplicates; each chunk of up to 500 logs is a single multi-row statement, except on an unknown
+     * database, which gets one insert per log.
+     * Bypasses the persistence context, so the inserted rows are not managed entities.
+     *
+     * @return the number of rows actually inserted
+     */
+    @Override
+    @Transactional
+    public int insertLogsIgnoringDuplicates(List<HabitLog> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return 0;
+        }
+
+        Dialect dialect = dialect();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String defaultZone = ZoneId.systemDefault().toString();
+        int inserted = 0;
+        int rowsPerStatement = dialect == Dialect.GENERIC ? 1 : ROWS_PER_STATEMENT;
+        for (int from = 0; from < logs.size(); from += rowsPerStatement) {
+            List<HabitLog> chunk = logs.subList(from, Math.min(logs.size(), from + rowsPerStatement));
+            Object[] params = new Object[chunk.size() * PARAMETERS_PER_LOG];
+            int i = 0;
+            for (HabitLog log : chunk) {
+                params[i++] = log.getHabit().getId();
+                params[i++] = Timestamp.valueOf(log.getScheduledDateTime());
+                params[i++] = log.getTimeZone() != null ? log.getTimeZone() : defaultZone;
+                params[i++] = now;
+                params[i++] = now;
+            }
+            try {
+                inserted += jdbcTemplate.update(dialect.statement(chunk.size()), params);
+            } catch (DuplicateKeyException e) {
+                if (dialect != Dialect.GENERIC) {
+                    throw e;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public boolean supportsStreakIslands() {
+        return dialect().epochDay != null;
+    }
+
+    /**
+     * Recomputes the streaks of the habits in {@code timeZone} that are due every period with one
+     * gaps-and-islands query. Logs are folded into one row per period of the habit's recurrence,
+     * numbered consecutively. A completed or skipped period starts a new island unless the period
+     * right before it was completed or skipped too, so an open period or one without logs ends the
+     * streak just as it does in {@code StreakEngine}; a period that was missed and not completed
+     * starts one as well. A running count of those numbers the islands, and the streak of an island
+     * is the number of its completed periods. The rows are streamed, one per habit with logs.
+     */
+    @Override
+    public void forEachStreakIslands(String timeZone, LocalDateTime before, Consumer<StreakIslands> action) {
+        String sql = STREAK_ISLANDS_SQL.formatted(dialect().periodKey("l.scheduled_date_time"), ISLAND_HABITS);
+        jdbcTemplate.query(con -> streamingStatement(con, sql, timeZone, Timestamp.valueOf(before)), rs -> {
+            Timestamp countedThrough = rs.getTimestamp("counted_through");
+            action.accept(new StreakIslands(
+                rs.getLong("habit_id"),
+                rs.getInt("best_streak"),
+                rs.getInt("current_streak"),
+                countedThrough != null ? countedThrough.toLocalDateTime() : null));
+        });
+    }
+
+    /**
+     * Streams the logs scheduled before {@code before} ordered by habit and time, leaving out the
+     * habits {@link #forEachStreakIslands} covers for {@code islandsTimeZone} when it is given.
+     */
+    @Override
+    public void forEachLogStatus(String islandsTimeZone, LocalDateTime before, Consumer<LogStatus> action) {
+        String sql = "SELECT l.habit_id, l.scheduled_date_time, l.completed, l.skipped, l.missed " +
+            "FROM habit_log l JOIN habit h ON h.id = l.habit_id WHERE l.scheduled_date_time < ? " +
+            (islandsTimeZone != null ? "AND NOT (" + ISLAND_HABITS + ") " : "") +
+            "ORDER BY l.habit_id, l.scheduled_date_time";
+        Object[] params = islandsTimeZone != null
+            ? new Object[] {Timestamp.valueOf(before), islandsTimeZone} : new Object[] {Timestamp.valueOf(before)};
+        jdbcTemplate.query(con -> streamingStatement(con, sql, params),
+            rs -> {
+                action.accept(new LogStatus(
+                    rs.getLong("habit_id"),
+                    rs.getTimestamp("scheduled_date_time").toLocalDateTime(),
+                    rs.getBoolean("completed"),
+                    rs.getBoolean("skipped"),
+                    rs.getBoolean("missed")));
+            });
+    }
+
+    private PreparedStatement streamingStatement(Connection connection, String sql, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql,
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // MySQL only streams rows with this fetch size, everyone else reads it as a batch size
+        statement.setFetchSize(dialect() == Dialect.MYSQL ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+        return statement;
+    }
+
+    private Dialect dialect() {
+        Dialect current = dialect;
+        if (current == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            current = Dialect.of(product);
+            dialect = current;
+            logger.info("Using {} statements for habit logs ({})", current, product);
+        }
+        return current;
+    }
 }
@@ -3,18 +3,26 @@ package com.yourapp.dashboard.productivity_dashboard.repository;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.service.Priority;
 import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.model.RecurrenceRule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface HabitRepository extends JpaRepository<Habit, Long> {
+public interface HabitRepository extends JpaRepository<Habit, Long>, HabitRepositoryCustom {
     List<Habit> findByRecurrence(Recurrence recurrence);
     
     // Find habits by archived status
     List<Habit> findByArchivedFalse();
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "habit-queries")})
     List<Habit> findByArchivedTrue();
     
     // Find habits by priority
@@ -33,17 +41,98 @@ public interface HabitRepository extends JpaRepository<Habit, Long> {
     // Find habits with best streak greater than or equal to a value
     List<Habit> findByBestStreakGreaterThanEqual(int streak);
     
-    // Find habits that need to be completed today
-    @Query("SELECT h FROM Habit h WHERE h.archived = false AND " +
-           "(h.recurrence = 'DAILY' OR " +
-           "(h.recurrence = 'WEEKLY' AND h.weeklyDay = :dayOfWeek) OR " +
-           "(h.recurrence = 'MONTHLY' AND h.monthlyDay = :dayOfMonth) OR " +
-           "(h.recurrence = 'YEARLY' AND h.yearlyMonth = :month AND h.yearlyDay = :dayOfMonth))")
-    List<Habit> findTodaysHabits(
-        @Param("dayOfWeek") int dayOfWeek,
-        @Param("dayOfMonth") int dayOfMonth,
-        @Param("month") int month
+    // Find active habits due on a day, by bit tests on the masks compiled by RecurrenceRule.
+    // The day-of-week test is an IN list so (archived, day_of_week_mask) can serve it from the index.
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "habit-queries")})
+    @Query("SELECT h FROM Habit h WHERE h.archived = false " +
+           "AND h.dayOfWeekMask IN :weekMasks " +
+           "AND MOD(FLOOR(h.monthMask / :monthBit), 2) = 1 " +
+           "AND (MOD(FLOOR(h.dayOfMonthMask / :dayBit), 2) = 1 " +
+           "     OR (:lastDayOfMonth = true AND h.dayOfMonthMask >= :dayBit)) " +
+           "AND (h.ruleStart IS NULL OR h.ruleStart <= :day) " +
+           "AND (h.ruleUntil IS NULL OR h.ruleUntil >= :day) " +
+           "AND (h.ruleInterval = 1 OR MOD(CASE h.recurrence " +
+           "     WHEN 'WEEKLY' THEN :weekIndex WHEN 'MONTHLY' THEN :monthIndex " +
+           "     WHEN 'YEARLY' THEN :yearIndex ELSE :dayIndex END - h.ruleAnchor, h.ruleInterval) = 0)")
+    List<Habit> findDueOn(
+        @Param("day") LocalDate day,
+        @Param("weekMasks") List<Integer> weekMasks,
+        @Param("monthBit") int monthBit,
+        @Param("dayBit") long dayBit,
+        @Param("lastDayOfMonth") boolean lastDayOfMonth,
+        @Param("dayIndex") long dayIndex,
+        @Param("weekIndex") long weekIndex,
+        @Param("monthIndex") long monthIndex,
+        @Param("yearIndex") long yearIndex
     );
+
+    default List<Habit> findDueOn(LocalDate day) {
+        return findDueOn(day,
+            RecurrenceRule.weekMasksContaining(day.getDayOfWeek()),
+            1 << day.getMonthValue(),
+            1L << day.getDayOfMonth(),
+            day.getDayOfMonth() == day.lengthOfMonth(),
+            RecurrenceRule.periodIndex(Recurrence.DAILY, day),
+            RecurrenceRule.periodIndex(Recurrence.WEEKLY, day),
+            RecurrenceRule.periodIndex(Recurrence.MONTHLY, day),
+            RecurrenceRule.periodIndex(Recurrence.YEARLY, day));
+    }
+
+    // Active habits whose next occurrence is before the given time, via idx_habit_archived_next_scheduled.
+    // A null nextScheduled means the rule has no further occurrences, so those habits never match
+    @Query("SELECT h FROM Habit h WHERE h.archived = false AND h.nextScheduled < :end")
+    List<Habit> findDueBefore(@Param("end") LocalDateTime end);
+
+    // Grace periods in use by active habits, the missed sweeper makes one pass per value
+    @Query("SELECT DISTINCT COALESCE(h.gracePeriodMinutes, 15) FROM Habit h WHERE h.archived = false")
+    List<Integer> findDistinctGracePeriods();
+
+    // Adds the logs a sweep stamped as missed in [from, to) to the missedCount of their habits
+    @Modifying
+    @Query("UPDATE Habit h SET h.missedCount = h.missedCount + " +
+           "(SELECT COUNT(l) FROM HabitLog l WHERE l.habit.id = h.id AND l.missedDateTime = :stamp " +
+           "AND l.scheduledDateTime >= :from AND l.scheduledDateTime < :to) " +
+           "WHERE COALESCE(h.gracePeriodMinutes, 15) = :grace AND h.id IN (SELECT l.habit.id FROM HabitLog l " +
+           "WHERE l.missedDateTime = :stamp AND l.scheduledDateTime >= :from AND l.scheduledDateTime < :to)")
+    int addMissedCounts(
+        @Param("grace") int gracePeriodMinutes,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("stamp") LocalDateTime stamp);
+
+    // Ends the current streak of habits with a log the sweep marked missed after their last counted period
+    @Modifying
+    @Query("UPDATE Habit h SET h.currentStreak = 0 WHERE h.currentStreak > 0 " +
+           "AND COALESCE(h.gracePeriodMinutes, 15) = :grace AND EXISTS (SELECT l.id FROM HabitLog l " +
+           "WHERE l.habit.id = h.id AND l.missedDateTime = :stamp " +
+           "AND l.scheduledDateTime >= :from AND l.scheduledDateTime < :to " +
+           "AND (h.streakThrough IS NULL OR l.scheduledDateTime >= h.streakThrough))")
+    int resetStreaksMissedBetween(
+        @Param("grace") int gracePeriodMinutes,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("stamp") LocalDateTime stamp);
+
+    // Id, best and current streak of every active habit, for the streak ranking
+    @Query("SELECT h.id, h.bestStreak, h.currentStreak FROM Habit h WHERE h.archived = false")
+    List<Object[]> findActiveStreaks();
+
+    // Every habit with the reminder times its occurrences depend on, so the streak backfill can work
+    // out due periods after the session is gone
+    @Query("SELECT DISTINCT h FROM Habit h LEFT JOIN FETCH h.dailyReminderTimes")
+    List<Habit> findAllWithReminderTimes();
+
+    // Ids only, in order, so the hourly job can split them into partitions
+    @Query("SELECT h.id FROM Habit h WHERE h.archived = false AND h.nextScheduled < :end ORDER BY h.id")
+    List<Long> findIdsDueBefore(@Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query("UPDATE Habit h SET h.nextScheduled = :next WHERE h.id = :id")
+    void updateNextScheduled(@Param("id") Long id, @Param("next") LocalDateTime next);
+
+    // Habits whose recurrence has not been compiled into masks yet
+    List<Habit> findByRuleIntervalIsNull();
     
     // Count habits by completion status for today
     @Query("SELECT COUNT(DISTINCT h) FROM Habit h JOIN h.logs l WHERE " +
@@ -0,0 +1,13 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HabitRepositoryCustom {
+
+    /** New streak values for one habit. */
+    record StreakUpdate(long habitId, int currentStreak, int bestStreak, LocalDateTime streakThrough) {
+    }
+
+    int updateStreaks(List<StreakUpdate> updates);
+}
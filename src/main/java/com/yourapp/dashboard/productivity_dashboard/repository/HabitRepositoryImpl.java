@@ -0,0 +1,67 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public class HabitRepositoryImpl implements HabitRepositoryCustom {
+
+    private static final String UPDATE_STREAKS_SQL =
+        "UPDATE habit SET current_streak = ?, best_streak = ?, streak_through = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Writes recomputed streaks with one JDBC batch, bypassing the persistence context. The habits
+     * are evicted from the second-level cache, if enabled, as Hibernate does not see the update.
+     *
+     * @return the number of habits updated
+     */
+    @Override
+    @Transactional
+    public int updateStreaks(List<StreakUpdate> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STREAKS_SQL, updates, updates.size(), (ps, update) -> {
+            ps.setInt(1, update.currentStreak());
+            ps.setInt(2, update.bestStreak());
+            ps.setTimestamp(3, update.streakThrough() != null ? Timestamp.valueOf(update.streakThrough()) : null);
+            ps.setLong(4, update.habitId());
+        });
+        evict(updates);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Again once committed, a concurrent read may have cached the old row in between
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(updates);
+                }
+            });
+        }
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    private void evict(List<StreakUpdate> updates) {
+        updates.forEach(update -> entityManagerFactory.getCache().evict(Habit.class, update.habitId()));
+    }
+}
@@ -0,0 +1,25 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.HabitYearBitmap;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface HabitYearBitmapRepository extends JpaRepository<HabitYearBitmap, Long> {
+
+    Optional<HabitYearBitmap> findByHabitIdAndYear(Long habitId, int year);
+
+    // Locks the row so concurrent completions of the same habit do not lose each other's bits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM HabitYearBitmap b WHERE b.habitId = :habitId AND b.year = :year")
+    Optional<HabitYearBitmap> findForUpdate(@Param("habitId") Long habitId, @Param("year") int year);
+
+    @Modifying
+    @Query("DELETE FROM HabitYearBitmap b WHERE b.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") Long habitId);
+}
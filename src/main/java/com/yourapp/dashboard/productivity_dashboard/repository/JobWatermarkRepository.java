@@ -0,0 +1,7 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+}
@@ -9,9 +9,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PomodoroRepository extends JpaRepository<PomodoroSession, Long> {
-    @Query("SELECT FUNCTION('DAYOFWEEK', p.startTime) as day, SUM(p.sessions * 25) FROM PomodoroSession p " +
-            "WHERE p.startTime BETWEEN :start AND :end GROUP BY FUNCTION('DAYOFWEEK', p.startTime)")
-    List<Object[]> sumPomodoroMinutesByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    // Focus minutes per start day in [start, end), to rebuild the daily activity rollups
+    @Query("SELECT CAST(p.startTime AS LocalDate), SUM(p.sessions * 25) FROM PomodoroSession p " +
+            "WHERE p.startTime >= :start AND p.startTime < :end GROUP BY CAST(p.startTime AS LocalDate)")
+    List<Object[]> sumMinutesByStartDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Earliest and latest start time, a single row
+    @Query("SELECT MIN(p.startTime), MAX(p.startTime) FROM PomodoroSession p")
+    List<Object[]> findStartTimeRange();
 
 }
 
@@ -1,22 +1,57 @@
 package com.yourapp.dashboard.productivity_dashboard.repository;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.TaskView;
+import com.yourapp.dashboard.productivity_dashboard.model.MatrixItem;
 import com.yourapp.dashboard.productivity_dashboard.model.Task;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByDueDate(LocalDateTime now);
 
+    // Cached with the l2cache profile until the task table is written
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")})
     List<Task> findByCompleted(boolean completed);
 
-    @Query("SELECT FUNCTION('DAYOFWEEK', t.dueDate) as day, COUNT(t) FROM Task t " +
-            "WHERE t.completed = true AND t.dueDate BETWEEN :start AND :end " +
-            "GROUP BY FUNCTION('DAYOFWEEK', t.dueDate)")
-    List<Object[]> countCompletedTasksByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    // Same as above as read-only views for the task lists, without loading the entities
+    @Query("SELECT new com.yourapp.dashboard.productivity_dashboard.dto.TaskView(" +
+            "t.id, t.title, t.category, t.priority, t.dueDate, t.completed, t.completionTimestamp) " +
+            "FROM Task t WHERE t.completed = :completed")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")})
+    List<TaskView> findViewsByCompleted(@Param("completed") boolean completed);
+
+    @Query("SELECT new com.yourapp.dashboard.productivity_dashboard.dto.TaskView(" +
+            "t.id, t.title, t.category, t.priority, t.dueDate, t.completed, t.completionTimestamp) " +
+            "FROM Task t WHERE t.dueDate = :dueDate")
+    List<TaskView> findViewsByDueDate(@Param("dueDate") LocalDateTime dueDate);
+
+    // Open tasks with a due date as matrix items, without loading the entities
+    @Query("SELECT new com.yourapp.dashboard.productivity_dashboard.model.MatrixItem(t.title, t.priority, t.dueDate) " +
+            "FROM Task t WHERE t.completed = false AND t.dueDate IS NOT NULL")
+    List<MatrixItem> findOpenMatrixItems();
+
+    // Completed tasks per due day in [start, end), to rebuild the daily activity rollups
+    @Query("SELECT CAST(t.dueDate AS LocalDate), COUNT(t) FROM Task t " +
+            "WHERE t.completed = true AND t.dueDate >= :start AND t.dueDate < :end " +
+            "GROUP BY CAST(t.dueDate AS LocalDate)")
+    List<Object[]> countCompletedByDueDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Earliest and latest due date, a single row
+    @Query("SELECT MIN(t.dueDate), MAX(t.dueDate) FROM Task t")
+    List<Object[]> findDueDateRange();
+
+    @Query("SELECT t.dueDate FROM Task t WHERE t.id = :id")
+    Optional<LocalDateTime> findDueDateById(@Param("id") Long id);
 
     List<Task> findByDueDateBetween(LocalDateTime startOfDay, LocalDateTime endOfDay);
 
@@ -27,6 +62,8 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByCompletedFalseAndNotifSentFalseAndDueDateBetween(LocalDateTime start, LocalDateTime end);
     
     @Query("SELECT DISTINCT YEAR(t.dueDate) FROM Task t ORDER BY YEAR(t.dueDate) DESC")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")})
     List<Integer> findDistinctYears();
     
     @Query("SELECT t FROM Task t WHERE YEAR(t.dueDate) = :year")
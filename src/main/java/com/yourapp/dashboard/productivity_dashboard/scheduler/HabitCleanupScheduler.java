@@ -1,9 +1,12 @@
 package com.yourapp.dashboard.productivity_dashboard.scheduler;
 
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
@@ -12,11 +15,15 @@ import java.time.LocalDateTime;
 public class HabitCleanupScheduler {
 
     private final HabitLogRepository logRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    // daily at 3 AM
+    // daily at 3 AM; the event moves the log version, so conditional GETs of the logs stop answering 304
     @Scheduled(cron = "0 0 3 * * *")
+    @Transactional
     public void purgeOldLogs() {
         LocalDateTime cutoff = LocalDateTime.now().minusDays(90);
-        logRepository.deleteByScheduledDateTimeBefore(cutoff);
+        if (logRepository.deleteByScheduledDateTimeBefore(cutoff) > 0) {
+            eventPublisher.publishEvent(HabitChangeEvent.of(null, HabitChangeEvent.Type.MISSED));
+        }
     }
 }
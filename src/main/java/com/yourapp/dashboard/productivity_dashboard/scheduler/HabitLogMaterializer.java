@@ -0,0 +1,106 @@
+package com.yourapp.dashboard.productivity_dashboard.scheduler;
+
+import com.yourapp.dashboard.productivity_dashboard.service.HabitProcessingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates habit logs ahead of time so that page views only have to read them.
+ * <p>
+ * Every run materializes all occurrences from now up to the configured horizon (48 hours by default),
+ * on a fixed delay and once more shortly before midnight. The watermark is the end of the last
+ * successfully materialized window; the lag is how far it trails {@code now + horizon}, which grows
+ * steadily whenever runs stop succeeding.
+ */
+@Component
+public class HabitLogMaterializer {
+    private static final Logger logger = LoggerFactory.getLogger(HabitLogMaterializer.class);
+
+    private final HabitProcessingService habitProcessingService;
+    private final AtomicReference<LocalDateTime> watermark = new AtomicReference<>();
+    private final Timer runTimer;
+    private final Counter slotsCreated;
+    private final Counter failures;
+
+    public HabitLogMaterializer(HabitProcessingService habitProcessingService, MeterRegistry meterRegistry) {
+        this.habitProcessingService = habitProcessingService;
+        this.runTimer = Timer.builder("habit.materializer.run")
+            .description("Duration of habit log materialization runs")
+            .register(meterRegistry);
+        this.slotsCreated = Counter.builder("habit.materializer.slots.created")
+            .description("Habit log slots created ahead of time")
+            .register(meterRegistry);
+        this.failures = Counter.builder("habit.materializer.failures")
+            .description("Failed habit log materialization runs")
+            .register(meterRegistry);
+        Gauge.builder("habit.materializer.watermark", this, HabitLogMaterializer::watermarkEpochSeconds)
+            .description("End of the last materialized window, in epoch seconds")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("habit.materializer.lag", this, HabitLogMaterializer::lagSeconds)
+            .description("How far the materialized window trails now + horizon")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        materialize();
+    }
+
+    // Keep the horizon topped up during the day
+    @Scheduled(fixedDelayString = "${habit.materializer.interval-ms:900000}",
+               initialDelayString = "${habit.materializer.interval-ms:900000}")
+    public void materializeAhead() {
+        materialize();
+    }
+
+    // Make sure tomorrow's occurrences exist before local midnight
+    @Scheduled(cron = "${habit.materializer.midnight-cron:0 45 23 * * *}")
+    public void materializeBeforeMidnight() {
+        materialize();
+    }
+
+    public synchronized void materialize() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            HabitProcessingService.RunStats stats = runTimer.record(() -> habitProcessingService.materializeAhead(now));
+            slotsCreated.increment(stats.slotsCreated());
+            watermark.set(now.plus(habitProcessingService.getHorizon()));
+        } catch (Exception e) {
+            failures.increment();
+            logger.error("Habit log materialization failed", e);
+        }
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark.get();
+    }
+
+    double watermarkEpochSeconds() {
+        LocalDateTime current = watermark.get();
+        return current == null ? 0 : current.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    double lagSeconds() {
+        LocalDateTime current = watermark.get();
+        if (current == null) {
+            return habitProcessingService.getHorizon().getSeconds();
+        }
+        LocalDateTime target = LocalDateTime.now().plus(habitProcessingService.getHorizon());
+        return Math.max(0, Duration.between(current, target).getSeconds());
+    }
+}
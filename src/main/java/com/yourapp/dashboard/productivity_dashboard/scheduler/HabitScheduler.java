@@ -3,25 +3,165 @@ package com.yourapp.dashboard.productivity_dashboard.scheduler;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
 import com.yourapp.dashboard.productivity_dashboard.service.HabitService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Makes sure every habit due within the next hour has its upcoming log and moves its
+ * {@code nextScheduled} on.
+ * <p>
+ * The ids of the due habits are split into partitions of {@code habit.scheduler.partition-size} that
+ * run on the bounded {@code habitSchedulerExecutor} pool, each in its own transaction and persistence
+ * context. When a partition fails, its habits are retried in a transaction each, so one bad habit
+ * only costs itself.
+ */
 @Component
-@RequiredArgsConstructor
 public class HabitScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(HabitScheduler.class);
+
+    public record RunStats(int habits, int partitions, int slotsCreated, int failures, long durationMillis) {
+    }
+
+    private record PartitionResult(int habits, int slotsCreated, int failures) {
+    }
 
     private final HabitRepository habitRepo;
     private final HabitService habitService;
+    private final Executor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitionSize;
+    private final AtomicReference<RunStats> lastRun = new AtomicReference<>();
+    private final Timer runTimer;
+    private final Counter habitsProcessed;
+    private final Counter slotsCreated;
+    private final Counter failures;
+
+    public HabitScheduler(HabitRepository habitRepo,
+                          HabitService habitService,
+                          @Qualifier("habitSchedulerExecutor") Executor executor,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${habit.scheduler.partition-size:200}") int partitionSize,
+                          MeterRegistry meterRegistry) {
+        this.habitRepo = habitRepo;
+        this.habitService = habitService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionSize = Math.max(1, partitionSize);
+        this.runTimer = Timer.builder("habit.scheduler.run")
+            .description("Duration of the hourly upcoming-log runs")
+            .register(meterRegistry);
+        this.habitsProcessed = Counter.builder("habit.scheduler.habits")
+            .description("Due habits handled by the hourly job")
+            .register(meterRegistry);
+        this.slotsCreated = Counter.builder("habit.scheduler.slots.created")
+            .description("Habit logs created by the hourly job")
+            .register(meterRegistry);
+        this.failures = Counter.builder("habit.scheduler.failures")
+            .description("Habits the hourly job failed to handle")
+            .register(meterRegistry);
+    }
 
-    // Runs every hour to ensure at least one upcoming log exists for each habit
+    // Runs every hour to ensure the upcoming log exists for each habit due within the hour.
+    // Habits whose due time has passed are picked up too and get their next due time.
     @Scheduled(cron = "0 0 * * * *")
     public void ensureUpcomingLogs() {
-        List<Habit> habits = habitRepo.findAll();
-        for (Habit habit : habits) {
-            habitService.generateTodayLogsForHabit(habit);
+        run(LocalDateTime.now());
+    }
+
+    public synchronized RunStats run(LocalDateTime now) {
+        long started = System.nanoTime();
+        List<Long> ids = habitRepo.findIdsDueBefore(now.plusHours(1));
+
+        List<CompletableFuture<PartitionResult>> partitions = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += partitionSize) {
+            List<Long> partition = ids.subList(from, Math.min(ids.size(), from + partitionSize));
+            partitions.add(CompletableFuture.supplyAsync(() -> processPartition(partition, now), executor));
+        }
+
+        int habits = 0;
+        int slots = 0;
+        int failed = 0;
+        for (CompletableFuture<PartitionResult> partition : partitions) {
+            PartitionResult result = partition.join();
+            habits += result.habits();
+            slots += result.slotsCreated();
+            failed += result.failures();
         }
+
+        long elapsed = System.nanoTime() - started;
+        RunStats stats = new RunStats(habits, partitions.size(), slots, failed, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        habitsProcessed.increment(habits);
+        slotsCreated.increment(slots);
+        failures.increment(failed);
+        lastRun.set(stats);
+        if (failed > 0) {
+            logger.warn("Upcoming-log run: {}", stats);
+        } else if (habits > 0) {
+            logger.info("Upcoming-log run: {}", stats);
+        }
+        return stats;
+    }
+
+    public RunStats getLastRun() {
+        return lastRun.get();
+    }
+
+    private PartitionResult processPartition(List<Long> ids, LocalDateTime now) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Habit> habits = habitRepo.findAllById(ids);
+                int slots = 0;
+                for (Habit habit : habits) {
+                    slots += processHabit(habit, now);
+                }
+                return new PartitionResult(habits.size(), slots, 0);
+            });
+        } catch (Exception e) {
+            logger.warn("Partition of {} habits starting at id {} failed, retrying one by one: {}",
+                ids.size(), ids.get(0), e.getMessage());
+        }
+
+        int habits = 0;
+        int slots = 0;
+        int failed = 0;
+        for (Long id : ids) {
+            try {
+                Integer created = transactionTemplate.execute(status ->
+                    habitRepo.findById(id).map(habit -> processHabit(habit, now)).orElse(null));
+                if (created != null) {
+                    habits++;
+                    slots += created;
+                }
+            } catch (Exception e) {
+                habits++;
+                failed++;
+                logger.error("Failed to generate upcoming logs for habit {}", id, e);
+            }
+        }
+        return new PartitionResult(habits, slots, failed);
+    }
+
+    private int processHabit(Habit habit, LocalDateTime now) {
+        int created = habitService.generateTodayLogsForHabit(habit);
+        habitService.refreshNextScheduled(habit, now);
+        return created;
     }
 }
@@ -0,0 +1,153 @@
+package com.yourapp.dashboard.productivity_dashboard.scheduler;
+
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.JobWatermark;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.JobWatermarkRepository;
+import com.yourapp.dashboard.productivity_dashboard.service.RollupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks every open habit log whose grace period has run out as missed.
+ * <p>
+ * The persisted watermark is the time of the last successful sweep. A log becomes overdue once
+ * {@code scheduledDateTime + gracePeriodMinutes} has passed, so for each grace period in use a sweep
+ * only covers logs scheduled in {@code [watermark - grace, now - grace)}, widened by a small overlap
+ * to catch logs written late. The range is cut into chunks; each chunk is one transaction holding one
+ * UPDATE of the logs, one aggregated UPDATE of the habits' {@code missedCount} and one that ends the
+ * streaks the misses broke (see {@link com.yourapp.dashboard.productivity_dashboard.service.StreakEngine}).
+ * The chunks share a stamp in {@code missedDateTime}, which is how the later statements find what the
+ * first marked.
+ */
+@Component
+public class MissedOccurrenceSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(MissedOccurrenceSweeper.class);
+    static final String WATERMARK = "missed-occurrence-sweeper";
+
+    public record SweepStats(int gracePeriods, int chunks, int logsMarked, long durationMillis) {
+    }
+
+    private final HabitRepository habitRepository;
+    private final HabitLogRepository habitLogRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final RollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration chunk;
+    private final Duration overlap;
+    private final Duration initialLookback;
+    private final Timer sweepTimer;
+    private final Counter logsMarked;
+    private final Counter failures;
+
+    public MissedOccurrenceSweeper(HabitRepository habitRepository,
+                                   HabitLogRepository habitLogRepository,
+                                   JobWatermarkRepository watermarkRepository,
+                                   RollupService rollupService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${habit.missed-sweeper.chunk-hours:24}") long chunkHours,
+                                   @Value("${habit.missed-sweeper.overlap-minutes:60}") long overlapMinutes,
+                                   @Value("${habit.missed-sweeper.initial-lookback-days:90}") long initialLookbackDays,
+                                   MeterRegistry meterRegistry) {
+        this.habitRepository = habitRepository;
+        this.habitLogRepository = habitLogRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.rollupService = rollupService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunk = Duration.ofHours(Math.max(1, chunkHours));
+        this.overlap = Duration.ofMinutes(Math.max(0, overlapMinutes));
+        this.initialLookback = Duration.ofDays(Math.max(1, initialLookbackDays));
+        this.sweepTimer = Timer.builder("habit.missed.sweep")
+            .description("Duration of missed-occurrence sweeps")
+            .register(meterRegistry);
+        this.logsMarked = Counter.builder("habit.missed.marked")
+            .description("Habit logs marked as missed by the sweeper")
+            .register(meterRegistry);
+        this.failures = Counter.builder("habit.missed.failures")
+            .description("Failed missed-occurrence sweeps")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${habit.missed-sweeper.interval-ms:300000}",
+               initialDelayString = "${habit.missed-sweeper.interval-ms:300000}")
+    public void sweep() {
+        try {
+            sweep(LocalDateTime.now());
+        } catch (Exception e) {
+            failures.increment();
+            logger.error("Missed-occurrence sweep failed", e);
+        }
+    }
+
+    public synchronized SweepStats sweep(LocalDateTime now) {
+        long started = System.nanoTime();
+        LocalDateTime stamp = now.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime since = watermarkRepository.findById(WATERMARK)
+            .map(JobWatermark::getWatermark)
+            .map(watermark -> watermark.minus(overlap))
+            .orElse(stamp.minus(initialLookback));
+
+        List<Integer> gracePeriods = habitRepository.findDistinctGracePeriods();
+        int chunks = 0;
+        int marked = 0;
+        for (Integer grace : gracePeriods) {
+            LocalDateTime to = stamp.minusMinutes(grace);
+            for (LocalDateTime from = since.minusMinutes(grace); from.isBefore(to); from = from.plus(chunk)) {
+                LocalDateTime chunkFrom = from;
+                LocalDateTime chunkTo = from.plus(chunk).isBefore(to) ? from.plus(chunk) : to;
+                Integer count = transactionTemplate.execute(status -> {
+                    int rows = habitLogRepository.markMissedBetween(grace, chunkFrom, chunkTo, stamp);
+                    if (rows > 0) {
+                        habitRepository.addMissedCounts(grace, chunkFrom, chunkTo, stamp);
+                        habitRepository.resetStreaksMissedBetween(grace, chunkFrom, chunkTo, stamp);
+                        rollupService.refreshHabitDays(chunkFrom.toLocalDate(), chunkTo.toLocalDate());
+                    }
+                    return rows;
+                });
+                marked += count != null ? count : 0;
+                chunks++;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            JobWatermark watermark = watermarkRepository.findById(WATERMARK)
+                .orElseGet(() -> new JobWatermark(WATERMARK, stamp));
+            watermark.setWatermark(stamp);
+            watermark.setUpdatedAt(LocalDateTime.now());
+            watermarkRepository.save(watermark);
+        });
+
+        long elapsed = System.nanoTime() - started;
+        SweepStats stats = new SweepStats(gracePeriods.size(), chunks, marked, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        sweepTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        logsMarked.increment(marked);
+        if (marked > 0) {
+            eventPublisher.publishEvent(HabitChangeEvent.of(null, HabitChangeEvent.Type.MISSED));
+            logger.info("Missed-occurrence sweep: {}", stats);
+        }
+        return stats;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermarkRepository.findById(WATERMARK).map(JobWatermark::getWatermark).orElse(null);
+    }
+}
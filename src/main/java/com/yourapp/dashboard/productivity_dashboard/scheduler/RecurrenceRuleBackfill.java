@@ -0,0 +1,42 @@
+package com.yourapp.dashboard.productivity_dashboard.scheduler;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.RecurrenceRule;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Compiles the recurrence masks of habits saved before they existed, so the due-on query sees them.
+ * New and updated habits are compiled when they are saved.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecurrenceRuleBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(RecurrenceRuleBackfill.class);
+
+    private final HabitRepository habitRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void compileMissingRules() {
+        List<Habit> habits = habitRepository.findByRuleIntervalIsNull();
+        for (Habit habit : habits) {
+            try {
+                RecurrenceRule.of(habit).applyTo(habit);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Habit {} has an invalid recurrence rule: {}", habit.getId(), e.getMessage());
+            }
+        }
+        if (!habits.isEmpty()) {
+            logger.info("Compiled recurrence rules of {} habits", habits.size());
+        }
+    }
+}
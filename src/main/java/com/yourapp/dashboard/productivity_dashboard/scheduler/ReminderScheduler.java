@@ -1,8 +1,10 @@
 package com.yourapp.dashboard.productivity_dashboard.scheduler;
 
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 import com.yourapp.dashboard.productivity_dashboard.model.Task;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
 import com.yourapp.dashboard.productivity_dashboard.repository.TaskRepository;
 import com.yourapp.dashboard.productivity_dashboard.service.Priority;
 import com.yourapp.dashboard.productivity_dashboard.service.TelegramService;
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -20,6 +23,7 @@ import java.util.stream.Collectors;
 public class ReminderScheduler {
 
     private final TaskRepository taskRepository;
+    private final HabitRepository habitRepository;
     private final HabitLogRepository habitLogRepository;
     private final TelegramService telegramService;
 
@@ -37,8 +41,10 @@ public class ReminderScheduler {
                 .filter(t -> t.getPriority() == Priority.HIGH)
                 .collect(Collectors.toList());
 
-        List<HabitLog> habits = habitLogRepository
-                .findByCompletedFalseAndNotifSentFalseAndScheduledDateTimeBetween(now, windowEnd);
+        // Only habits due before the end of the window can have a log to remind about
+        List<Habit> dueHabits = habitRepository.findDueBefore(windowEnd);
+        List<HabitLog> habits = dueHabits.isEmpty() ? List.of() : habitLogRepository
+                .findByHabitInAndCompletedFalseAndNotifSentFalseAndScheduledDateTimeBetween(dueHabits, now, windowEnd);
 
         if (tasks.isEmpty() && habits.isEmpty()) return;
 
@@ -56,8 +62,10 @@ public class ReminderScheduler {
 
         if (!habits.isEmpty()) {
             sb.append("🔵 Habits:\n");
+            // The due habits are already loaded, the log's habit is an uninitialized proxy here
+            Map<Long, Habit> habitsById = dueHabits.stream().collect(Collectors.toMap(Habit::getId, h -> h));
             habits.forEach(h -> sb.append(" • ")
-                    .append(h.getHabit().getName())
+                    .append(habitsById.get(h.getHabit().getId()).getName())
                     .append(" at ")
                     .append(h.getScheduledDateTime().format(timeFmt))
                     .append("\n"));
@@ -0,0 +1,68 @@
+package com.yourapp.dashboard.productivity_dashboard.scheduler;
+
+import com.yourapp.dashboard.productivity_dashboard.service.DataVersionRegistry;
+import com.yourapp.dashboard.productivity_dashboard.service.RollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Builds the daily rollups from history on first start, then recounts recent days every night to
+ * repair anything the incremental refreshes missed. The window must stay inside the habit log
+ * retention, or purged days would be recounted as empty.
+ */
+@Component
+public class RollupReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(RollupReconciler.class);
+
+    private final RollupService rollupService;
+    private final DataVersionRegistry dataVersions;
+    private final int reconcileDays;
+
+    public RollupReconciler(RollupService rollupService,
+                            DataVersionRegistry dataVersions,
+                            @Value("${rollup.reconcile-days:35}") int reconcileDays) {
+        this.rollupService = rollupService;
+        this.dataVersions = dataVersions;
+        this.reconcileDays = Math.max(1, reconcileDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildMissingRollups() {
+        try {
+            if (rollupService.buildIfEmpty()) {
+                logger.info("Built daily rollups from history");
+            }
+        } catch (Exception e) {
+            logger.error("Building daily rollups failed", e);
+        }
+    }
+
+    @Scheduled(cron = "${rollup.reconcile-cron:0 30 2 * * *}")
+    public void reconcile() {
+        try {
+            reconcile(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Daily rollup reconciliation failed", e);
+        }
+    }
+
+    /** Recounts {@code [today - reconcile-days, today + reconcile-days]}; tasks can be due ahead. */
+    public void reconcile(LocalDate today) {
+        LocalDate from = today.minusDays(reconcileDays);
+        LocalDate to = today.plusDays(reconcileDays);
+        rollupService.refreshHabitDays(from, to);
+        rollupService.refreshActivityDays(from, to);
+        // Output built from the uncorrected rollups is keyed by the old versions
+        dataVersions.bump(DataVersionRegistry.Domain.LOGS);
+        dataVersions.bump(DataVersionRegistry.Domain.TASKS);
+        dataVersions.bump(DataVersionRegistry.Domain.POMODORO);
+        logger.info("Reconciled daily rollups from {} to {}", from, to);
+    }
+}
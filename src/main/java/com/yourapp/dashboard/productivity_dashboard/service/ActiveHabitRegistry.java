@@ -0,0 +1,152 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory copy of every active (not archived) habit, so pages and jobs that only read habit
+ * definitions do not query the habit table.
+ * <p>
+ * Readers get an immutable snapshot that is replaced as a whole on every change, so they never lock
+ * and never see a half-applied update. The habits in it are detached copies without their logs and
+ * must not be modified; use {@link #copyOf(Habit)} to get one that may be. A habit is reloaded from
+ * its row after each committed {@link HabitChangeEvent} of it (create, update, archive, unarchive,
+ * delete, and completions, skips and misses for its streak), before the caches keyed by
+ * {@link DataVersionRegistry} move on. {@code nextScheduled} is moved by the materializer without an
+ * event, so the due-time jobs keep querying it.
+ */
+@Component
+public class ActiveHabitRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ActiveHabitRegistry.class);
+
+    private record Snapshot(List<Habit> habits, Map<Long, Habit> byId) {
+
+        static Snapshot of(List<Habit> habits) {
+            List<Habit> sorted = new ArrayList<>(habits);
+            sorted.sort(Comparator.comparing(Habit::getId));
+            Map<Long, Habit> byId = new HashMap<>();
+            sorted.forEach(habit -> byId.put(habit.getId(), habit));
+            return new Snapshot(List.copyOf(sorted), Map.copyOf(byId));
+        }
+    }
+
+    private final HabitRepository habitRepo;
+    private final TransactionTemplate readTx;
+    private final Counter reloads;
+    private final Counter rebuilds;
+
+    private volatile Snapshot snapshot;
+
+    public ActiveHabitRegistry(HabitRepository habitRepo,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.habitRepo = habitRepo;
+        // Own transaction, so the copies never come from a caller's persistence context
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTx.setReadOnly(true);
+        this.readTx.setTimeout(30);
+        this.reloads = Counter.builder("habit.registry.reloads")
+            .description("Single habits reloaded into the active habit registry")
+            .register(meterRegistry);
+        this.rebuilds = Counter.builder("habit.registry.rebuilds")
+            .description("Full loads of the active habit registry")
+            .register(meterRegistry);
+        Gauge.builder("habit.registry.size", this, ActiveHabitRegistry::size)
+            .description("Active habits held by the registry")
+            .register(meterRegistry);
+    }
+
+    /** Every active habit, ordered by id. */
+    public List<Habit> activeHabits() {
+        return snapshot().habits();
+    }
+
+    /** The active habit with {@code id}, empty if it does not exist or is archived. */
+    public Optional<Habit> find(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    /** A detached copy of {@code habit} without its logs, for readers that need to decorate it. */
+    public static Habit copyOf(Habit habit) {
+        Habit copy = new Habit();
+        BeanUtils.copyProperties(habit, copy, "logs");
+        return copy;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Habit> habits = readTx.execute(status ->
+            habitRepo.findByArchivedFalse().stream().map(ActiveHabitRegistry::copyOf).toList());
+        snapshot = Snapshot.of(habits);
+        rebuilds.increment();
+        logger.debug("Loaded {} active habits", habits.size());
+    }
+
+    // Runs before the version counters move and the today views are dropped, so reloads see the change
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onHabitChange(HabitChangeEvent event) {
+        // Materializing logs does not change the habit definition
+        if (event.type() == HabitChangeEvent.Type.GENERATED) {
+            return;
+        }
+        if (event.habitId() == null) {
+            rebuild();
+        } else {
+            reload(event.habitId(), event.type() == HabitChangeEvent.Type.DELETED);
+        }
+    }
+
+    // Reading the row under the lock keeps a slower reload from publishing an older row over a newer one
+    private synchronized void reload(Long habitId, boolean deleted) {
+        if (snapshot == null) {
+            rebuild();
+            return;
+        }
+        Optional<Habit> habit = deleted ? Optional.empty() : readTx.execute(status ->
+            habitRepo.findById(habitId).filter(h -> !h.isArchived()).map(ActiveHabitRegistry::copyOf));
+        List<Habit> habits = new ArrayList<>(snapshot.habits());
+        habits.removeIf(h -> h.getId().equals(habitId));
+        habit.ifPresent(habits::add);
+        snapshot = Snapshot.of(habits);
+        reloads.increment();
+    }
+
+    private double size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.habits().size();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Read before the application was ready, e.g. by a job scheduled at startup
+            rebuild();
+            current = snapshot;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,107 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.BitSet;
+
+/**
+ * A fixed-length bit set stored as run lengths: alternating runs of clear and set bits, starting with
+ * a (possibly empty) clear run, each length written as an unsigned LEB128 varint. Trailing clear bits
+ * are not written. Habit completions come in long runs, so a year of daily bits takes a few dozen
+ * bytes and a year of hourly bits a few hundred.
+ * Not thread-safe.
+ */
+public final class CompletionBitmap {
+    private final int length;
+    private final BitSet bits;
+
+    private CompletionBitmap(int length, BitSet bits) {
+        this.length = length;
+        this.bits = bits;
+    }
+
+    public static CompletionBitmap empty(int length) {
+        return new CompletionBitmap(length, new BitSet(length));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the runs are truncated or longer than {@code length}
+     */
+    public static CompletionBitmap decode(byte[] runs, int length) {
+        BitSet bits = new BitSet(length);
+        int position = 0;
+        boolean set = false;
+        int i = 0;
+        while (runs != null && i < runs.length) {
+            int run = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (i == runs.length || shift > 28) {
+                    throw new IllegalArgumentException("Truncated run length at byte " + i);
+                }
+                b = runs[i++];
+                run |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (run > length - position) {
+                throw new IllegalArgumentException("Runs exceed the bitmap length " + length);
+            }
+            if (set) {
+                bits.set(position, position + run);
+            }
+            position += run;
+            set = !set;
+        }
+        return new CompletionBitmap(length, bits);
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < length) {
+            int nextSet = bits.nextSetBit(position);
+            if (nextSet < 0 || nextSet >= length) {
+                break;
+            }
+            int nextClear = Math.min(bits.nextClearBit(nextSet), length);
+            writeVarint(out, nextSet - position);
+            writeVarint(out, nextClear - nextSet);
+            position = nextClear;
+        }
+        return out.toByteArray();
+    }
+
+    public boolean get(int index) {
+        return bits.get(checkIndex(index));
+    }
+
+    /** @return whether the bit changed */
+    public boolean set(int index, boolean value) {
+        boolean previous = bits.get(checkIndex(index));
+        bits.set(index, value);
+        return previous != value;
+    }
+
+    public int cardinality() {
+        return bits.cardinality();
+    }
+
+    public int length() {
+        return length;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Bit " + index + " outside bitmap of length " + length);
+        }
+        return index;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
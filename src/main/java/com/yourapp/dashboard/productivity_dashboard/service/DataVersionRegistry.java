@@ -0,0 +1,81 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-domain counters that move forward on every committed write, so rendered output can be keyed
+ * by the versions it was built from instead of being invalidated explicitly.
+ * <p>
+ * Habit and habit log writes are counted from {@link HabitChangeEvent}s once they commit; changes to
+ * a habit itself count for its logs as well, since creating or deleting one adds or removes logs.
+ * Task and Pomodoro writes are counted by their services once the write and the rollup refresh
+ * behind the weekly charts have both committed, so a chart built in between is keyed by the old
+ * version. The nightly rollup reconciliation counts as a write to every domain it recounted.
+ */
+@Component
+public class DataVersionRegistry {
+
+    public enum Domain {
+        HABITS,
+        LOGS,
+        TASKS,
+        POMODORO
+    }
+
+    private final Map<Domain, AtomicLong> versions = new EnumMap<>(Domain.class);
+    // Counters restart at zero, so anything handed out to clients also carries the start time
+    private final long epoch = System.currentTimeMillis();
+
+    public DataVersionRegistry() {
+        for (Domain domain : Domain.values()) {
+            versions.put(domain, new AtomicLong());
+        }
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long current(Domain domain) {
+        return versions.get(domain).get();
+    }
+
+    /** The versions of {@code domains} as a stable key part, e.g. {@code HABITS=3,TASKS=12}. */
+    public String tag(Collection<Domain> domains) {
+        StringBuilder tag = new StringBuilder();
+        for (Domain domain : Domain.values()) {
+            if (domains.contains(domain)) {
+                if (tag.length() > 0) {
+                    tag.append(',');
+                }
+                tag.append(domain).append('=').append(current(domain));
+            }
+        }
+        return tag.toString();
+    }
+
+    public void bump(Domain domain) {
+        versions.get(domain).incrementAndGet();
+    }
+
+    // Runs after the caches holding habit data have dropped it
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(2)
+    public void onHabitChange(HabitChangeEvent event) {
+        switch (event.type()) {
+            case COMPLETED, SKIPPED, MISSED, GENERATED -> bump(Domain.LOGS);
+            default -> {
+                bump(Domain.HABITS);
+                bump(Domain.LOGS);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Rendered HTML of page fragments ({@code th:fragment} blocks of the page templates), so a page
+ * can splice in unchanged parts instead of loading their data and rendering them again.
+ * <p>
+ * Entries are keyed by the {@link DataVersionRegistry} versions of the data they were built from,
+ * so a write makes them unreachable without an explicit invalidation; the superseded entry is
+ * dropped when its replacement is stored. Fragments that depend on the clock give an expiry time
+ * as well. The cache is bounded by the size of the HTML it holds and evicts the least recently
+ * used entries beyond that.
+ */
+@Component
+public class FragmentCache {
+    private static final Logger logger = LoggerFactory.getLogger(FragmentCache.class);
+
+    // Rough per-entry cost of the key, the map node and the entry itself
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private record Key(String template, String fragment, String versions) {
+    }
+
+    private record Entry(String html, LocalDateTime expiresAt, long bytes) {
+
+        boolean expired(LocalDateTime now) {
+            return expiresAt != null && !now.isBefore(expiresAt);
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private final SpringTemplateEngine templateEngine;
+    private final ApplicationContext applicationContext;
+    private final DataVersionRegistry dataVersions;
+    private final boolean enabled;
+    private final long maxBytes;
+    private volatile JakartaServletWebApplication webApplication;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong lookupCount = new AtomicLong();
+    private final Counter sizeEvictions;
+    private final Counter supersededEvictions;
+    private final Counter expiredEvictions;
+
+    public FragmentCache(SpringTemplateEngine templateEngine,
+                         ApplicationContext applicationContext,
+                         DataVersionRegistry dataVersions,
+                         MeterRegistry meterRegistry,
+                         @Value("${fragment-cache.enabled:true}") boolean enabled,
+                         @Value("${fragment-cache.max-bytes:4194304}") long maxBytes) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.dataVersions = dataVersions;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.sizeEvictions = evictionCounter("size");
+        this.supersededEvictions = evictionCounter("superseded");
+        this.expiredEvictions = evictionCounter("expired");
+        Gauge.builder("fragment.cache.size", this, FragmentCache::size)
+            .description("Rendered fragments currently cached")
+            .register(meterRegistry);
+        Gauge.builder("fragment.cache.bytes", this, FragmentCache::bytes)
+            .description("Estimated heap held by cached fragments")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("fragment.cache.hit.ratio", this, FragmentCache::hitRatio)
+            .description("Share of fragment lookups served from the cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the HTML of {@code fragment} in {@code template}, rendering it on a miss.
+     * <p>
+     * On a miss {@code loader} puts the fragment's variables into the map it is given and returns
+     * the time the output stops being valid regardless of writes, or {@code null} if only writes to
+     * {@code dependsOn} change it. Returning a time that is not in the future renders the fragment
+     * without storing it, e.g. when it was built from fallback data.
+     */
+    public String render(HttpServletRequest request, HttpServletResponse response,
+                         String template, String fragment, Collection<DataVersionRegistry.Domain> dependsOn,
+                         Function<Map<String, Object>, LocalDateTime> loader) {
+        String name = template + "::" + fragment;
+        // Read the versions before loading, a write racing the load then only orphans the entry
+        Key key = new Key(template, fragment, dataVersions.tag(dependsOn));
+        LocalDateTime now = LocalDateTime.now();
+        if (enabled) {
+            lookupCount.incrementAndGet();
+            Entry cached = lookup(key, now);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                counter(hits, "fragment.cache.hits", name).increment();
+                return cached.html();
+            }
+            counter(misses, "fragment.cache.misses", name).increment();
+        }
+
+        Map<String, Object> variables = new HashMap<>();
+        LocalDateTime expiresAt = loader.apply(variables);
+        String html = renderFragment(request, response, template, fragment, variables);
+        if (enabled && !StaleWhileRevalidate.servedStale()
+                && (expiresAt == null || LocalDateTime.now().isBefore(expiresAt))) {
+            store(key, new Entry(html, expiresAt, ENTRY_OVERHEAD_BYTES + 2L * html.length()));
+        }
+        return html;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private synchronized Entry lookup(Key key, LocalDateTime now) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expired(now)) {
+            remove(key);
+            expiredEvictions.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void store(Key key, Entry entry) {
+        if (entry.bytes() > maxBytes) {
+            logger.debug("Fragment {}::{} is {} bytes, too large to cache", key.template(), key.fragment(), entry.bytes());
+            return;
+        }
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> existing = it.next();
+            Key other = existing.getKey();
+            if (other.template().equals(key.template()) && other.fragment().equals(key.fragment())
+                    && !other.versions().equals(key.versions())) {
+                bytes -= existing.getValue().bytes();
+                it.remove();
+                supersededEvictions.increment();
+            }
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.bytes();
+        }
+        bytes += entry.bytes();
+
+        // Access order puts the least recently used entries first
+        it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().bytes();
+            it.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes();
+        }
+    }
+
+    private String renderFragment(HttpServletRequest request, HttpServletResponse response,
+                                  String template, String fragment, Map<String, Object> variables) {
+        // Same evaluation context the Thymeleaf view sets up, so expressions behave as in the page
+        ConversionService conversionService = applicationContext.getBeanProvider(ConversionService.class).getIfUnique();
+        variables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+            new ThymeleafEvaluationContext(applicationContext, conversionService));
+        WebContext context = new WebContext(webApplication(request).buildExchange(request, response),
+            RequestContextUtils.getLocale(request), variables);
+        return templateEngine.process(template, Set.of(fragment), context);
+    }
+
+    private JakartaServletWebApplication webApplication(HttpServletRequest request) {
+        JakartaServletWebApplication application = webApplication;
+        if (application == null) {
+            application = JakartaServletWebApplication.buildApplication(request.getServletContext());
+            webApplication = application;
+        }
+        return application;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized long bytes() {
+        return bytes;
+    }
+
+    private double hitRatio() {
+        long lookups = lookupCount.get();
+        return lookups == 0 ? 0 : (double) hitCount.get() / lookups;
+    }
+
+    private Counter evictionCounter(String cause) {
+        return Counter.builder("fragment.cache.evictions")
+            .description("Rendered fragments dropped from the cache")
+            .tag("cause", cause)
+            .register(meterRegistry);
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String fragment) {
+        return counters.computeIfAbsent(fragment, f -> Counter.builder(name)
+            .description("Fragment cache lookups")
+            .tag("fragment", f)
+            .register(meterRegistry));
+    }
+}
@@ -0,0 +1,159 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitHeatmap;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitYearBitmap;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitYearBitmapRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * Keeps a per-habit, per-year completion bitmap so a year heatmap is one small row instead of a scan
+ * of the log table. Bits are days, or hours for hourly habits, in the habit's zone. A year without a
+ * row is built from the logs once, the first time it is read or written; after that completions set
+ * and clear bits in place. Bitmaps are kept when old logs are purged.
+ */
+@Service
+public class HabitHeatmapService {
+    private static final Logger logger = LoggerFactory.getLogger(HabitHeatmapService.class);
+
+    private final HabitYearBitmapRepository bitmapRepo;
+    private final HabitLogRepository logRepo;
+    private final TransactionTemplate createTx;
+
+    @Autowired
+    public HabitHeatmapService(HabitYearBitmapRepository bitmapRepo,
+                               HabitLogRepository logRepo,
+                               PlatformTransactionManager transactionManager) {
+        this.bitmapRepo = bitmapRepo;
+        this.logRepo = logRepo;
+        // Rows are created outside the caller's transaction so a lost insert race does not roll it back
+        this.createTx = new TransactionTemplate(transactionManager);
+        this.createTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Sets or clears the bit of the occurrence scheduled at {@code scheduled}, in system time. */
+    @Transactional
+    public void record(Habit habit, LocalDateTime scheduled, boolean completed) {
+        if (habit.getId() == null || scheduled == null) {
+            return;
+        }
+        ZoneId zone = RecurrenceIterator.zoneOf(habit);
+        LocalDateTime local = StreakEngine.toZone(scheduled, zone);
+        boolean hourly = isHourly(habit);
+        int year = local.getYear();
+
+        if (bitmapRepo.findByHabitIdAndYear(habit.getId(), year).isEmpty()) {
+            createFromLogs(habit, year);
+        }
+        HabitYearBitmap row = bitmapRepo.findForUpdate(habit.getId(), year)
+            .orElseThrow(() -> new IllegalStateException("Bitmap of habit " + habit.getId() + " for " + year + " vanished"));
+        if (row.isHourly() != hourly) {
+            // The habit changed cadence since the row was built
+            store(row, fromLogs(habit, year, hourly));
+            row.setHourly(hourly);
+        }
+        CompletionBitmap bitmap = CompletionBitmap.decode(row.getRuns(), length(year, hourly));
+        if (bitmap.set(index(local, hourly), completed)) {
+            store(row, bitmap);
+        }
+        bitmapRepo.save(row);
+    }
+
+    public HabitHeatmap heatmap(Habit habit, int year) {
+        boolean hourly = isHourly(habit);
+        HabitYearBitmap row = bitmapRepo.findByHabitIdAndYear(habit.getId(), year)
+            .filter(existing -> existing.isHourly() == hourly)
+            .orElseGet(() -> rebuild(habit, year));
+        return new HabitHeatmap(habit.getId(), year, hourly ? "HOUR" : "DAY", length(year, hourly),
+            row.getCompleted(), Base64.getEncoder().encodeToString(row.getRuns()));
+    }
+
+    /** Drops a habit's bitmaps, so a later read builds them again from the logs. */
+    @Transactional
+    public void forget(Long habitId) {
+        bitmapRepo.deleteByHabitId(habitId);
+    }
+
+    private HabitYearBitmap rebuild(Habit habit, int year) {
+        HabitYearBitmap row = createFromLogs(habit, year);
+        if (row == null) {
+            row = createTx.execute(status -> {
+                HabitYearBitmap locked = bitmapRepo.findForUpdate(habit.getId(), year).orElseThrow();
+                locked.setHourly(isHourly(habit));
+                store(locked, fromLogs(habit, year, locked.isHourly()));
+                return bitmapRepo.save(locked);
+            });
+        }
+        return row;
+    }
+
+    /** The new row, or {@code null} if another transaction created it first. */
+    private HabitYearBitmap createFromLogs(Habit habit, int year) {
+        try {
+            return createTx.execute(status -> {
+                boolean hourly = isHourly(habit);
+                HabitYearBitmap row = new HabitYearBitmap();
+                row.setHabitId(habit.getId());
+                row.setYear(year);
+                row.setHourly(hourly);
+                store(row, fromLogs(habit, year, hourly));
+                return bitmapRepo.saveAndFlush(row);
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Bitmap of habit {} for {} was created concurrently", habit.getId(), year);
+            return null;
+        }
+    }
+
+    private CompletionBitmap fromLogs(Habit habit, int year, boolean hourly) {
+        ZoneId zone = RecurrenceIterator.zoneOf(habit);
+        CompletionBitmap bitmap = CompletionBitmap.empty(length(year, hourly));
+        LocalDateTime start = toSystem(LocalDateTime.of(year, 1, 1, 0, 0), zone);
+        LocalDateTime end = toSystem(LocalDateTime.of(year + 1, 1, 1, 0, 0), zone);
+        for (LocalDateTime scheduled : logRepo.findCompletedTimesBetween(habit, start, end)) {
+            LocalDateTime local = StreakEngine.toZone(scheduled, zone);
+            if (local.getYear() == year) {
+                bitmap.set(index(local, hourly), true);
+            }
+        }
+        return bitmap;
+    }
+
+    private static void store(HabitYearBitmap row, CompletionBitmap bitmap) {
+        row.setRuns(bitmap.encode());
+        row.setCompleted(bitmap.cardinality());
+        row.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private static boolean isHourly(Habit habit) {
+        return StreakEngine.Cadence.of(habit) == StreakEngine.Cadence.HOURLY;
+    }
+
+    private static int length(int year, boolean hourly) {
+        int days = Year.of(year).length();
+        return hourly ? days * 24 : days;
+    }
+
+    private static int index(LocalDateTime local, boolean hourly) {
+        int day = local.getDayOfYear() - 1;
+        return hourly ? day * 24 + local.getHour() : day;
+    }
+
+    private static LocalDateTime toSystem(LocalDateTime habitTime, ZoneId zone) {
+        return habitTime.atZone(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -1,5 +1,9 @@
 package com.yourapp.dashboard.productivity_dashboard.service;
 
+import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitTodayView;
+import com.yourapp.dashboard.productivity_dashboard.dto.TodayLogView;
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
@@ -8,33 +12,96 @@ import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class HabitProcessingService {
     private static final Logger logger = LoggerFactory.getLogger(HabitProcessingService.class);
+    private static final Set<DataVersionRegistry.Domain> TODAY_DATA =
+        EnumSet.of(DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS);
 
     private final HabitRepository habitRepository;
     private final HabitLogRepository habitLogRepository;
+    private final SleepWindow sleepWindow;
+    private final boolean setBased;
+    private final Duration horizon;
+    private final TodayViewCache todayViewCache;
+    private final LogSlotIndex logSlotIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StaleWhileRevalidate staleReads;
+    private final TransactionTemplate readOnlyTx;
+    private final ActiveHabitRegistry activeHabits;
+
+    /**
+     * Counts and timings of a single set-based materialization run.
+     */
+    public record RunStats(int habits, int existingLogs, int slotsCreated, long loadMillis, long insertMillis) {
+        static RunStats empty() {
+            return new RunStats(0, 0, 0, 0, 0);
+        }
+    }
 
     @Autowired
-    public HabitProcessingService(HabitRepository habitRepository, HabitLogRepository habitLogRepository) {
+    public HabitProcessingService(HabitRepository habitRepository,
+                                  HabitLogRepository habitLogRepository,
+                                  SleepWindow sleepWindow,
+                                  @Value("${habit.processing.set-based:true}") boolean setBased,
+                                  @Value("${habit.materializer.horizon-hours:48}") long horizonHours,
+                                  TodayViewCache todayViewCache,
+                                  LogSlotIndex logSlotIndex,
+                                  ApplicationEventPublisher eventPublisher,
+                                  StaleWhileRevalidate staleReads,
+                                  ActiveHabitRegistry activeHabits,
+                                  PlatformTransactionManager transactionManager) {
         this.habitRepository = habitRepository;
         this.habitLogRepository = habitLogRepository;
+        this.sleepWindow = sleepWindow;
+        this.setBased = setBased;
+        this.horizon = Duration.ofHours(horizonHours);
+        this.todayViewCache = todayViewCache;
+        this.logSlotIndex = logSlotIndex;
+        this.eventPublisher = eventPublisher;
+        this.staleReads = staleReads;
+        this.activeHabits = activeHabits;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setReadOnly(true);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 30)
     public void processHabitsForToday() {
+        if (setBased) {
+            try {
+                materializeTodaysLogs();
+            } catch (Exception e) {
+                logger.error("Error in processHabitsForToday", e);
+            }
+            return;
+        }
+
         LocalDateTime now = LocalDateTime.now();
         LocalDate today = now.toLocalDate();
         LocalDateTime startOfDay = today.atStartOfDay();
@@ -60,6 +127,173 @@ public class HabitProcessingService {
         }
     }
 
+    /**
+     * Set-based variant of {@link #processHabitsForToday()}: materializes the rest of today for all
+     * active habits in the caller's transaction.
+     */
+    @Transactional(timeout = 30)
+    public RunStats materializeTodaysLogs() {
+        LocalDateTime now = LocalDateTime.now();
+        return materializeWindow(now, now.toLocalDate().plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Materializes every occurrence of every active habit from {@code from} up to the configured horizon.
+     */
+    @Transactional(timeout = 60)
+    public RunStats materializeAhead(LocalDateTime from) {
+        return materializeWindow(from, from.plus(horizon));
+    }
+
+    /**
+     * Loads every existing log in the window for all active habits with one range query, works out the
+     * missing slots in memory and inserts them with a single batched statement.
+     */
+    @Transactional(timeout = 60)
+    public RunStats materializeWindow(LocalDateTime from, LocalDateTime to) {
+        long started = System.nanoTime();
+        List<Habit> habits = habitRepository.findByArchivedFalse();
+        if (habits.isEmpty()) {
+            return RunStats.empty();
+        }
+        List<Object[]> rows = habitLogRepository.findActiveHabitSlotsBetween(
+            from.toLocalDate().minusDays(1).atStartOfDay(), to.plusDays(1));
+        return materialize(habits, rows, from, to, started);
+    }
+
+    /**
+     * Materializes the occurrences of a single habit up to the configured horizon, e.g. right after
+     * it was created or edited so it shows up before the next background run.
+     */
+    @Transactional
+    public RunStats materializeHabit(Habit habit) {
+        if (habit == null || habit.getId() == null || habit.isArchived()) {
+            return RunStats.empty();
+        }
+        long started = System.nanoTime();
+        LocalDateTime from = LocalDateTime.now();
+        LocalDateTime to = from.plus(horizon);
+        List<Object[]> rows = habitLogRepository.findHabitSlotsBetween(
+            List.of(habit.getId()), from.toLocalDate().minusDays(1).atStartOfDay(), to.plusDays(1));
+        return materialize(List.of(habit), rows, from, to, started);
+    }
+
+    /**
+     * First occurrence of the habit at or after {@code from}, both in system time, or {@code null}
+     * if it has none. This is what {@link Habit#getNextScheduled()} holds.
+     */
+    public LocalDateTime nextScheduledFrom(Habit habit, LocalDateTime from) {
+        RecurrenceIterator occurrences = RecurrenceIterator.startingAt(
+            habit, from.atZone(ZoneId.systemDefault()), sleepWindow);
+        return occurrences.hasNext() ? toSystemTime(occurrences.next().atZone(occurrences.getZone())) : null;
+    }
+
+    public Duration getHorizon() {
+        return horizon;
+    }
+
+    private RunStats materialize(List<Habit> habits, List<Object[]> rows,
+                                 LocalDateTime from, LocalDateTime to, long started) {
+        Map<Long, List<LocalDateTime>> existingByHabit = new HashMap<>();
+        for (Object[] row : rows) {
+            existingByHabit.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((LocalDateTime) row[1]);
+        }
+        long loaded = System.nanoTime();
+
+        List<HabitLog> missing = new ArrayList<>();
+        for (Habit habit : habits) {
+            try {
+                ZoneId zone = zoneOf(habit);
+                Set<LocalDateTime> taken = new HashSet<>();
+                for (LocalDateTime existing : existingByHabit.getOrDefault(habit.getId(), Collections.emptyList())) {
+                    taken.add(slotKey(habit, existing, zone));
+                }
+                List<LocalDateTime> occurrences = occurrencesBetween(habit, from, to, zone);
+                for (LocalDateTime occurrence : occurrences) {
+                    if (taken.add(slotKey(habit, occurrence, zone))) {
+                        HabitLog log = newLog(habit, occurrence);
+                        log.setTimeZone(habit.getTimeZone());
+                        missing.add(log);
+                    }
+                }
+                // Only move a stale due time forward, completions may already have moved it further.
+                // This also fills in habits saved before the column existed, as the due-time queries skip nulls
+                if (habit.getNextScheduled() == null || habit.getNextScheduled().isBefore(from)) {
+                    habit.setNextScheduled(occurrences.stream()
+                        .filter(occurrence -> !occurrence.isBefore(from))
+                        .findFirst()
+                        .orElseGet(() -> nextScheduledFrom(habit, to)));
+                }
+            } catch (Exception e) {
+                logger.error("Error materializing habit: " + habit.getId(), e);
+            }
+        }
+
+        int created = habitLogRepository.insertLogsIgnoringDuplicates(missing);
+        logSlotIndex.addAll(missing);
+        long inserted = System.nanoTime();
+        if (created > 0) {
+            Long habitId = habits.size() == 1 ? habits.get(0).getId() : null;
+            eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.GENERATED));
+        }
+
+        RunStats stats = new RunStats(habits.size(), rows.size(), created,
+            (loaded - started) / 1_000_000, (inserted - loaded) / 1_000_000);
+        logger.info("Materialized {} log slots for {} habits ({} existing) - load {} ms, insert {} ms",
+            stats.slotsCreated(), stats.habits(), stats.existingLogs(), stats.loadMillis(), stats.insertMillis());
+        return stats;
+    }
+
+    /**
+     * Occurrences of a habit in system time. Hourly habits get one slot per waking hour from the
+     * current hour on; every other recurrence gets its occurrences for each due day in the window,
+     * including ones earlier on the first day so today's occurrence always exists.
+     */
+    private List<LocalDateTime> occurrencesBetween(Habit habit, LocalDateTime from, LocalDateTime to, ZoneId zone) {
+        ZonedDateTime zonedFrom = from.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone);
+        ZonedDateTime zonedTo = to.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone);
+        ZonedDateTime start = habit.getRecurrence() == Recurrence.HOURLY
+            ? zonedFrom.truncatedTo(ChronoUnit.HOURS)
+            : zonedFrom.toLocalDate().atStartOfDay(zone);
+
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        RecurrenceIterator.between(habit, start, zonedTo, sleepWindow)
+            .forEach(occurrence -> occurrences.add(toSystemTime(occurrence)));
+        return occurrences;
+    }
+
+    /**
+     * Key under which a log occupies a slot: the hour for hourly habits, the exact time for habits
+     * with several reminder times a day, and the day for everything else.
+     */
+    private LocalDateTime slotKey(Habit habit, LocalDateTime systemTime, ZoneId zone) {
+        LocalDateTime local = systemTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDateTime();
+        if (habit.getRecurrence() == Recurrence.HOURLY) {
+            return local.truncatedTo(ChronoUnit.HOURS);
+        }
+        if (habit.getRecurrence() == Recurrence.DAILY && habit.isAllowMultipleDaily()
+                && !habit.getDailyReminderTimes().isEmpty()) {
+            return local;
+        }
+        return local.toLocalDate().atStartOfDay();
+    }
+
+    private ZoneId zoneOf(Habit habit) {
+        return RecurrenceIterator.zoneOf(habit);
+    }
+
+    private LocalDateTime toSystemTime(ZonedDateTime time) {
+        return time.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private HabitLog newLog(Habit habit, LocalDateTime scheduledTime) {
+        HabitLog log = new HabitLog();
+        log.setHabit(habit);
+        log.setScheduledDateTime(scheduledTime);
+        log.setCompleted(false);
+        return log;
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = false)
     public List<HabitLog> processHourlyHabit(Habit habit, LocalDateTime now, LocalDateTime startOfDay, LocalDateTime endOfDay) {
         List<HabitLog> processedLogs = new ArrayList<>();
@@ -67,62 +301,24 @@ public class HabitProcessingService {
             // Get current time in IST
             ZoneId istZone = ZoneId.of("Asia/Kolkata");
             ZonedDateTime currentIstTime = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(istZone);
+            LocalDate istToday = currentIstTime.toLocalDate();
             
-            // Convert start and end of day to IST
-            ZonedDateTime istStartOfDay = startOfDay.atZone(ZoneId.systemDefault()).withZoneSameInstant(istZone);
-            ZonedDateTime istEndOfDay = endOfDay.atZone(ZoneId.systemDefault()).withZoneSameInstant(istZone);
+            // Index today's logs by IST hour with one query
+            HourlySlotState slots = HourlySlotState.of(istToday, istZone, habitLogRepository.findLogsInTimeRange(
+                habit, HourlySlotState.dayStart(istToday, istZone), HourlySlotState.dayEnd(istToday, istZone)));
             
-            // Get existing logs for today in IST
-            List<HabitLog> existingLogs = habitLogRepository.findByHabitAndScheduledDateTimeBetween(
-                habit, 
-                istStartOfDay.toLocalDateTime(), 
-                istEndOfDay.toLocalDateTime()
-            );
+            // Only generate logs for current hour and next 5 hours, without running past the end of the day
+            int fromHour = currentIstTime.getHour();
+            int toHour = Math.min(fromHour + 6, HourlySlotState.HOURS);
             
-            // Start from the beginning of the current hour in IST
-            LocalDateTime currentHour = currentIstTime.withMinute(0).withSecond(0).withNano(0).toLocalDateTime();
-            
-            // Only generate logs for current hour and next 5 hours
-            int hoursToGenerate = 6; // current hour + next 5 hours
-            
-            for (int i = 0; i < hoursToGenerate; i++) {
-                LocalDateTime scheduledTime = currentHour.plusHours(i);
-                
-                // Skip if we've gone past the end of day
-                if (scheduledTime.isAfter(istEndOfDay.toLocalDateTime())) {
-                    break;
-                }
-                
-                // Create a copy of scheduledTime for use in lambda
-                final LocalDateTime finalScheduledTime = scheduledTime;
-                
-                // Find or create log for this hour
-                Optional<HabitLog> existingLog = existingLogs.stream()
-                    .filter(log -> {
-                        // Compare hours in the same timezone
-                        ZonedDateTime logTime = log.getScheduledDateTime().atZone(ZoneId.systemDefault())
-                            .withZoneSameInstant(istZone);
-                        return logTime.toLocalDateTime().equals(finalScheduledTime);
-                    })
-                    .findFirst();
-
-                HabitLog log;
-                if (existingLog.isPresent()) {
-                    log = existingLog.get();
-                } else {
-                    log = new HabitLog();
-                    log.setHabit(habit);
-                    // Convert back to system timezone before saving
-                    ZonedDateTime scheduledInSystemTime = finalScheduledTime.atZone(istZone)
-                        .withZoneSameInstant(ZoneId.systemDefault());
-                    log.setScheduledDateTime(scheduledInSystemTime.toLocalDateTime());
-                    log.setCompleted(false);
-                    log = habitLogRepository.save(log);
-                }
-                
-                // Add to processed logs
-                processedLogs.add(log);
+            int missing = slots.missingMask(fromHour, toHour);
+            while (missing != 0) {
+                int hour = Integer.numberOfTrailingZeros(missing);
+                missing &= missing - 1;
+                slots.put(hour, habitLogRepository.save(newLog(habit, slots.systemTimeOf(hour))));
             }
+            
+            processedLogs.addAll(slots.logsFrom(fromHour, toHour - fromHour));
 
         } catch (Exception e) {
             logger.error("Error processing hourly habit: " + (habit != null ? habit.getId() : "unknown"), e);
@@ -150,30 +346,39 @@ public class HabitProcessingService {
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
-    public List<Habit> getTodaysHabits() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDate today = now.toLocalDate();
-        LocalDateTime startOfDay = today.atStartOfDay();
+    /**
+     * Active habits that have logs today, as read models with those logs. Served from
+     * {@link TodayViewCache} until the next habit change; the views are immutable and never load the
+     * habits' {@code logs} association.
+     */
+    public List<HabitTodayView> getTodaysHabits() {
+        return todayViewCache.get("todaysLogs", ZoneId.systemDefault(),
+            () -> staleReads.get("todaysLogs", TODAY_DATA,
+                () -> readOnlyTx.execute(status -> loadTodaysHabits())));
+    }
+
+    private List<HabitTodayView> loadTodaysHabits() {
+        List<Habit> habits = activeHabits.activeHabits();
+        if (habits.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
 
-        List<Habit> habits = habitRepository.findByArchivedFalse();
-        List<Habit> result = new ArrayList<>();
+        // Today's logs of every active habit in one query, grouped by habit in scheduled order
+        Map<Long, List<TodayLogView>> logsByHabit = new HashMap<>();
+        for (TodayLogView log : habitLogRepository.findTodayViewsBetween(
+                habits.stream().map(Habit::getId).toList(), startOfDay, endOfDay)) {
+            logsByHabit.computeIfAbsent(log.habitId(), id -> new ArrayList<>()).add(log);
+        }
 
+        List<HabitTodayView> result = new ArrayList<>();
         for (Habit habit : habits) {
-            try {
-                List<HabitLog> todaysLogs = habitLogRepository
-                    .findByHabitAndScheduledDateTimeBetween(habit, startOfDay, endOfDay);
-                
-                if (!todaysLogs.isEmpty()) {
-                    habit.setLogs(todaysLogs);
-                    result.add(habit);
-                }
-            } catch (Exception e) {
-                logger.error("Error fetching logs for habit: " + habit.getId(), e);
+            List<TodayLogView> todaysLogs = logsByHabit.get(habit.getId());
+            if (todaysLogs != null) {
+                result.add(HabitTodayView.of(habit, todaysLogs));
             }
         }
-
-        return result;
+        return List.copyOf(result);
     }
 }
@@ -0,0 +1,70 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitProgressView;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the progress shown on the habit cards for all active habits at once.
+ * <p>
+ * One aggregate query counts total and completed logs per habit over its progress period, and one
+ * pass over those rows builds an immutable view per habit, so the cost grows linearly with the
+ * number of habits instead of re-querying every habit for every other habit.
+ */
+@Service
+public class HabitProgressProjectionService {
+
+    private final HabitLogRepository logRepo;
+
+    @Autowired
+    public HabitProgressProjectionService(HabitLogRepository logRepo) {
+        this.logRepo = logRepo;
+    }
+
+    /**
+     * Progress of the given habits as of today, keyed by habit id. Habits without logs in their
+     * period get an empty view.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, HabitProgressView> projectToday(Collection<Habit> habits) {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = logRepo.countProgressByActiveHabit(
+            today.atStartOfDay(),
+            today.with(DayOfWeek.MONDAY).atStartOfDay(),
+            today.withDayOfMonth(1).atStartOfDay(),
+            today.withDayOfYear(1).atStartOfDay(),
+            today.plusDays(1).atStartOfDay());
+        return project(habits.stream().map(Habit::getId).toList(), rows);
+    }
+
+    /**
+     * Builds the per-habit views from {@code (habitId, total, completed)} rows in a single pass.
+     */
+    public static Map<Long, HabitProgressView> project(Collection<Long> habitIds, List<Object[]> rows) {
+        Map<Long, HabitProgressView> views = new HashMap<>(habitIds.size() * 2);
+        for (Long habitId : habitIds) {
+            views.put(habitId, HabitProgressView.empty(habitId));
+        }
+        for (Object[] row : rows) {
+            Long habitId = (Long) row[0];
+            if (!views.containsKey(habitId)) {
+                continue;
+            }
+            int total = ((Number) row[1]).intValue();
+            int completed = row[2] != null ? ((Number) row[2]).intValue() : 0;
+            double progress = total > 0 ? (double) completed / total * 100 : 0.0;
+            views.put(habitId, new HabitProgressView(habitId, progress, total, completed));
+        }
+        return Map.copyOf(views);
+    }
+}
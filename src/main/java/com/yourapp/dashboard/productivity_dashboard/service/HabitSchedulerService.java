@@ -1,11 +1,13 @@
 package com.yourapp.dashboard.productivity_dashboard.service;
 
 import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class HabitSchedulerService {
     private final SleepWindow sleepWindow;
     private final TelegramService telegramService;
     private final HabitService habitService;
+    private final ApplicationEventPublisher eventPublisher;
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a");
     
     private String formatDateTime(ZonedDateTime dateTime) {
@@ -37,54 +40,14 @@ public class HabitSchedulerService {
                                HabitLogRepository habitLogRepository,
                                SleepWindow sleepWindow,
                                TelegramService telegramService,
-                               HabitService habitService) {
+                               HabitService habitService,
+                               ApplicationEventPublisher eventPublisher) {
         this.habitRepository = habitRepository;
         this.habitLogRepository = habitLogRepository;
         this.sleepWindow = sleepWindow;
         this.telegramService = telegramService;
         this.habitService = habitService;
-    }
-    
-    @Transactional
-    public void processMissedHabits() {
-        List<HabitLog> unprocessedMissedLogs = habitLogRepository.findUnprocessedMissedLogs();
-        LocalDateTime now = LocalDateTime.now();
-        
-        for (HabitLog log : unprocessedMissedLogs) {
-            try {
-                // Only process if the grace period has passed
-                if (log.getScheduledDateTime().plusMinutes(log.getHabit().getGracePeriodMinutes())
-                        .isBefore(now)) {
-                    log.setMissed(true);
-                    log.setMissedDateTime(now);
-                    habitLogRepository.save(log);
-                    
-                    // Update the habit's missed count
-                    Habit habit = log.getHabit();
-                    habit.setMissedCount(habit.getMissedCount() + 1);
-                    habitRepository.save(habit);
-                    
-                    // Send missed notification
-                    try {
-                        String message = String.format(
-                            "❌ *Missed Habit*\n\n" +
-                            "*%s*\n" +
-                            "⏰ %s\n\n" +
-                            "_You can still complete this habit late if you want!_\n" +
-                            "Type /complete to mark as done.",
-                            habit.getName(),
-                            formatDateTime(log.getScheduledDateTime().atZone(ZoneId.systemDefault()))
-                        );
-                        
-                        telegramService.sendMessage(message);
-                    } catch (Exception e) {
-                        System.err.println("Failed to send missed habit notification: " + e.getMessage());
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error processing missed habit log " + log.getId() + ": " + e.getMessage());
-            }
-        }
+        this.eventPublisher = eventPublisher;
     }
     
     /**
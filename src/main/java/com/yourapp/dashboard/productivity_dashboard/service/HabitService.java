@@ -1,24 +1,28 @@
 package com.yourapp.dashboard.productivity_dashboard.service;
 
 import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
 import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.model.RecurrenceRule;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,52 +32,65 @@ public class HabitService {
 
     private final HabitRepository habitRepo;
     private final HabitLogRepository logRepo;
-    private final HabitLogService habitLogService;
     private final HabitProcessingService habitProcessingService;
     private final TelegramService telegramService;
     private final SleepWindow sleepWindow;
+    private final TodayViewCache todayViewCache;
+    private final LogSlotIndex logSlotIndex;
+    private final StreakEngine streakEngine;
+    private final HabitHeatmapService heatmapService;
+    private final RollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StaleWhileRevalidate staleReads;
+    private final ActiveHabitRegistry activeHabits;
+    private final TransactionTemplate readOnlyTx;
+    private static final Set<DataVersionRegistry.Domain> HABIT_DATA =
+        EnumSet.of(DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS);
+    /** Zone of the "today" views; hourly slots are indexed by the hour of day in this zone. */
+    public static final ZoneId TODAY_ZONE = ZoneId.of("Asia/Kolkata");
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy h:mm a");
     private static final int DEFAULT_GRACE_PERIOD = 30; // minutes
+    private static final int STATS_WINDOW_DAYS = 30; // completion totals and rate cover the last 30 days
 
     @Autowired
     public HabitService(HabitRepository habitRepo,
                        HabitLogRepository logRepo,
-                       HabitLogService habitLogService,
                        HabitProcessingService habitProcessingService,
                        TelegramService telegramService,
-                       SleepWindow sleepWindow) {
+                       SleepWindow sleepWindow,
+                       TodayViewCache todayViewCache,
+                       LogSlotIndex logSlotIndex,
+                       StreakEngine streakEngine,
+                       HabitHeatmapService heatmapService,
+                       RollupService rollupService,
+                       ApplicationEventPublisher eventPublisher,
+                       StaleWhileRevalidate staleReads,
+                       ActiveHabitRegistry activeHabits,
+                       PlatformTransactionManager transactionManager) {
         this.habitRepo = habitRepo;
         this.logRepo = logRepo;
-        this.habitLogService = habitLogService;
         this.habitProcessingService = habitProcessingService;
         this.telegramService = telegramService;
         this.sleepWindow = sleepWindow;
+        this.todayViewCache = todayViewCache;
+        this.logSlotIndex = logSlotIndex;
+        this.streakEngine = streakEngine;
+        this.heatmapService = heatmapService;
+        this.rollupService = rollupService;
+        this.eventPublisher = eventPublisher;
+        this.staleReads = staleReads;
+        this.activeHabits = activeHabits;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setTimeout(30);
     }
     
     /**
-     * Updates the streak counter for a habit based on completion dates
-     * @param habit The habit to update streaks for
+     * Active habits from {@link ActiveHabitRegistry}; they are shared and must not be modified.
      */
-    @Transactional
-    public void updateHabitStreaks(Habit habit) {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        if (habit.getLastCompleted() != null && habit.getLastCompleted().equals(today)) {
-            return;
-        }
-
-        if (habit.getLastCompleted() != null && habit.getLastCompleted().equals(yesterday)) {
-            habit.setCurrentStreak(habit.getCurrentStreak() + 1);
-        } else if (habit.getLastCompleted() == null || habit.getLastCompleted().isBefore(yesterday)) {
-            habit.setCurrentStreak(1);
-        }
-    }
-
-    @Transactional(readOnly = true)
     public List<Habit> getAllHabits() {
         try {
-            return habitRepo.findByArchivedFalse();
+            return activeHabits.activeHabits();
         } catch (Exception e) {
             logger.error("Error fetching all habits", e);
             throw e;
@@ -91,46 +108,52 @@ public class HabitService {
     }
 
     /**
-     * Get statistics about habits and their completion rates
+     * Get statistics about habits and their completion rates. Served from {@link TodayViewCache}
+     * until the next habit change.
      *
      * @return Map containing various habit statistics
      */
-    @Transactional(readOnly = true, timeout = 30)
     public Map<String, Object> getHabitStats() {
-        Map<String, Object> stats = new HashMap<>();
-        List<Habit> habits = Collections.emptyList();
         try {
-            habits = habitRepo.findByArchivedFalse();
+            // Misses that arrive together share one load, a slow one is answered with the last stats
+            return todayViewCache.get("habitStats", ZoneId.systemDefault(),
+                () -> staleReads.get("habitStats", HABIT_DATA,
+                    () -> readOnlyTx.execute(status -> loadHabitStats())));
         } catch (Exception e) {
             logger.error("Error fetching habits for stats", e);
-            return stats;
+            return new HashMap<>();
         }
+    }
 
-        // Basic counts
+    private Map<String, Object> loadHabitStats() {
+        Map<String, Object> stats = new HashMap<>();
+        List<Habit> habits = activeHabits.activeHabits();
+
+        // Basic counts and breakdowns, in one pass
+        long active = 0;
+        Map<Recurrence, Long> habitsByFrequency = new HashMap<>();
+        Map<Priority, Long> habitsByPriority = new HashMap<>();
+        for (Habit habit : habits) {
+            if (!habit.isArchived()) {
+                active++;
+                habitsByFrequency.merge(habit.getRecurrence(), 1L, Long::sum);
+                habitsByPriority.merge(habit.getPriority(), 1L, Long::sum);
+            }
+        }
         stats.put("totalHabits", habits.size());
-        stats.put("activeHabits", habits.stream().filter(h -> !h.isArchived()).count());
-        stats.put("archivedHabits", habits.stream().filter(Habit::isArchived).count());
-
-        // Completion stats
-        List<HabitLog> recentLogs = logRepo.findTop50ByOrderByScheduledDateTimeDesc();
-        long totalCompletions = recentLogs.stream().filter(log -> Boolean.TRUE.equals(log.getCompleted())).count();
-        long totalMissed = recentLogs.stream().filter(log -> Boolean.TRUE.equals(log.getMissed())).count();
-        long totalSkipped = recentLogs.stream().filter(log -> Boolean.TRUE.equals(log.isSkipped())).count();
+        stats.put("activeHabits", active);
+        stats.put("archivedHabits", habits.size() - active);
 
-        // Get today's date at start of day for filtering
+        // Completion stats from the daily rollups
         LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
-
-        // Count completions today
-        long totalCompletedToday = logRepo.countByCompletedAndScheduledDateTimeBetween(true, startOfDay, endOfDay);
+        RollupService.HabitTotals totals = rollupService.habitTotals(today.minusDays(STATS_WINDOW_DAYS - 1), today);
+        long totalCompletions = totals.completed();
+        long totalMissed = totals.missed();
+        long totalSkipped = totals.skipped();
+        long totalCompletedToday = rollupService.habitTotals(today, today).completed();
 
         // Get current streak (max of all active habits' current streaks)
-        int currentStreak = habits.stream()
-                .filter(h -> !h.isArchived())
-                .mapToInt(Habit::getCurrentStreak)
-                .max()
-                .orElse(0);
+        int currentStreak = streakEngine.maxCurrentStreak();
 
         stats.put("totalCompletions", totalCompletions);
         stats.put("totalMissed", totalMissed);
@@ -138,36 +161,21 @@ public class HabitService {
         stats.put("totalCompletedToday", totalCompletedToday);
         stats.put("currentStreak", currentStreak);
 
-        // Calculate completion rate (avoid division by zero)
-        double completionRate = recentLogs.isEmpty() ? 0 :
-                (double) totalCompletions / (totalCompletions + totalMissed + totalSkipped) * 100;
-        stats.put("completionRate", Math.round(completionRate * 10) / 10.0);
+        stats.put("completionRate", totals.completionRate());
 
         // Streak statistics
-        Optional<Habit> bestStreakHabit = habits.stream()
-                .filter(h -> !h.isArchived())
-                .max(Comparator.comparingInt(Habit::getBestStreak));
-
-        bestStreakHabit.ifPresent(habit -> {
-            stats.put("bestStreak", habit.getBestStreak());
-            stats.put("bestStreakHabit", habit.getName());
-        });
-
-        // Habits by frequency
-        Map<Recurrence, Long> habitsByFrequency = habits.stream()
-                .filter(h -> !h.isArchived())
-                .collect(Collectors.groupingBy(Habit::getRecurrence, Collectors.counting()));
-        stats.put("habitsByFrequency", habitsByFrequency);
+        streakEngine.bestStreak()
+                .flatMap(best -> activeHabits.find(best.habitId()))
+                .ifPresent(habit -> {
+                    stats.put("bestStreak", habit.getBestStreak());
+                    stats.put("bestStreakHabit", habit.getName());
+                });
 
-        // Habits by priority
-        Map<Priority, Long> habitsByPriority = habits.stream()
-                .filter(h -> !h.isArchived())
-                .collect(Collectors.groupingBy(Habit::getPriority, Collectors.counting()));
+        stats.put("habitsByFrequency", habitsByFrequency);
         stats.put("habitsByPriority", habitsByPriority);
 
         // Recent activity
-        List<Map<String, Object>> recentActivity = recentLogs.stream()
-                .limit(10)
+        List<Map<String, Object>> recentActivity = logRepo.findTop10ByOrderByScheduledDateTimeDesc().stream()
                 .map(log -> {
                     Map<String, Object> activity = new HashMap<>();
                     activity.put("habitName", log.getHabit().getName());
@@ -179,7 +187,7 @@ public class HabitService {
                 .collect(Collectors.toList());
         stats.put("recentActivity", recentActivity);
 
-        return stats;
+        return Collections.unmodifiableMap(stats);
     }
 
     @Transactional(readOnly = true)
@@ -206,8 +214,12 @@ public class HabitService {
         if (habit.getRecurrence() == null) {
             habit.setRecurrence(Recurrence.DAILY);
         }
+        compileRecurrence(habit);
 
-        return habitRepo.save(habit);
+        Habit saved = habitRepo.save(habit);
+        habitProcessingService.materializeHabit(saved);
+        eventPublisher.publishEvent(HabitChangeEvent.of(saved.getId(), HabitChangeEvent.Type.CREATED));
+        return saved;
     }
 
     @Transactional
@@ -253,10 +265,14 @@ public class HabitService {
             log = logRepo.save(log);
 
             // Update habit stats and streaks
-            updateHabitStreaks(habit);
+            streakEngine.onCompleted(habit, scheduledTime);
+            heatmapService.record(habit, scheduledTime, true);
+            rollupService.refreshHabitDay(habitId, scheduledTime);
             habit.setLastCompleted(LocalDate.now());
             habit.setUpdatedAt(now);
+            advanceNextScheduled(habit, scheduledTime);
             habitRepo.save(habit);
+            eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.COMPLETED));
 
             return log;
         } else {
@@ -288,9 +304,13 @@ public class HabitService {
             log.setUpdatedAt(now);
 
             // Update habit stats and streaks
-            updateHabitStreaks(habit);
+            streakEngine.onCompleted(habit, scheduledTime);
+            heatmapService.record(habit, scheduledTime, true);
+            rollupService.refreshHabitDay(habitId, scheduledTime);
             habit.setLastCompleted(LocalDate.now());
             habit.setUpdatedAt(now);
+            advanceNextScheduled(habit, scheduledTime);
+            eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.COMPLETED));
 
             return logRepo.save(log);
         }
@@ -312,9 +332,52 @@ public class HabitService {
         existingHabit.setRecurrence(habit.getRecurrence());
         existingHabit.setGracePeriodMinutes(habit.getGracePeriodMinutes());
         existingHabit.setScheduledTime(habit.getScheduledTime());
+        existingHabit.setRecurrenceRule(habit.getRecurrenceRule());
         existingHabit.setUpdatedAt(LocalDateTime.now());
+        compileRecurrence(existingHabit);
+        // The schedule may have changed, work out the next occurrence again from now
+        advanceNextScheduled(existingHabit, null);
 
-        return habitRepo.save(existingHabit);
+        Habit saved = habitRepo.save(existingHabit);
+        habitProcessingService.materializeHabit(saved);
+        eventPublisher.publishEvent(HabitChangeEvent.of(saved.getId(), HabitChangeEvent.Type.UPDATED));
+        return saved;
+    }
+
+    /**
+     * Moves {@code nextScheduled} past an occurrence that was just completed or skipped, so the
+     * due-time jobs stop picking the habit up for it. With {@code null} it is recomputed from now.
+     */
+    public void advanceNextScheduled(Habit habit, LocalDateTime handledTime) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = handledTime != null && handledTime.isAfter(now) ? handledTime.plusSeconds(1) : now;
+        habit.setNextScheduled(habitProcessingService.nextScheduledFrom(habit, from));
+    }
+
+    /**
+     * Recomputes {@code nextScheduled} of a habit loaded outside the current transaction, writing
+     * only that column so concurrent edits of the habit are not overwritten.
+     */
+    @Transactional
+    public void refreshNextScheduled(Habit habit, LocalDateTime from) {
+        LocalDateTime next = habitProcessingService.nextScheduledFrom(habit, from);
+        habit.setNextScheduled(next);
+        habitRepo.updateNextScheduled(habit.getId(), next);
+    }
+
+    /**
+     * Compiles the habit's recurrence into its masks now rather than at flush, so an invalid rule
+     * fails the request and the materializer sees the new schedule.
+     */
+    private void compileRecurrence(Habit habit) {
+        if (habit.getRecurrenceRule() != null && habit.getRecurrenceRule().isBlank()) {
+            habit.setRecurrenceRule(null);
+        }
+        try {
+            RecurrenceRule.of(habit).applyTo(habit);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + e.getMessage(), e);
+        }
     }
 
     private void logHabitCompletion(Habit habit, HabitLog log, boolean withinGracePeriod) {
@@ -356,8 +419,10 @@ public class HabitService {
                 .orElseThrow(() -> new IllegalArgumentException("Habit not found with id: " + habitId));
 
         habit.setArchived(true);
+        habit.setNextScheduled(null);
         habit.setUpdatedAt(LocalDateTime.now());
         habitRepo.save(habit);
+        eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.ARCHIVED));
     }
 
     @Transactional
@@ -372,14 +437,18 @@ public class HabitService {
         habit.setArchived(false);
         habit.setUpdatedAt(LocalDateTime.now());
         habitRepo.save(habit);
+        habitProcessingService.materializeHabit(habit);
+        eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.UNARCHIVED));
     }
 
     /**
      * Generates logs for a habit based on its recurrence pattern
      * Handles all recurrence types with support for grace periods and missed habit tracking
+     *
+     * @return the number of logs created
      */
     @Transactional
-    public void generateTodayLogsForHabit(Habit habit) {
+    public int generateTodayLogsForHabit(Habit habit) {
         LocalDateTime now = LocalDateTime.now();
         ZoneId zoneId = ZoneId.of(habit.getTimeZone());
         ZonedDateTime zonedNow = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(zoneId);
@@ -387,29 +456,27 @@ public class HabitService {
         // Check if we should generate multiple daily occurrences
         if (habit.getRecurrence() == Recurrence.DAILY && habit.isAllowMultipleDaily() &&
                 !habit.getDailyReminderTimes().isEmpty()) {
-            generateMultipleDailyLogs(habit, zonedNow);
-            return;
+            return generateMultipleDailyLogs(habit, zonedNow);
         }
 
         // For other recurrence types or single daily occurrence
         LocalDateTime nextScheduledTime = calculateNextScheduledTime(habit, zonedNow);
 
         if (nextScheduledTime != null) {
-            // Check if we need to mark any past occurrences as missed
-            checkAndMarkMissedHabits(habit, zonedNow);
-
-            // Create the new log if it doesn't exist
-            createHabitLogIfNotExists(habit, nextScheduledTime, zoneId);
+            // Overdue occurrences are marked missed by MissedOccurrenceSweeper
+            return insertLogIfAbsent(habit, nextScheduledTime, zoneId) ? 1 : 0;
         }
+        return 0;
     }
 
     /**
      * Generates logs for multiple daily occurrences of a habit
      */
     @Transactional
-    public void generateMultipleDailyLogs(Habit habit, ZonedDateTime zonedNow) {
+    public int generateMultipleDailyLogs(Habit habit, ZonedDateTime zonedNow) {
         ZoneId zoneId = ZoneId.of(habit.getTimeZone());
         LocalDate today = zonedNow.toLocalDate();
+        int created = 0;
 
         // Check and mark any missed occurrences from previous times today
         for (LocalTime reminderTime : habit.getDailyReminderTimes()) {
@@ -426,14 +493,16 @@ public class HabitService {
             }
 
             // Create log for future or current (within grace period) times
-            createHabitLogIfNotExists(habit, scheduledTime, zoneId);
+            if (insertLogIfAbsent(habit, scheduledTime, zoneId)) {
+                created++;
+            }
         }
+        return created;
     }
 
     /**
      * Calculates the next scheduled time for a habit based on its recurrence pattern
      */
-    @Transactional(readOnly = true)
     public LocalDateTime calculateNextScheduledTime(Habit habit, ZonedDateTime zonedNow) {
         LocalTime scheduledTime = habit.getScheduledTime();
         LocalDateTime now = zonedNow.toLocalDateTime();
@@ -464,33 +533,16 @@ public class HabitService {
         return nextScheduledTime;
     }
 
-    @Transactional(readOnly = true)
     public LocalDateTime calculateNextHourlyTime(Habit habit, LocalDateTime now) {
-        LocalDateTime nextTime = now.truncatedTo(ChronoUnit.HOURS)
-                .plusHours(1)
-                .withMinute(habit.getScheduledTime().getMinute())
-                .withSecond(0)
-                .withNano(0);
-
-        // Skip sleep hours
-        while (isWithinSleepHours(nextTime.toLocalTime())) {
-            nextTime = nextTime.plusHours(1);
-        }
-
-        return nextTime;
+        // Strictly the next hour, sleep hours are skipped by the iterator
+        return nextOccurrence(habit, now.truncatedTo(ChronoUnit.HOURS).plusHours(1));
     }
 
-    @Transactional(readOnly = true)
     public LocalDateTime calculateNextDailyTime(Habit habit, LocalDateTime now) {
-        LocalDateTime nextTime = now.toLocalDate().atTime(habit.getScheduledTime());
-
-        // If the scheduled time has passed today, move to tomorrow
-        if (nextTime.isBefore(now)) {
-            nextTime = nextTime.plusDays(1);
-        }
+        LocalDateTime nextTime = nextOccurrence(habit, now);
 
         // Skip sleep hours by moving to after sleep end
-        if (isWithinSleepHours(nextTime.toLocalTime())) {
+        if (nextTime != null && isWithinSleepHours(nextTime.toLocalTime())) {
             nextTime = nextTime.toLocalDate()
                     .atTime(sleepWindow.getSleepEnd())
                     .plusMinutes(5); // Add buffer after sleep end
@@ -499,76 +551,46 @@ public class HabitService {
         return nextTime;
     }
 
-    @Transactional(readOnly = true)
     public LocalDateTime calculateNextWeeklyTime(Habit habit, LocalDateTime now) {
-        DayOfWeek targetDay = habit.getWeeklyDay() != null ?
-                habit.getWeeklyDay() : now.getDayOfWeek();
-
-        LocalDateTime nextTime = now.with(TemporalAdjusters.nextOrSame(targetDay))
-                .with(habit.getScheduledTime());
-
-        // If the time has passed on the target day, move to next week
-        if (nextTime.isBefore(now)) {
-            nextTime = nextTime.plusWeeks(1);
-        }
-
-        return nextTime;
+        return nextOccurrence(habit, now);
     }
 
-    @Transactional(readOnly = true)
     public LocalDateTime calculateNextMonthlyTime(Habit habit, LocalDateTime now) {
-        int dayOfMonth = habit.getMonthlyDay() != null ?
-                Math.min(habit.getMonthlyDay(), YearMonth.from(now).lengthOfMonth()) : 1;
-
-        LocalDate nextDate = now.toLocalDate().withDayOfMonth(dayOfMonth);
-
-        // If we can't set to the exact day (e.g., Feb 30), use the last day of the month
-        if (nextDate.getDayOfMonth() != dayOfMonth) {
-            nextDate = nextDate.withDayOfMonth(nextDate.lengthOfMonth());
-        }
-
-        LocalDateTime nextTime = nextDate.atTime(habit.getScheduledTime());
-
-        // If the time has passed this month, move to next month
-        if (nextTime.isBefore(now)) {
-            nextDate = now.toLocalDate()
-                    .plusMonths(1)
-                    .withDayOfMonth(Math.min(dayOfMonth, YearMonth.from(now.plusMonths(1)).lengthOfMonth()));
-            nextTime = nextDate.atTime(habit.getScheduledTime());
-        }
-
-        return nextTime;
+        return nextOccurrence(habit, now);
     }
 
-    @Transactional(readOnly = true)
     public LocalDateTime calculateNextYearlyTime(Habit habit, LocalDateTime now) {
-        int month = habit.getYearlyMonth() != null ? habit.getYearlyMonth() : 1;
-        int day = habit.getYearlyDay() != null ? habit.getYearlyDay() : 1;
-
-        YearMonth yearMonth = YearMonth.of(now.getYear(), month);
-        day = Math.min(day, yearMonth.lengthOfMonth());
+        return nextOccurrence(habit, now);
+    }
 
-        LocalDate nextDate = LocalDate.of(now.getYear(), month, day);
-        LocalDateTime nextTime = nextDate.atTime(habit.getScheduledTime());
+    /**
+     * First occurrence of the habit at or after {@code from}, or {@code null} if it has none.
+     * {@code from} and the result are local times in the habit's zone.
+     */
+    private LocalDateTime nextOccurrence(Habit habit, LocalDateTime from) {
+        RecurrenceIterator occurrences = RecurrenceIterator.startingAt(
+                habit, from.atZone(RecurrenceIterator.zoneOf(habit)), sleepWindow);
+        return occurrences.hasNext() ? occurrences.next() : null;
+    }
 
-        // If the time has passed this year, move to next year
-        if (nextTime.isBefore(now)) {
-            yearMonth = YearMonth.of(now.getYear() + 1, month);
-            day = Math.min(day, yearMonth.lengthOfMonth());
-            nextDate = LocalDate.of(now.getYear() + 1, month, day);
-            nextTime = nextDate.atTime(habit.getScheduledTime());
-        }
 
-        return nextTime;
+    /**
+     * Previews the next {@code count} occurrences of a habit, e.g. one that is still being edited.
+     * Nothing is read from or written to the database.
+     */
+    public List<ZonedDateTime> previewOccurrences(Habit habit, ZonedDateTime from, int count) {
+        return RecurrenceIterator.between(habit, from, ZonedDateTime.of(LocalDateTime.MAX, ZoneOffset.UTC), sleepWindow)
+                .limit(count)
+                .collect(Collectors.toList());
     }
 
-
     /**
-     * Checks if a log exists for the given habit and scheduled time
+     * Checks if a log exists for the given habit and scheduled time. Slots the log slot index rules
+     * out are answered without a query.
      */
     @Transactional(readOnly = true)
     public boolean isLogExistsForTime(Habit habit, LocalDateTime scheduledTime) {
-        return logRepo.existsByHabitAndScheduledDateTime(habit, scheduledTime);
+        return logSlotIndex.exists(habit, scheduledTime);
     }
 
     /**
@@ -578,7 +600,6 @@ public class HabitService {
      * @param gracePeriodMinutes The grace period in minutes (can be null to use default)
      * @return true if within grace period, false otherwise
      */
-    @Transactional(readOnly = true)
     public boolean isWithinGracePeriod(LocalDateTime scheduledTime, LocalDateTime currentTime, Integer gracePeriodMinutes) {
         if (scheduledTime == null || currentTime == null) {
             return false;
@@ -592,49 +613,25 @@ public class HabitService {
      */
     @Transactional
     public HabitLog createHabitLogIfNotExists(Habit habit, LocalDateTime scheduledTime, ZoneId zoneId) {
-        if (!isLogExistsForTime(habit, scheduledTime)) {
-            HabitLog log = new HabitLog();
-            log.setHabit(habit);
-            log.setScheduledDateTime(scheduledTime);
-            log.setCompleted(false);
-            log.setCreatedAt(LocalDateTime.now(zoneId));
-            log.setUpdatedAt(LocalDateTime.now(zoneId));
-            logRepo.save(log);
-        }
+        insertLogIfAbsent(habit, scheduledTime, zoneId);
         return logRepo.findByHabitAndScheduledDateTime(habit, scheduledTime).orElse(null);
     }
 
-    /**
-     * Checks for and marks any missed habits
-     */
-    @Transactional
-    public void checkAndMarkMissedHabits(Habit habit, ZonedDateTime zonedNow) {
-        LocalDateTime now = zonedNow.toLocalDateTime();
-        LocalDateTime lastCheckTime = habit.getLastScheduled() != null ?
-                habit.getLastScheduled() : now.minusDays(1);
-
-        // Don't check too frequently to avoid performance issues
-        if (Duration.between(lastCheckTime, now).toMinutes() < 30) {
-            return;
+    private boolean insertLogIfAbsent(Habit habit, LocalDateTime scheduledTime, ZoneId zoneId) {
+        if (isLogExistsForTime(habit, scheduledTime)) {
+            return false;
         }
-
-        // Update last check time
-        habit.setLastScheduled(now);
-        habitRepo.save(habit);
-
-        // Find any logs that should have been completed but weren't
-        List<HabitLog> pendingLogs = logRepo.findByHabitAndCompletedFalseAndMissedFalseAndScheduledDateTimeBefore(
-                habit, now.minusMinutes(habit.getGracePeriodMinutes()));
-
-        for (HabitLog log : pendingLogs) {
-            // Skip if this is a future occurrence
-            if (log.getScheduledDateTime().isAfter(now)) {
-                continue;
-            }
-
-            // Mark as missed
-            markHabitAsMissed(habit, log.getScheduledDateTime());
+        HabitLog log = new HabitLog();
+        log.setHabit(habit);
+        log.setScheduledDateTime(scheduledTime);
+        log.setTimeZone(zoneId.getId());
+        // Insert-or-ignore, a concurrent generator may have created the slot since the check
+        if (logRepo.insertLogsIgnoringDuplicates(List.of(log)) == 0) {
+            return false;
         }
+        logSlotIndex.add(log);
+        eventPublisher.publishEvent(HabitChangeEvent.of(habit.getId(), HabitChangeEvent.Type.GENERATED));
+        return true;
     }
 
     /**
@@ -642,7 +639,9 @@ public class HabitService {
      */
     @Transactional
     public void markHabitAsMissed(Habit habit, LocalDateTime scheduledTime) {
-        HabitLog log = logRepo.findByHabitAndScheduledDateTime(habit, scheduledTime)
+        Optional<HabitLog> existing = logSlotIndex.mightExist(habit.getId(), scheduledTime)
+                ? logRepo.findByHabitAndScheduledDateTime(habit, scheduledTime) : Optional.empty();
+        HabitLog log = existing
                 .orElseGet(() -> {
                     HabitLog newLog = new HabitLog();
                     newLog.setHabit(habit);
@@ -658,7 +657,10 @@ public class HabitService {
 
             // Update habit's missed count
             habit.setMissedCount(habit.getMissedCount() + 1);
+            streakEngine.onMissed(habit, scheduledTime);
+            rollupService.refreshHabitDay(habit.getId(), scheduledTime);
             habitRepo.save(habit);
+            eventPublisher.publishEvent(HabitChangeEvent.of(habit.getId(), HabitChangeEvent.Type.MISSED));
         }
     }
 
@@ -666,7 +668,6 @@ public class HabitService {
     /**
      * Checks if a time is within sleep hours
      */
-    @Transactional(readOnly = true)
     public boolean isWithinSleepHours(LocalTime time) {
         return SleepWindow.isAsleep(time, sleepWindow.getSleepStart(), sleepWindow.getSleepEnd());
     }
@@ -682,21 +683,54 @@ public class HabitService {
     /**
      * Get today's active habits (alias for getTodaysHabits for backward compatibility)
      */
-    @Transactional(readOnly = true)
     public List<Habit> getTodayHabits() {
         return getTodaysHabits();
     }
 
     /**
-     * Check if a habit was completed today
+     * Whether each habit was completed today, looked up for all of them in one query
      */
     @Transactional(readOnly = true)
-    public boolean isCompletedToday(Habit habit) {
+    public Map<Long, Boolean> getCompletedTodayStatus(Collection<Habit> habits) {
+        Map<Long, Boolean> status = new HashMap<>();
+        habits.forEach(habit -> status.put(habit.getId(), false));
+        if (status.isEmpty()) {
+            return status;
+        }
         LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
+        logRepo.findCompletedHabitIdsBetween(status.keySet(), startOfDay, startOfDay.plusDays(1))
+                .forEach(id -> status.put(id, true));
+        return status;
+    }
 
-        return !logRepo.findByHabitAndCompletedTrueAndScheduledDateTimeBetween(
-                habit, startOfDay, endOfDay).isEmpty();
+    /**
+     * Time of each habit's first entry in {@link #getUpcomingLogs(Habit)}, looked up for all of them in
+     * one query: the current hour for hourly habits, otherwise the earliest log of the next 7 days or
+     * the next calculated occurrence. Habits without one are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, LocalDateTime> getNextUpcomingTimes(Collection<Habit> habits, LocalDateTime now) {
+        Map<Long, LocalDateTime> next = new HashMap<>();
+        List<Long> scheduledIds = habits.stream()
+                .filter(habit -> habit.getRecurrence() != Recurrence.HOURLY)
+                .map(Habit::getId)
+                .toList();
+        if (!scheduledIds.isEmpty()) {
+            for (Object[] row : logRepo.findFirstScheduledBetween(scheduledIds, now, now.plusDays(7))) {
+                next.put((Long) row[0], (LocalDateTime) row[1]);
+            }
+        }
+        for (Habit habit : habits) {
+            if (habit.getRecurrence() == Recurrence.HOURLY) {
+                next.put(habit.getId(), now.truncatedTo(ChronoUnit.HOURS));
+            } else if (!next.containsKey(habit.getId())) {
+                LocalDateTime nextTime = calculateNextScheduledTime(habit, now.atZone(ZoneId.systemDefault()));
+                if (nextTime != null) {
+                    next.put(habit.getId(), nextTime);
+                }
+            }
+        }
+        return next;
     }
 
     /**
@@ -716,15 +750,18 @@ public class HabitService {
             List<HabitLog> existingLogs = logRepo.findByHabitAndScheduledDateTimeBetweenOrderByScheduledDateTimeAsc(
                     habit, currentHour, endDate);
 
+            // Index the logs by hour; the 24 hours span today and tomorrow
+            ZoneId zone = ZoneId.systemDefault();
+            HourlySlotState firstDay = HourlySlotState.of(currentHour.toLocalDate(), zone, existingLogs);
+            HourlySlotState secondDay = HourlySlotState.of(currentHour.toLocalDate().plusDays(1), zone, existingLogs);
+
             // Generate hourly logs for the next 24 hours
             for (int i = 0; i < 24; i++) {
                 LocalDateTime scheduledTime = currentHour.plusHours(i);
+                HourlySlotState slots = scheduledTime.toLocalDate().equals(firstDay.getDay()) ? firstDay : secondDay;
 
-                // Check if we already have a log for this hour
-                boolean logExists = existingLogs.stream()
-                        .anyMatch(log -> log.getScheduledDateTime().equals(scheduledTime));
-
-                if (!logExists) {
+                HabitLog existingLog = slots.get(scheduledTime.getHour());
+                if (existingLog == null) {
                     // Create a new log for this hour
                     HabitLog log = new HabitLog();
                     log.setHabit(habit);
@@ -733,13 +770,7 @@ public class HabitService {
                     upcomingLogs.add(log);
                 } else {
                     // Use the existing log
-                    HabitLog existingLog = existingLogs.stream()
-                            .filter(log -> log.getScheduledDateTime().equals(scheduledTime))
-                            .findFirst()
-                            .orElse(null);
-                    if (existingLog != null) {
-                        upcomingLogs.add(existingLog);
-                    }
+                    upcomingLogs.add(existingLog);
                 }
             }
 
@@ -755,10 +786,12 @@ public class HabitService {
                     habit, now, endDate);
 
             // If no logs found, generate the next occurrence
-            if (upcomingLogs.isEmpty()) {
+            LocalDateTime nextTime = upcomingLogs.isEmpty()
+                    ? calculateNextScheduledTime(habit, now.atZone(ZoneId.systemDefault())) : null;
+            if (nextTime != null) {
                 HabitLog nextOccurrence = new HabitLog();
                 nextOccurrence.setHabit(habit);
-                nextOccurrence.setScheduledDateTime(calculateNextScheduledTime(habit, now.atZone(ZoneId.systemDefault())));
+                nextOccurrence.setScheduledDateTime(nextTime);
                 nextOccurrence.setCompleted(false);
                 upcomingLogs.add(nextOccurrence);
             }
@@ -767,57 +800,6 @@ public class HabitService {
         return upcomingLogs;
     }
 
-    /**
-     * Get today's active habits based on their recurrence patterns
-     */
-    /**
-     * Get today's active habits with their progress information
-     * Filters out completed habits and includes missed ones
-     */
-    /**
-     * Process hourly habits - shows progress for the current day
-     */
-    
-    /**
-     * Process hourly habits - shows progress for the current day
-     * This method is now a wrapper that delegates to HabitProcessingService
-     */
-    private void processHourlyHabit(Habit habit, LocalDateTime startOfDay, LocalDateTime now, 
-                                 LocalDateTime endOfDay, List<Habit> result, List<Long> processedLogIds) {
-        try {
-            // Initialize the list to store today's logs
-            List<HabitLog> todaysLogs = new ArrayList<>();
-            
-            // Delegate to HabitProcessingService for hourly habit processing
-            List<HabitLog> processedLogs = habitProcessingService.processHourlyHabit(habit, now, startOfDay, endOfDay);
-            
-            if (processedLogs != null && !processedLogs.isEmpty()) {
-                todaysLogs.addAll(processedLogs);
-                
-                // Calculate progress
-                long totalLogs = todaysLogs.size();
-                long completedLogs = todaysLogs.stream().filter(HabitLog::getCompleted).count();
-                
-                if (totalLogs > 0) {
-                    double progress = (double) completedLogs / totalLogs * 100;
-                    habit.setProgress(progress);
-                    habit.setTotalOccurrences((int) totalLogs);
-                    habit.setCompletedOccurrences((int) completedLogs);
-                    
-                    // Only add to result if there are uncompleted logs
-                    boolean hasUncompletedLogs = todaysLogs.stream().anyMatch(log -> !log.getCompleted());
-                    if (hasUncompletedLogs) {
-                        habit.getLogs().clear();
-                        habit.getLogs().addAll(todaysLogs);
-                        result.add(habit);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error processing hourly habit: " + (habit != null ? habit.getId() : "unknown"), e);
-        }
-    }
-    
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void markLogsAsProcessedInNewTransaction(List<Long> logIds) {
         if (logIds == null || logIds.isEmpty()) {
@@ -832,322 +814,92 @@ public class HabitService {
     }
 
     /**
-     * Process weekly habit - shows progress for the current week
+     * Today's habits in IST with their relevant logs attached. Served from {@link TodayViewCache}
+     * until the next habit change, so the returned list and habits must not be modified.
      */
-    private void processWeeklyHabit(Habit habit, LocalDateTime now, LocalDate today,
-                                 List<Habit> result, List<Long> processedLogIds) {
-        try {
-            LocalDate startOfWeek = today.with(DayOfWeek.MONDAY);
-            LocalDate endOfWeek = startOfWeek.plusDays(6);
-            
-            // Check if we should include this habit today
-            if (today.getDayOfWeek() != habit.getWeeklyDay()) {
-                return;
-            }
-            
-            // Check if there's already a log for this week
-            LocalDateTime scheduledTime = today.atTime(habit.getScheduledTime());
-            
-            // Check if we already processed this log
-            if (processedLogIds != null) {
-                boolean alreadyProcessed = logRepo.existsByHabitAndScheduledDateTimeBetween(
-                    habit, scheduledTime.withHour(0), scheduledTime.withHour(23).withMinute(59));
-                if (alreadyProcessed) {
-                    return;
-                }
-            }
-            
-            // Create or update the log
-            HabitLog log = new HabitLog();
-            log.setHabit(habit);
-            log.setScheduledDateTime(scheduledTime);
-            log.setCompleted(false);
-            
-            // Save the log
-            HabitLog savedLog = habitLogService.saveLog(log);
-            if (processedLogIds != null) {
-                processedLogIds.add(savedLog.getId());
-            }
-            
-            // Set progress information
-            habit.setProgress(0); // Start with 0% progress for the week
-            habit.setTotalOccurrences(1);
-            habit.setCompletedOccurrences(0);
-            
-            // Add to result if not completed
-            if (!log.getCompleted()) {
-                habit.getLogs().clear();
-                habit.getLogs().add(log);
-                result.add(habit);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing weekly habit: " + habit.getId(), e);
-        }
-    }
-
-    @Transactional(readOnly = true)
     public List<Habit> getTodaysHabits() {
         try {
-            // Process all habits first to ensure logs are created
-            habitProcessingService.processHabitsForToday();
-            
-            // Get current time in system timezone
-            LocalDateTime now = LocalDateTime.now();
-            
-            // Set up timezone info
-            ZoneId istZone = ZoneId.of("Asia/Kolkata");
-            ZonedDateTime istNow = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(istZone);
-            
-            // Get start and end of day in IST
-            LocalDateTime istStartOfDay = istNow.toLocalDate().atStartOfDay();
-            LocalDateTime istEndOfDay = istStartOfDay.plusDays(1);
-            
-            // Convert to system timezone for database queries
-            LocalDateTime startOfDay = istStartOfDay.atZone(istZone)
-                .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
-            LocalDateTime endOfDay = istEndOfDay.atZone(istZone)
-                .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
-
-            // Get all active habits
-            List<Habit> habits = habitRepo.findByArchivedFalse();
-            if (habits.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            List<Habit> result = new ArrayList<>();
-            
-            for (Habit habit : habits) {
-                try {
-                    if (shouldIncludeHabitToday(habit, istNow.toLocalDate())) {
-                        if (habit.getRecurrence() == Recurrence.HOURLY) {
-                            // For hourly habits, load all logs for today
-                            List<HabitLog> allLogs = logRepo.findByHabitAndScheduledDateTimeBetween(
-                                habit, startOfDay, endOfDay);
-                            
-                            // Filter and process logs
-                            List<HabitLog> hourlyLogs = allLogs.stream()
-                                .filter(log -> {
-                                    // Convert log time to IST for filtering
-                                    ZonedDateTime logTime = log.getScheduledDateTime()
-                                        .atZone(ZoneId.systemDefault())
-                                        .withZoneSameInstant(istZone);
-                                    
-                                    // Only include logs from current hour onwards
-                                    return !logTime.toLocalDateTime().isBefore(istNow.toLocalDateTime().withMinute(0).withSecond(0));
-                                })
-                                .sorted(Comparator.comparing(HabitLog::getScheduledDateTime))
-                                .limit(6) // Show current hour + next 5 hours
-                                .collect(Collectors.toList());
-                            
-                            // Set the processed logs
-                            habit.getLogs().clear();
-                            habit.getLogs().addAll(hourlyLogs);
-                            result.add(habit);
-                        } else {
-                            // For non-hourly habits, process as before
-                            processSingleHabit(habit, now, startOfDay, endOfDay, result);
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.error("Error processing habit: " + (habit != null ? habit.getId() : "unknown"), e);
-                }
-            }
-            
-            return result;
+            // Hourly habits only show the current hour onwards, so this view is cached per hour
+            return todayViewCache.get("todaysHabits", TODAY_ZONE, ChronoUnit.HOURS,
+                () -> staleReads.get("todaysHabits", HABIT_DATA,
+                    () -> readOnlyTx.execute(status -> loadTodaysHabits())));
         } catch (Exception e) {
             logger.error("Error in getTodaysHabits", e);
             return Collections.emptyList();
         }
     }
 
-    /**
-     * Process a single habit (daily)
-     */
-    private void processSingleHabit(Habit habit, LocalDateTime now, 
-                                  LocalDateTime startOfDay, LocalDateTime endOfDay,
-                                  List<Habit> result) {
-        // Get the latest log for today
-        Optional<HabitLog> existingLog = logRepo
-            .findTopByHabitAndScheduledDateTimeBetweenOrderByScheduledDateTimeDesc(
-                habit, startOfDay, endOfDay);
-        
-        if (existingLog.isEmpty()) {
-            // Create a new log if none exists for today
-            HabitLog newLog = new HabitLog();
-            newLog.setHabit(habit);
-            newLog.setScheduledDateTime(now);
-            habitLogService.saveLog(newLog);
-            
-            // Add to result if not completed
-            if (!newLog.getCompleted()) {
-                habit.getLogs().clear();
-                habit.getLogs().add(newLog);
-                result.add(habit);
-            }
-        } else if (!existingLog.get().getCompleted()) {
-            // Add to result if not completed
-            habit.getLogs().clear();
-            habit.getLogs().add(existingLog.get());
-            result.add(habit);
-        }
-    }
-    
-    /**
-     * Process monthly habit - shows progress for the current month
-     */
-    private void processMonthlyHabit(Habit habit, LocalDateTime now, LocalDate today,
-                              List<Habit> result, List<Long> processedLogIds) {
-    try {
-        LocalDate startOfMonth = today.withDayOfMonth(1);
-        LocalDate endOfMonth = startOfMonth.plusMonths(1);
-        
-        // Check if we should include this habit today
-        if (today.getDayOfMonth() != habit.getMonthlyDay()) {
-            return;
-        }
-        
-        // Check if there's already a log for this month
-        LocalDateTime scheduledTime = today.atTime(habit.getScheduledTime());
+    private List<Habit> loadTodaysHabits() {
+        // Get current time in system timezone
+        LocalDateTime now = LocalDateTime.now();
         
-        // Check if we already processed this log
-        if (processedLogIds != null) {
-            boolean alreadyProcessed = logRepo.existsByHabitAndScheduledDateTimeBetween(
-                habit, scheduledTime.withDayOfMonth(1), scheduledTime.withDayOfMonth(today.lengthOfMonth()));
-            if (alreadyProcessed) {
-                return;
-            }
-        }
+        // Set up timezone info
+        ZoneId istZone = TODAY_ZONE;
+        ZonedDateTime istNow = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(istZone);
         
-        // Create or update the log
-        HabitLog log = new HabitLog();
-        log.setHabit(habit);
-        log.setScheduledDateTime(scheduledTime);
-        log.setCompleted(false);
+        // Get start and end of day in IST
+        LocalDateTime istStartOfDay = istNow.toLocalDate().atStartOfDay();
+        LocalDateTime istEndOfDay = istStartOfDay.plusDays(1);
         
-        // Save the log
-        HabitLog savedLog = habitLogService.saveLog(log);
-        if (processedLogIds != null) {
-            processedLogIds.add(savedLog.getId());
+        // Convert to system timezone for database queries
+        LocalDateTime startOfDay = istStartOfDay.atZone(istZone)
+            .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        LocalDateTime endOfDay = istEndOfDay.atZone(istZone)
+            .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+
+        // Active habits due today, filtered in the query by their compiled recurrence masks
+        List<Habit> habits = habitRepo.findDueOn(istNow.toLocalDate());
+        if (habits.isEmpty()) {
+            return Collections.emptyList();
         }
         
-        // Calculate progress for the month
-        List<HabitLog> monthlyLogs = logRepo.findByHabitAndScheduledDateTimeBetween(
-            habit, startOfMonth.atStartOfDay(), endOfMonth.atStartOfDay());
-        
-        long completedDays = monthlyLogs.stream()
-            .filter(HabitLog::getCompleted)
-            .count();
-        
-        int totalDaysInMonth = today.lengthOfMonth();
-        double progress = (double) completedDays / totalDaysInMonth * 100;
+        List<Habit> result = new ArrayList<>();
         
-        // Set progress information
-        habit.setProgress(progress);
-        habit.setTotalOccurrences(totalDaysInMonth);
-        habit.setCompletedOccurrences((int) completedDays);
-        
-        // Add to result if not completed
-        if (!log.getCompleted()) {
-            habit.getLogs().clear();
-            habit.getLogs().add(log);
-            result.add(habit);
-        }
-    } catch (Exception e) {
-        logger.error("Error processing monthly habit: " + habit.getId(), e);
-    }
-}
-
-    /**
-     * Process yearly habit - shows progress for the current year
-     */
-    private void processYearlyHabit(Habit habit, LocalDateTime now, LocalDate today,
-                                 List<Habit> result, List<Long> processedLogIds) {
-        try {
-            LocalDate yearStart = today.withDayOfYear(1);
-            LocalDate nextYear = yearStart.plusYears(1);
-            
-            // Check if we should include this habit today
-            if (today.getDayOfMonth() != habit.getYearlyDay() || 
-                today.getMonthValue() != habit.getYearlyMonth()) {
-                return;
-            }
-            
-            // Check if there's already a log for this year
-            LocalDateTime scheduledTime = today.atTime(habit.getScheduledTime());
-            
-            // Check if we already processed this log
-            if (processedLogIds != null) {
-                boolean alreadyProcessed = logRepo.existsByHabitAndScheduledDateTimeBetween(
-                    habit, scheduledTime.withDayOfYear(1), scheduledTime.withDayOfYear(365));
-                if (alreadyProcessed) {
-                    return;
+        for (Habit habit : habits) {
+            try {
+                if (habit.getRecurrence() == Recurrence.HOURLY) {
+                    // For hourly habits, index all logs for today by IST hour
+                    HourlySlotState slots = HourlySlotState.of(istNow.toLocalDate(), istZone,
+                        logRepo.findLogsInTimeRange(habit, startOfDay, endOfDay));
+                    
+                    // Only include logs from current hour onwards: current hour + next 5 hours
+                    List<HabitLog> hourlyLogs = slots.logsFrom(istNow.getHour(), 6);
+                    
+                    // Attach the logs to a copy, the managed habit's logs collection is left alone
+                    Habit card = ActiveHabitRegistry.copyOf(habit);
+                    card.setLogs(hourlyLogs);
+                    result.add(card);
+                } else {
+                    // For non-hourly habits, process as before
+                    processSingleHabit(habit, now, startOfDay, endOfDay, result);
                 }
+            } catch (Exception e) {
+                logger.error("Error processing habit: " + (habit != null ? habit.getId() : "unknown"), e);
             }
-            
-            // Create or update the log
-            HabitLog log = new HabitLog();
-            log.setHabit(habit);
-            log.setScheduledDateTime(scheduledTime);
-            log.setCompleted(false);
-            
-            // Save the log
-            HabitLog savedLog = habitLogService.saveLog(log);
-            if (processedLogIds != null) {
-                processedLogIds.add(savedLog.getId());
-            }
-            
-            // Calculate progress for the year
-            List<HabitLog> yearlyLogs = logRepo.findByHabitAndScheduledDateTimeBetween(
-                habit, yearStart.atStartOfDay(), nextYear.atStartOfDay());
-            
-            long completedYears = yearlyLogs.stream()
-                .filter(HabitLog::getCompleted)
-                .count();
-            
-            // For yearly habits, we just track completion (0% or 100%)
-            double progress = log.getCompleted() ? 100 : 0;
-            
-            // Set progress information
-            habit.setProgress(progress);
-            habit.setTotalOccurrences(1);
-            habit.setCompletedOccurrences(log.getCompleted() ? 1 : 0);
-            
-            // Add to result if not completed
-            if (!log.getCompleted()) {
-                habit.getLogs().clear();
-                habit.getLogs().add(log);
-                result.add(habit);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing yearly habit: " + habit.getId(), e);
         }
+        
+        return List.copyOf(result);
     }
 
     /**
-     * Helper method to determine if a habit should be included today based on its recurrence
+     * Process a single habit (daily). Read-only: today's log is created ahead of time by the materializer.
      */
-    private boolean shouldIncludeHabitToday(Habit habit, LocalDate today) {
-        if (habit == null || habit.getRecurrence() == null) {
-            return false;
-        }
+    private void processSingleHabit(Habit habit, LocalDateTime now, 
+                                  LocalDateTime startOfDay, LocalDateTime endOfDay,
+                                  List<Habit> result) {
+        // Get the latest log for today
+        Optional<HabitLog> existingLog = logRepo
+            .findTopByHabitAndScheduledDateTimeBetweenOrderByScheduledDateTimeDesc(
+                habit, startOfDay, endOfDay);
         
-        switch (habit.getRecurrence()) {
-            case DAILY:
-                return true;
-            case WEEKLY:
-                return today.getDayOfWeek() == habit.getWeeklyDay();
-            case MONTHLY:
-                return today.getDayOfMonth() == habit.getMonthlyDay();
-            case YEARLY:
-                return today.getDayOfMonth() == habit.getYearlyDay() && 
-                       today.getMonthValue() == habit.getYearlyMonth();
-            case HOURLY:
-                return true;
-            default:
-                return false;
+        if (existingLog.isPresent() && !existingLog.get().getCompleted()) {
+            // Add to result if not completed
+            Habit card = ActiveHabitRegistry.copyOf(habit);
+            card.setLogs(new ArrayList<>(List.of(existingLog.get())));
+            result.add(card);
         }
     }
-
+    
     /**
      * Get a page of habit logs for a specific habit
      * @param habit The habit to get logs for
@@ -1203,7 +955,15 @@ public class HabitService {
             log = logRepo.save(log);
             
             // Update habit's completion status
-            updateHabitStreaks(habit);
+            if (log.getCompleted()) {
+                streakEngine.onCompleted(habit, log.getScheduledDateTime());
+            } else {
+                streakEngine.onUncompleted(habit, log.getScheduledDateTime());
+            }
+            heatmapService.record(habit, log.getScheduledDateTime(), log.getCompleted());
+            rollupService.refreshHabitDay(habitId, log.getScheduledDateTime());
+            advanceNextScheduled(habit, log.getCompleted() ? log.getScheduledDateTime() : null);
+            eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.COMPLETED));
             
             return habitRepo.save(habit);
         } catch (Exception e) {
@@ -1227,9 +987,12 @@ public class HabitService {
             
             // First delete all logs associated with the habit
             logRepo.deleteByHabitId(habitId);
+            heatmapService.forget(habitId);
+            rollupService.forgetHabit(habitId);
             
             // Then delete the habit
             habitRepo.deleteById(habitId);
+            eventPublisher.publishEvent(HabitChangeEvent.of(habitId, HabitChangeEvent.Type.DELETED));
             
             return true;
         } catch (Exception e) {
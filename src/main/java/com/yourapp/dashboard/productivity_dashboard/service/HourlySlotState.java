@@ -0,0 +1,184 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One hourly habit's logs for a single local day, addressed by hour of day.
+ * <p>
+ * Built once from the day's logs (one query), after which looking up, filling or completing an hour
+ * is an array access and a bit operation instead of a scan over the log list. Hours are local to the
+ * given zone while {@link HabitLog#getScheduledDateTime()} is in system time; unless either zone
+ * changes its offset that day, logs are placed with plain epoch arithmetic and nothing is allocated
+ * per log. If several logs fall into the same hour the earliest one wins.
+ * Not thread-safe; meant to live for the duration of one request or run.
+ */
+public final class HourlySlotState {
+    public static final int HOURS = 24;
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long SECONDS_PER_DAY = HOURS * SECONDS_PER_HOUR;
+
+    private final LocalDate day;
+    private final ZoneId zone;
+    private final HabitLog[] slots = new HabitLog[HOURS];
+    private int presentMask;
+    private int completedMask;
+    private int missedMask;
+    private int skippedMask;
+
+    private HourlySlotState(LocalDate day, ZoneId zone) {
+        this.day = day;
+        this.zone = zone;
+    }
+
+    public static HourlySlotState empty(LocalDate day, ZoneId zone) {
+        return new HourlySlotState(day, zone);
+    }
+
+    /**
+     * Builds the state of {@code day} in {@code zone}. Logs that fall on other days are ignored, so
+     * the same list can be used to build neighbouring days.
+     */
+    public static HourlySlotState of(LocalDate day, ZoneId zone, Collection<HabitLog> logs) {
+        HourlySlotState state = new HourlySlotState(day, zone);
+        ZoneId system = ZoneId.systemDefault();
+        ZonedDateTime start = day.atStartOfDay(zone);
+        ZonedDateTime end = day.plusDays(1).atStartOfDay(zone);
+        long startEpoch = start.toEpochSecond();
+        long endEpoch = end.toEpochSecond();
+        ZoneOffset systemOffset = system.getRules().getOffset(start.toInstant());
+        // Without DST changes during the day an hour is just seconds since midnight, no conversions needed
+        boolean fixedOffsets = endEpoch - startEpoch == SECONDS_PER_DAY
+            && systemOffset.equals(system.getRules().getOffset(end.toInstant()));
+        for (HabitLog log : logs) {
+            LocalDateTime time = log.getScheduledDateTime();
+            if (time == null) {
+                continue;
+            }
+            int hour;
+            if (fixedOffsets) {
+                long epoch = time.toEpochSecond(systemOffset);
+                if (epoch < startEpoch || epoch >= endEpoch) {
+                    continue;
+                }
+                hour = (int) ((epoch - startEpoch) / SECONDS_PER_HOUR);
+            } else {
+                LocalDateTime local = time.atZone(system).withZoneSameInstant(zone).toLocalDateTime();
+                if (!local.toLocalDate().equals(day)) {
+                    continue;
+                }
+                hour = local.getHour();
+            }
+            HabitLog current = state.slots[hour];
+            if (current == null || log.getScheduledDateTime().isBefore(current.getScheduledDateTime())) {
+                state.put(hour, log);
+            }
+        }
+        return state;
+    }
+
+    /** Start of {@code day} in {@code zone}, in system time, for querying the day's logs. */
+    public static LocalDateTime dayStart(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    /** Exclusive end of {@code day} in {@code zone}, in system time. */
+    public static LocalDateTime dayEnd(LocalDate day, ZoneId zone) {
+        return dayStart(day.plusDays(1), zone);
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public HabitLog get(int hour) {
+        return slots[hour];
+    }
+
+    public boolean has(int hour) {
+        return (presentMask & bit(hour)) != 0;
+    }
+
+    public boolean isCompleted(int hour) {
+        return (completedMask & bit(hour)) != 0;
+    }
+
+    public boolean isMissed(int hour) {
+        return (missedMask & bit(hour)) != 0;
+    }
+
+    public boolean isSkipped(int hour) {
+        return (skippedMask & bit(hour)) != 0;
+    }
+
+    /**
+     * Puts {@code log} into the slot of {@code hour}, replacing whatever was there, and takes its
+     * completed/missed/skipped flags over into the masks.
+     */
+    public void put(int hour, HabitLog log) {
+        int bit = bit(hour);
+        slots[hour] = log;
+        presentMask |= bit;
+        completedMask = Boolean.TRUE.equals(log.getCompleted()) ? completedMask | bit : completedMask & ~bit;
+        missedMask = Boolean.TRUE.equals(log.getMissed()) ? missedMask | bit : missedMask & ~bit;
+        skippedMask = Boolean.TRUE.equals(log.isSkipped()) ? skippedMask | bit : skippedMask & ~bit;
+    }
+
+    /** Hours in {@code [fromHour, toHour)} that have no log yet, as a bitmask. */
+    public int missingMask(int fromHour, int toHour) {
+        return rangeMask(fromHour, toHour) & ~presentMask;
+    }
+
+    public int presentCount() {
+        return Integer.bitCount(presentMask);
+    }
+
+    public int completedCount() {
+        return Integer.bitCount(completedMask);
+    }
+
+    /** Up to {@code limit} logs from {@code fromHour} on, in hour order. */
+    public List<HabitLog> logsFrom(int fromHour, int limit) {
+        List<HabitLog> logs = new ArrayList<>(Math.min(limit, HOURS));
+        int mask = presentMask & rangeMask(fromHour, HOURS);
+        while (mask != 0 && logs.size() < limit) {
+            int hour = Integer.numberOfTrailingZeros(mask);
+            logs.add(slots[hour]);
+            mask &= mask - 1;
+        }
+        return logs;
+    }
+
+    /** The top of {@code hour} on this day, in system time, e.g. to schedule a new log for it. */
+    public LocalDateTime systemTimeOf(int hour) {
+        return day.atTime(hour, 0).atZone(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static int bit(int hour) {
+        if (hour < 0 || hour >= HOURS) {
+            throw new IllegalArgumentException("Hour out of range: " + hour);
+        }
+        return 1 << hour;
+    }
+
+    private static int rangeMask(int fromHour, int toHour) {
+        int from = Math.max(0, fromHour);
+        int to = Math.min(HOURS, toHour);
+        if (from >= to) {
+            return 0;
+        }
+        return ((1 << (to - from)) - 1) << from;
+    }
+}
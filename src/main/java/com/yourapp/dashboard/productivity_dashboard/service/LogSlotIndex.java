@@ -0,0 +1,335 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * In-memory existence index over the (habit, scheduled time) slots of habit logs in a rolling window
+ * around today, so that "is there a log for this slot?" can be answered without a query when the
+ * answer is no.
+ * <p>
+ * Slots are kept in a Bloom filter: a negative answer is exact, a positive one is confirmed against
+ * the database. Inserts are added as they are flushed (see {@link LogSlotIndexListener} and the batch
+ * insert of the materializer); deletes cannot be taken out of a Bloom filter, they only leave stale
+ * bits behind that cost a confirming query until the next rebuild. The filter is rebuilt on startup,
+ * daily to roll the window forward, and after a habit and its logs were deleted. Slots outside the window always go to
+ * the database.
+ */
+@Component
+public class LogSlotIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LogSlotIndex.class);
+
+    // Longest a transaction that added a slot may still be uncommitted while a rebuild reads the table
+    private static final Duration IN_FLIGHT = Duration.ofMinutes(2);
+
+    private record Key(long habitId, long epochSecond, long addedAt) {
+    }
+
+    private record Snapshot(Filter filter, LocalDateTime from, LocalDateTime to) {
+        boolean covers(LocalDateTime time) {
+            return !time.isBefore(from) && time.isBefore(to);
+        }
+    }
+
+    private final HabitLogRepository logRepo;
+    private final boolean enabled;
+    private final int pastDays;
+    private final int futureDays;
+    private final int minExpectedSlots;
+    private final double falsePositiveRate;
+    private final Counter negatives;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+    private final Counter outsideWindow;
+
+    private volatile Snapshot current;
+    private volatile Filter building;
+    private final ConcurrentLinkedDeque<Key> recent = new ConcurrentLinkedDeque<>();
+    private final AtomicLong staleSlots = new AtomicLong();
+
+    public LogSlotIndex(HabitLogRepository logRepo,
+                        MeterRegistry meterRegistry,
+                        @Value("${habit.log-index.enabled:true}") boolean enabled,
+                        @Value("${habit.log-index.past-days:7}") int pastDays,
+                        @Value("${habit.log-index.future-days:7}") int futureDays,
+                        @Value("${habit.log-index.expected-slots:100000}") int minExpectedSlots,
+                        @Value("${habit.log-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.logRepo = logRepo;
+        this.enabled = enabled;
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+        this.minExpectedSlots = minExpectedSlots;
+        this.falsePositiveRate = falsePositiveRate;
+        this.negatives = lookups(meterRegistry, "negative");
+        this.confirmed = lookups(meterRegistry, "confirmed");
+        this.falsePositives = lookups(meterRegistry, "false_positive");
+        this.outsideWindow = lookups(meterRegistry, "outside_window");
+        Gauge.builder("habit.log.index.slots", this, index -> index.filterValue(Filter::size))
+            .description("Slots added to the log existence filter")
+            .register(meterRegistry);
+        Gauge.builder("habit.log.index.memory", this, index -> index.filterValue(Filter::bytes))
+            .description("Memory used by the log existence filter")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("habit.log.index.expected.fpp", this, index -> index.filterValue(Filter::expectedFalsePositiveRate))
+            .description("False-positive rate expected from the filter's current fill")
+            .register(meterRegistry);
+        Gauge.builder("habit.log.index.observed.fpp", this, LogSlotIndex::observedFalsePositiveRate)
+            .description("Share of positive answers the database did not confirm")
+            .register(meterRegistry);
+        Gauge.builder("habit.log.index.stale", staleSlots, AtomicLong::get)
+            .description("Slots deleted since the last rebuild")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether a log of {@code habit} at {@code scheduledTime} exists. Answers "no" from memory when
+     * the filter rules the slot out, otherwise asks the database.
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(Habit habit, LocalDateTime scheduledTime) {
+        if (!mightExist(habit.getId(), scheduledTime)) {
+            return false;
+        }
+        boolean exists = logRepo.existsByHabitAndScheduledDateTime(habit, scheduledTime);
+        if (current != null && current.covers(scheduledTime)) {
+            (exists ? confirmed : falsePositives).increment();
+        }
+        return exists;
+    }
+
+    /**
+     * {@code false} only if no log of the habit exists at {@code scheduledTime}; {@code true} means
+     * the caller has to look it up.
+     */
+    public boolean mightExist(Long habitId, LocalDateTime scheduledTime) {
+        Snapshot snapshot = current;
+        if (!enabled || snapshot == null || habitId == null || scheduledTime == null) {
+            return true;
+        }
+        if (!snapshot.covers(scheduledTime)) {
+            outsideWindow.increment();
+            return true;
+        }
+        if (snapshot.filter().mightContain(habitId, epochSecond(scheduledTime))) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /** Records a log that is about to be inserted. Call before its transaction commits. */
+    public void add(HabitLog log) {
+        if (log.getHabit() == null || log.getHabit().getId() == null || log.getScheduledDateTime() == null) {
+            return;
+        }
+        add(log.getHabit().getId(), log.getScheduledDateTime());
+    }
+
+    public void addAll(Collection<HabitLog> logs) {
+        logs.forEach(this::add);
+    }
+
+    public void add(long habitId, LocalDateTime scheduledTime) {
+        if (!enabled) {
+            return;
+        }
+        long second = epochSecond(scheduledTime);
+        long now = System.nanoTime();
+        recent.addLast(new Key(habitId, second, now));
+        trimRecent(now);
+
+        Filter next = building;
+        if (next != null) {
+            next.put(habitId, second);
+        }
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            snapshot.filter().put(habitId, second);
+        }
+    }
+
+    /** Notes a deleted log. The slot stays in the filter until the next rebuild. */
+    public void removed(HabitLog log) {
+        staleSlots.incrementAndGet();
+    }
+
+    // Deleting a habit removes its logs in bulk, rebuild so the filter does not keep answering for them
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHabitChange(HabitChangeEvent event) {
+        if (event.type() == HabitChangeEvent.Type.DELETED) {
+            rebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    // Roll the window forward once a day
+    @Scheduled(cron = "${habit.log-index.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LocalDateTime from = today.minusDays(pastDays).atStartOfDay();
+        LocalDateTime to = today.plusDays(futureDays + 1L).atStartOfDay();
+        try {
+            Snapshot previous = current;
+            long expected = Math.max(minExpectedSlots,
+                previous != null ? previous.filter().size() * 3 / 2 : 0);
+            Filter filter = new Filter(expected, falsePositiveRate);
+            // Slots added while we read the table go into the new filter as well
+            building = filter;
+            List<Object[]> slots = logRepo.findSlotsBetween(from, to);
+            for (Object[] slot : slots) {
+                filter.put((Long) slot[0], epochSecond((LocalDateTime) slot[1]));
+            }
+            // Transactions still in flight when the query ran are not visible to it
+            long now = System.nanoTime();
+            trimRecent(now);
+            for (Key key : recent) {
+                filter.put(key.habitId(), key.epochSecond());
+            }
+            current = new Snapshot(filter, from, to);
+            staleSlots.set(0);
+            logger.info("Log slot index rebuilt with {} slots ({} KiB) in {} ms", filter.size(),
+                filter.bytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            // Without a snapshot every lookup goes to the database, which is slow but correct
+            current = null;
+            logger.error("Rebuilding the log slot index failed", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    double observedFalsePositiveRate() {
+        double positives = confirmed.count() + falsePositives.count();
+        return positives == 0 ? 0 : falsePositives.count() / positives;
+    }
+
+    private double filterValue(ToDoubleFunction<Filter> value) {
+        Snapshot snapshot = current;
+        return snapshot == null ? 0 : value.applyAsDouble(snapshot.filter());
+    }
+
+    private void trimRecent(long now) {
+        long cutoff = now - IN_FLIGHT.toNanos();
+        for (Iterator<Key> it = recent.iterator(); it.hasNext(); ) {
+            if (it.next().addedAt() - cutoff >= 0) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("habit.log.index.lookups")
+            .description("Log existence lookups by outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /** Lock-free Bloom filter over (habit id, epoch second) pairs, using double hashing. */
+    static final class Filter {
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLong size = new AtomicLong();
+
+        Filter(long expectedSlots, double falsePositiveRate) {
+            long n = Math.max(1, expectedSlots);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+            this.words = new AtomicLongArray(words);
+            this.bits = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        }
+
+        void put(long habitId, long epochSecond) {
+            long hash = mix(habitId * 0x9E3779B97F4A7C15L ^ epochSecond);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old = words.get(word);
+                while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask)) {
+                    old = words.get(word);
+                }
+            }
+            size.incrementAndGet();
+        }
+
+        boolean mightContain(long habitId, long epochSecond) {
+            long hash = mix(habitId * 0x9E3779B97F4A7C15L ^ epochSecond);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long size() {
+            return size.get();
+        }
+
+        long bytes() {
+            return words.length() * 8L;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashes * size.get() / bits), hashes);
+        }
+
+        // SplitMix64 finalizer
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
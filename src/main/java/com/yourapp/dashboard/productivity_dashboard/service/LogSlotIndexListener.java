@@ -0,0 +1,32 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Keeps {@link LogSlotIndex} up to date with logs saved or deleted through JPA. Instantiated by
+ * Hibernate through Spring while the entity manager factory is being built, so the index, which
+ * needs a repository, is only looked up on first use.
+ */
+public class LogSlotIndexListener {
+
+    private final ObjectProvider<LogSlotIndex> logSlotIndex;
+
+    @Autowired
+    public LogSlotIndexListener(ObjectProvider<LogSlotIndex> logSlotIndex) {
+        this.logSlotIndex = logSlotIndex;
+    }
+
+    @PostPersist
+    public void onPersist(HabitLog log) {
+        logSlotIndex.getObject().add(log);
+    }
+
+    @PostRemove
+    public void onRemove(HabitLog log) {
+        logSlotIndex.getObject().removed(log);
+    }
+}
@@ -26,12 +26,21 @@ public class PomodoroService {
 
     @Autowired
     private HabitRepository habitRepository;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private DataVersionRegistry dataVersions;
+
     // Save a new Pomodoro session
     public void save(PomodoroSession session) {
         if (session.getStartTime() == null) {
             session.setStartTime(LocalDateTime.now());
         }
         pomodoroRepository.save(session);
+        rollupService.refreshActivityDay(session.getStartTime());
+        dataVersions.bump(DataVersionRegistry.Domain.POMODORO);
     }
 
     // Get all sessions
@@ -64,15 +73,9 @@ public class PomodoroService {
                 .sum();
     }
 
+    // Indexed by day of week from Sunday = 0, read from the daily rollups
     public long[] sumPomodoroMinutesByDay(LocalDateTime start, LocalDateTime end) {
-        long[] weeklyPomodoro = new long[7];
-        pomodoroRepository.sumPomodoroMinutesByDay(start, end)
-                .forEach(row -> {
-                    int dayOfWeek = (int) row[0]; // 1 = Sunday
-                    Long totalMinutes = (Long) row[1];
-                    weeklyPomodoro[dayOfWeek - 1] = (totalMinutes != null) ? totalMinutes : 0L;
-                });
-        return weeklyPomodoro;
+        return rollupService.focusMinutesByDayOfWeek(start.toLocalDate(), end.toLocalDate());
     }
 
     public Optional<Task> findByTaskId(Long taskId) {
@@ -0,0 +1,271 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.model.RecurrenceRule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily walks the occurrences of a habit, in the habit's own time zone, from a start instant on.
+ * <p>
+ * Hourly habits occur at the top of every hour outside the sleep window. Daily habits occur at their
+ * scheduled time, or at each reminder time when they allow several a day. Weekly, monthly and yearly
+ * habits occur at their scheduled time on their {@code weeklyDay}, {@code monthlyDay} or
+ * {@code yearlyMonth}/{@code yearlyDay}; days past the end of a short month are clamped to its last
+ * day. Habits without a scheduled time default to noon, and a habit missing the day fields of its
+ * recurrence has no occurrences. Habits with a {@link RecurrenceRule} occur on the days the rule is
+ * due, found by testing its masks day by day.
+ * <p>
+ * The iterator jumps straight from one due day to the next and keeps no per-occurrence state, so a
+ * range of any length costs one {@link LocalDateTime} per occurrence. It never touches the database.
+ */
+public final class RecurrenceIterator implements Iterator<LocalDateTime> {
+
+    private final Recurrence recurrence;
+    private final RecurrenceRule rule;
+    private final ZoneId zone;
+    private final LocalTime[] times;
+    private final DayOfWeek weeklyDay;
+    private final Integer monthlyDay;
+    private final Integer yearlyMonth;
+    private final Integer yearlyDay;
+    private final LocalTime sleepStart;
+    private final LocalTime sleepEnd;
+
+    // Day-based recurrences: current due day and index of its next time. Hourly: the next hour.
+    private LocalDate day;
+    private int timeIndex;
+    private LocalDateTime hour;
+    private LocalDateTime next;
+
+    private RecurrenceIterator(Habit habit, ZonedDateTime start, SleepWindow sleepWindow) {
+        this.rule = habit.getRecurrenceRule() != null && !habit.getRecurrenceRule().isBlank()
+            ? RecurrenceRule.compiled(habit) : null;
+        this.recurrence = rule != null ? rule.getFrequency()
+            : habit.getRecurrence() != null ? habit.getRecurrence() : Recurrence.DAILY;
+        this.zone = zoneOf(habit);
+        this.times = timesOfDay(habit);
+        this.weeklyDay = habit.getWeeklyDay();
+        this.monthlyDay = habit.getMonthlyDay();
+        this.yearlyMonth = habit.getYearlyMonth();
+        this.yearlyDay = habit.getYearlyDay();
+        this.sleepStart = sleepWindow != null ? sleepWindow.getSleepStart() : null;
+        this.sleepEnd = sleepWindow != null ? sleepWindow.getSleepEnd() : null;
+        if (rule == null) {
+            // Only the fields of the habit's own recurrence are read, stale ones of another are ignored
+            if (recurrence == Recurrence.MONTHLY) {
+                requireInRange("monthlyDay", monthlyDay, 31);
+            } else if (recurrence == Recurrence.YEARLY) {
+                requireInRange("yearlyMonth", yearlyMonth, 12);
+                requireInRange("yearlyDay", yearlyDay, 31);
+            }
+        }
+
+        LocalDateTime from = start.withZoneSameInstant(zone).toLocalDateTime();
+        if (recurrence == Recurrence.HOURLY) {
+            hour = from.truncatedTo(ChronoUnit.HOURS);
+            if (hour.isBefore(from)) {
+                hour = hour.plusHours(1);
+            }
+        } else if (isSchedulable()) {
+            day = dueOnOrAfter(from.toLocalDate());
+            if (day != null && day.equals(from.toLocalDate())) {
+                while (timeIndex < times.length && times[timeIndex].isBefore(from.toLocalTime())) {
+                    timeIndex++;
+                }
+            }
+        }
+        next = advance();
+    }
+
+    /**
+     * Occurrences of {@code habit} at or after {@code start}. Pass {@code null} as sleep window to
+     * let hourly habits run around the clock.
+     *
+     * @throws IllegalArgumentException if the habit has a recurrence rule that does not parse, or a
+     *         monthly or yearly day or month out of range
+     */
+    public static RecurrenceIterator startingAt(Habit habit, ZonedDateTime start, SleepWindow sleepWindow) {
+        return new RecurrenceIterator(habit, start, sleepWindow);
+    }
+
+    /**
+     * Occurrences of {@code habit} in {@code [start, end)}, in the habit's zone, computed as the
+     * stream is consumed.
+     */
+    public static Stream<ZonedDateTime> between(Habit habit, ZonedDateTime start, ZonedDateTime end,
+                                                SleepWindow sleepWindow) {
+        RecurrenceIterator iterator = startingAt(habit, start, sleepWindow);
+        return iterator.stream()
+            .map(time -> time.atZone(iterator.zone))
+            .takeWhile(time -> time.isBefore(end));
+    }
+
+    /** The habit's configured zone, falling back to the system zone if it is missing or invalid. */
+    public static ZoneId zoneOf(Habit habit) {
+        try {
+            return ZoneId.of(habit.getTimeZone());
+        } catch (Exception e) {
+            return ZoneId.systemDefault();
+        }
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /** The remaining occurrences as local times in {@link #getZone()}. */
+    public Stream<LocalDateTime> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public LocalDateTime next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        LocalDateTime current = next;
+        next = advance();
+        return current;
+    }
+
+    private LocalDateTime advance() {
+        if (recurrence == Recurrence.HOURLY) {
+            return advanceHourly();
+        }
+        if (day == null) {
+            return null;
+        }
+        if (timeIndex == times.length) {
+            day = dueOnOrAfter(day.plusDays(1));
+            timeIndex = 0;
+            if (day == null) {
+                return null;
+            }
+        }
+        return day.atTime(times[timeIndex++]);
+    }
+
+    private LocalDateTime advanceHourly() {
+        for (int i = 0; i < HourlySlotState.HOURS; i++) {
+            if (rule != null && !rule.isDueOn(hour.toLocalDate())) {
+                LocalDate due = dueOnOrAfter(hour.toLocalDate().plusDays(1));
+                if (due == null) {
+                    return null;
+                }
+                hour = due.atStartOfDay();
+            }
+            LocalDateTime candidate = hour;
+            hour = hour.plusHours(1);
+            if (sleepStart == null || !SleepWindow.isAsleep(candidate.toLocalTime(), sleepStart, sleepEnd)) {
+                return candidate;
+            }
+        }
+        // Every hour of the day is inside the sleep window
+        return null;
+    }
+
+    private boolean isSchedulable() {
+        if (rule != null) {
+            return true;
+        }
+        switch (recurrence) {
+            case WEEKLY:
+                return weeklyDay != null;
+            case MONTHLY:
+                return monthlyDay != null;
+            case YEARLY:
+                return yearlyMonth != null && yearlyDay != null;
+            default:
+                return true;
+        }
+    }
+
+    /** First day on or after {@code from} the habit is due, or {@code null} past the supported range. */
+    private LocalDate dueOnOrAfter(LocalDate from) {
+        if (from.getYear() >= LocalDate.MAX.getYear()) {
+            return null;
+        }
+        if (rule != null) {
+            return ruleDueOnOrAfter(from);
+        }
+        switch (recurrence) {
+            case WEEKLY:
+                return from.with(TemporalAdjusters.nextOrSame(weeklyDay));
+            case MONTHLY: {
+                LocalDate candidate = clampedDay(YearMonth.from(from), monthlyDay);
+                return candidate.isBefore(from) ? clampedDay(YearMonth.from(from).plusMonths(1), monthlyDay) : candidate;
+            }
+            case YEARLY: {
+                LocalDate candidate = clampedDay(YearMonth.of(from.getYear(), yearlyMonth), yearlyDay);
+                return candidate.isBefore(from)
+                    ? clampedDay(YearMonth.of(from.getYear() + 1, yearlyMonth), yearlyDay) : candidate;
+            }
+            default:
+                return from;
+        }
+    }
+
+    private LocalDate ruleDueOnOrAfter(LocalDate from) {
+        // A due day comes at least once every interval periods, a year or less each
+        LocalDate limit = from.plusYears(rule.getInterval() + 1L);
+        if (rule.getUntil() != null && rule.getUntil().isBefore(limit)) {
+            limit = rule.getUntil().plusDays(1);
+        }
+        LocalDate candidate = rule.getStart() != null && rule.getStart().isAfter(from) ? rule.getStart() : from;
+        for (; candidate.isBefore(limit); candidate = candidate.plusDays(1)) {
+            if (rule.isDueOn(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static void requireInRange(String field, Integer value, int max) {
+        if (value != null && (value < 1 || value > max)) {
+            throw new IllegalArgumentException(field + " must be between 1 and " + max + ": " + value);
+        }
+    }
+
+    private static LocalDate clampedDay(YearMonth month, int dayOfMonth) {
+        return month.atDay(Math.max(1, Math.min(dayOfMonth, month.lengthOfMonth())));
+    }
+
+    private static LocalTime[] timesOfDay(Habit habit) {
+        if (habit.getRecurrence() == Recurrence.DAILY && habit.isAllowMultipleDaily()
+                && !habit.getDailyReminderTimes().isEmpty()) {
+            LocalTime[] reminders = habit.getDailyReminderTimes().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toArray(LocalTime[]::new);
+            if (reminders.length > 0) {
+                return reminders;
+            }
+        }
+        return new LocalTime[] {habit.getScheduledTime() != null ? habit.getScheduledTime() : LocalTime.NOON};
+    }
+}
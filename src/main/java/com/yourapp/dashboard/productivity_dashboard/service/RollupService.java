@@ -0,0 +1,209 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.event.RollupChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.DailyActivityRollup;
+import com.yourapp.dashboard.productivity_dashboard.repository.DailyActivityRollupRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitDailyRollupRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitHourRollupRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.PomodoroRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-day rollups of habit outcomes and completion hours, completed tasks and focus minutes, so
+ * stats, trends and weekly charts read a handful of rows whatever the range. Writers refresh the day
+ * they touched by recounting it from the source table; {@link com.yourapp.dashboard.productivity_dashboard.scheduler.RollupReconciler}
+ * recounts recent days nightly. Days are in server time.
+ */
+@Service
+public class RollupService {
+
+    private final HabitDailyRollupRepository habitRollupRepo;
+    private final HabitHourRollupRepository hourRollupRepo;
+    private final DailyActivityRollupRepository activityRollupRepo;
+    private final HabitLogRepository logRepo;
+    private final TaskRepository taskRepo;
+    private final PomodoroRepository pomodoroRepo;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public record HabitTotals(long completed, long missed, long skipped) {
+
+        /** Completed share of the resolved logs, in percent with one decimal. */
+        public double completionRate() {
+            long resolved = completed + missed + skipped;
+            return resolved == 0 ? 0 : Math.round((double) completed / resolved * 1000) / 10.0;
+        }
+    }
+
+    @Autowired
+    public RollupService(HabitDailyRollupRepository habitRollupRepo,
+                         HabitHourRollupRepository hourRollupRepo,
+                         DailyActivityRollupRepository activityRollupRepo,
+                         HabitLogRepository logRepo,
+                         TaskRepository taskRepo,
+                         PomodoroRepository pomodoroRepo,
+                         ApplicationEventPublisher eventPublisher) {
+        this.habitRollupRepo = habitRollupRepo;
+        this.hourRollupRepo = hourRollupRepo;
+        this.activityRollupRepo = activityRollupRepo;
+        this.logRepo = logRepo;
+        this.taskRepo = taskRepo;
+        this.pomodoroRepo = pomodoroRepo;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Recounts the day of {@code scheduled} for one habit, after one of its logs changed. */
+    @Transactional
+    public void refreshHabitDay(Long habitId, LocalDateTime scheduled) {
+        if (habitId == null || scheduled == null) {
+            return;
+        }
+        LocalDate day = scheduled.toLocalDate();
+        habitRollupRepo.deleteHabitDay(habitId, day);
+        habitRollupRepo.insertFromLogs(habitId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        hourRollupRepo.deleteHabitDay(habitId, day);
+        hourRollupRepo.insertFromLogs(habitId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        eventPublisher.publishEvent(RollupChangeEvent.recounted(habitId, day, day));
+    }
+
+    /** Recounts every habit over the inclusive day range. */
+    @Transactional
+    public void refreshHabitDays(LocalDate from, LocalDate to) {
+        habitRollupRepo.deleteBetween(from, to);
+        habitRollupRepo.insertFromLogs(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        hourRollupRepo.deleteBetween(from, to);
+        hourRollupRepo.insertFromLogs(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        eventPublisher.publishEvent(RollupChangeEvent.recounted(null, from, to));
+    }
+
+    @Transactional
+    public void forgetHabit(Long habitId) {
+        habitRollupRepo.deleteByHabitId(habitId);
+        hourRollupRepo.deleteByHabitId(habitId);
+        eventPublisher.publishEvent(RollupChangeEvent.dropped(habitId));
+    }
+
+    /** Recounts tasks and focus minutes on the day of {@code time}; does nothing for {@code null}. */
+    @Transactional
+    public void refreshActivityDay(LocalDateTime time) {
+        if (time != null) {
+            refreshActivityDays(time.toLocalDate(), time.toLocalDate());
+        }
+    }
+
+    /** Recounts tasks and focus minutes over the inclusive day range. */
+    @Transactional
+    public void refreshActivityDays(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Map<LocalDate, DailyActivityRollup> rows = new HashMap<>();
+        for (DailyActivityRollup row : activityRollupRepo.findByDayBetween(from, to)) {
+            row.setTasksCompleted(0);
+            row.setFocusMinutes(0);
+            rows.put(row.getDay(), row);
+        }
+        accumulate(rows, taskRepo.countCompletedByDueDay(start, end), DailyActivityRollup::setTasksCompleted);
+        accumulate(rows, pomodoroRepo.sumMinutesByStartDay(start, end), DailyActivityRollup::setFocusMinutes);
+
+        List<DailyActivityRollup> empty = new ArrayList<>();
+        List<DailyActivityRollup> counted = new ArrayList<>();
+        for (DailyActivityRollup row : rows.values()) {
+            (row.getTasksCompleted() == 0 && row.getFocusMinutes() == 0 ? empty : counted).add(row);
+        }
+        activityRollupRepo.deleteAll(empty);
+        activityRollupRepo.saveAll(counted);
+    }
+
+    /** Builds the rollups from all history, if they have never been built. */
+    @Transactional
+    public boolean buildIfEmpty() {
+        boolean built = false;
+        if (!habitRollupRepo.existsBy() || !hourRollupRepo.existsBy()) {
+            LocalDateTime[] logs = range(logRepo.findScheduledDateTimeRange());
+            if (logs[0] != null) {
+                refreshHabitDays(logs[0].toLocalDate(), logs[1].toLocalDate());
+                built = true;
+            }
+        }
+        if (!activityRollupRepo.existsBy()) {
+            LocalDateTime[] tasks = range(taskRepo.findDueDateRange());
+            LocalDateTime[] pomodoros = range(pomodoroRepo.findStartTimeRange());
+            LocalDateTime from = earlier(tasks[0], pomodoros[0]);
+            LocalDateTime to = later(tasks[1], pomodoros[1]);
+            if (from != null) {
+                refreshActivityDays(from.toLocalDate(), to.toLocalDate());
+                built = true;
+            }
+        }
+        return built;
+    }
+
+    @Transactional(readOnly = true)
+    public HabitTotals habitTotals(LocalDate from, LocalDate to) {
+        List<Object[]> rows = habitRollupRepo.sumBetween(from, to);
+        if (rows.isEmpty()) {
+            return new HabitTotals(0, 0, 0);
+        }
+        Object[] row = rows.get(0);
+        return new HabitTotals(toLong(row[0]), toLong(row[1]), toLong(row[2]));
+    }
+
+    /** Completed tasks over the inclusive day range, indexed by day of week from Sunday = 0. */
+    @Transactional(readOnly = true)
+    public long[] tasksCompletedByDayOfWeek(LocalDate from, LocalDate to) {
+        long[] totals = new long[7];
+        activityRollupRepo.findByDayBetween(from, to)
+            .forEach(row -> totals[dayOfWeekIndex(row.getDay())] += row.getTasksCompleted());
+        return totals;
+    }
+
+    /** Focus minutes over the inclusive day range, indexed by day of week from Sunday = 0. */
+    @Transactional(readOnly = true)
+    public long[] focusMinutesByDayOfWeek(LocalDate from, LocalDate to) {
+        long[] totals = new long[7];
+        activityRollupRepo.findByDayBetween(from, to)
+            .forEach(row -> totals[dayOfWeekIndex(row.getDay())] += row.getFocusMinutes());
+        return totals;
+    }
+
+    private static void accumulate(Map<LocalDate, DailyActivityRollup> rows, List<Object[]> counts,
+                                   BiConsumer<DailyActivityRollup, Long> setter) {
+        for (Object[] count : counts) {
+            LocalDate day = (LocalDate) count[0];
+            setter.accept(rows.computeIfAbsent(day, DailyActivityRollup::new), toLong(count[1]));
+        }
+    }
+
+    private static LocalDateTime[] range(List<Object[]> rows) {
+        Object[] row = rows.isEmpty() ? new Object[2] : rows.get(0);
+        return new LocalDateTime[] {(LocalDateTime) row[0], (LocalDateTime) row[1]};
+    }
+
+    private static LocalDateTime earlier(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isBefore(a)) ? b : a;
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    private static int dayOfWeekIndex(LocalDate day) {
+        return day.getDayOfWeek().getValue() % 7;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
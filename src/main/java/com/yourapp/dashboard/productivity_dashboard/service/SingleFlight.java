@@ -0,0 +1,125 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical computations: the first caller of a key runs the loader, callers
+ * arriving while it runs wait for and share its result (or exception) instead of running it again.
+ * <p>
+ * Keys include the {@link DataVersionRegistry} versions of the data the computation reads, so a
+ * caller never joins a computation that started before a write it has already seen committed.
+ * A waiting caller gives up after the key's timeout ({@code single-flight.timeouts.<key>}, default
+ * {@code single-flight.timeout-ms}) and runs the loader itself.
+ */
+@Component
+public class SingleFlight {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> timeouts = new ConcurrentHashMap<>();
+    private final DataVersionRegistry dataVersions;
+    private final Environment environment;
+    private final long defaultTimeoutMillis;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> leaders = new ConcurrentHashMap<>();
+    private final Map<String, Counter> followers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> timedOut = new ConcurrentHashMap<>();
+
+    public SingleFlight(DataVersionRegistry dataVersions,
+                        Environment environment,
+                        MeterRegistry meterRegistry,
+                        @Value("${single-flight.timeout-ms:5000}") long defaultTimeoutMillis) {
+        this.dataVersions = dataVersions;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        Gauge.builder("single.flight.in.flight", inFlight, Map::size)
+            .description("Computations currently shared between callers")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code loader} for {@code key}, or waits for the run already in progress for the same key
+     * and versions of {@code dependsOn}. The result is shared between callers and must not be
+     * modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Collection<DataVersionRegistry.Domain> dependsOn, Supplier<T> loader) {
+        String flightKey = key + "@" + dataVersions.tag(dependsOn);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            recordFollower(key);
+            try {
+                return (T) running.get(timeout(key), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Shared computation of " + key + " failed", e.getCause());
+            } catch (TimeoutException e) {
+                recordTimeout(key);
+                logger.warn("Gave up waiting {} ms for {}, computing it again", timeout(key), key);
+                return loader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loader.get();
+            }
+        }
+
+        recordLeader(key);
+        try {
+            T value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    // StaleWhileRevalidate shares loads of page requests itself and reports them here, so the meters
+    // and per-key timeouts cover every coalesced caller
+    void recordLeader(String key) {
+        counter(leaders, "single.flight.leaders", key).increment();
+    }
+
+    void recordFollower(String key) {
+        counter(followers, "single.flight.followers", key).increment();
+    }
+
+    void recordTimeout(String key) {
+        counter(timedOut, "single.flight.timeouts", key).increment();
+    }
+
+    long timeout(String key) {
+        return timeouts.computeIfAbsent(key, k ->
+            environment.getProperty("single-flight.timeouts." + k, Long.class, defaultTimeoutMillis));
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String key) {
+        return counters.computeIfAbsent(key, k -> Counter.builder(name)
+            .description("Callers of a coalesced computation by role")
+            .tag("key", k)
+            .register(meterRegistry));
+    }
+}
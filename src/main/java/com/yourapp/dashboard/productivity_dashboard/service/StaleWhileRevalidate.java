@@ -0,0 +1,227 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last good result of each read and serves it when the database is slow or failing.
+ * <p>
+ * Every read starts a load on a background pool and waits up to {@code stale-reads.fresh-wait-ms}
+ * for it. If the load is late or fails, a page request gets the last good result instead, as long as
+ * it is at most {@code stale-reads.max-age-ms} old, and the load keeps running to replace it.
+ * Otherwise the caller waits for the load as it would without this class. A read joins a running
+ * load only if the {@link DataVersionRegistry} versions the load depends on are unchanged, so it
+ * never joins a load that started before a write it has already seen committed. Shared loads count
+ * towards the {@link SingleFlight} leader and follower meters, and a read that joined another
+ * request's load waits no longer than the key's {@code single-flight.timeouts} before loading itself.
+ * <p>
+ * Only reads made on a web request thread go through here; those that got a stale result are marked
+ * with {@link #STALE_SINCE_ATTRIBUTE} and an {@code X-Stale-Data-As-Of} header. Background jobs and
+ * the dashboard's widget pool are coalesced by {@link SingleFlight} instead, so callers never stack
+ * both.
+ */
+@Component
+public class StaleWhileRevalidate {
+    private static final Logger logger = LoggerFactory.getLogger(StaleWhileRevalidate.class);
+
+    /** Request attribute holding when the oldest stale result served to the request was loaded. */
+    public static final String STALE_SINCE_ATTRIBUTE = "staleDataAsOf";
+
+    // started orders loads of the same key, so a slow older load cannot replace a newer result
+    private record LastGood(Object value, LocalDateTime loadedAt, long started) {
+    }
+
+    private record Refresh(CompletableFuture<Object> load, boolean joined) {
+    }
+
+    private final Map<String, LastGood> lastGood = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Object>> refreshes = new ConcurrentHashMap<>();
+    private final TaskExecutor executor;
+    private final DataVersionRegistry dataVersions;
+    private final SingleFlight singleFlight;
+    private final boolean enabled;
+    private final long freshWaitMillis;
+    private final Duration maxAge;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> staleServes = new ConcurrentHashMap<>();
+
+    public StaleWhileRevalidate(@Qualifier("staleRefreshExecutor") TaskExecutor executor,
+                                DataVersionRegistry dataVersions,
+                                SingleFlight singleFlight,
+                                MeterRegistry meterRegistry,
+                                @Value("${stale-reads.enabled:true}") boolean enabled,
+                                @Value("${stale-reads.fresh-wait-ms:1000}") long freshWaitMillis,
+                                @Value("${stale-reads.max-age-ms:600000}") long maxAgeMillis) {
+        this.executor = executor;
+        this.dataVersions = dataVersions;
+        this.singleFlight = singleFlight;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.freshWaitMillis = freshWaitMillis;
+        this.maxAge = Duration.ofMillis(maxAgeMillis);
+    }
+
+    /** Whether a stale result was served during the current web request. */
+    public static boolean servedStale() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+            && attributes.getAttribute(STALE_SINCE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    /**
+     * Returns the result of {@code loader}, or the last good result of {@code key} if the load does
+     * not finish in time. {@code dependsOn} are the domains the loader reads. The result is shared
+     * between callers and must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Collection<DataVersionRegistry.Domain> dependsOn, Supplier<T> loader) {
+        // Only page and API requests can use a stale result, anything else only shares identical loads
+        if (!enabled || RequestContextHolder.getRequestAttributes() == null) {
+            return singleFlight.execute(key, dependsOn, loader);
+        }
+        Refresh refresh;
+        try {
+            refresh = refresh(key, dependsOn, loader);
+        } catch (TaskRejectedException e) {
+            // Refresh pool is saturated, which means the database is already slow
+            LastGood stale = usable(key);
+            if (stale != null) {
+                return (T) serveStale(key, stale);
+            }
+            return loader.get();
+        }
+
+        try {
+            return (T) refresh.load().get(freshWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LastGood stale = usable(key);
+            if (stale != null) {
+                return (T) serveStale(key, stale);
+            }
+            return (T) await(key, refresh, loader);
+        } catch (ExecutionException e) {
+            LastGood stale = usable(key);
+            if (stale != null) {
+                logger.warn("Read {} failed, serving the result from {}", key, stale.loadedAt(), e.getCause());
+                return (T) serveStale(key, stale);
+            }
+            throw rethrow(key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading " + key, e);
+        }
+    }
+
+    private Refresh refresh(String key, Collection<DataVersionRegistry.Domain> dependsOn, Supplier<?> loader) {
+        String refreshKey = key + "@" + dataVersions.tag(dependsOn);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = refreshes.putIfAbsent(refreshKey, load);
+        if (running != null) {
+            singleFlight.recordFollower(key);
+            return new Refresh(running, true);
+        }
+        long started = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                // Leave the map before completing, so no read joins a load that has already finished
+                try {
+                    Object value = loader.get();
+                    lastGood.merge(key, new LastGood(value, LocalDateTime.now(), started),
+                        (previous, loaded) -> loaded.started() - previous.started() >= 0 ? loaded : previous);
+                    refreshes.remove(refreshKey, load);
+                    load.complete(value);
+                } catch (Throwable e) {
+                    refreshes.remove(refreshKey, load);
+                    load.completeExceptionally(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            refreshes.remove(refreshKey, load);
+            throw e;
+        }
+        singleFlight.recordLeader(key);
+        return new Refresh(load, false);
+    }
+
+    private LastGood usable(String key) {
+        LastGood stale = lastGood.get(key);
+        if (stale == null || stale.loadedAt().isBefore(LocalDateTime.now().minus(maxAge))) {
+            return null;
+        }
+        return stale;
+    }
+
+    private Object serveStale(String key, LastGood stale) {
+        staleServes.computeIfAbsent(key, k -> Counter.builder("stale.reads.served")
+            .description("Reads answered with the last good result while the database was slow")
+            .tag("key", k)
+            .register(meterRegistry)).increment();
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        LocalDateTime since = (LocalDateTime) attributes.getAttribute(STALE_SINCE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (since == null || stale.loadedAt().isBefore(since)) {
+            attributes.setAttribute(STALE_SINCE_ATTRIBUTE, stale.loadedAt(), RequestAttributes.SCOPE_REQUEST);
+            if (attributes instanceof ServletRequestAttributes servlet) {
+                HttpServletResponse response = servlet.getResponse();
+                if (response != null && !response.isCommitted()) {
+                    response.setHeader("X-Stale-Data-As-Of", stale.loadedAt().toString());
+                }
+            }
+        }
+        return stale.value();
+    }
+
+    // A read that joined another request's load waits for it up to the key's single-flight timeout
+    // in all, then loads on its own; a read that started the load waits for it
+    private Object await(String key, Refresh refresh, Supplier<?> loader) {
+        try {
+            if (!refresh.joined()) {
+                return refresh.load().get();
+            }
+            long remaining = Math.max(0, singleFlight.timeout(key) - freshWaitMillis);
+            return refresh.load().get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            singleFlight.recordTimeout(key);
+            logger.warn("Gave up waiting {} ms for {}, loading it again", singleFlight.timeout(key), key);
+            return loader.get();
+        } catch (ExecutionException e) {
+            throw rethrow(key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        }
+    }
+
+    private static RuntimeException rethrow(String key, ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Read " + key + " failed", e.getCause());
+    }
+}
@@ -0,0 +1,280 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepositoryCustom.LogStatus;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepositoryCustom.StreakUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Recomputes {@code currentStreak}, {@code bestStreak} and {@code streakThrough} of every habit from
+ * its log history, to repair streaks that drifted after data fixes or purges.
+ * <p>
+ * The logs are replayed with the rules of {@link StreakEngine}: a completion extends the streak only
+ * if its period is the next one the habit is due in after the last completed or skipped period, a
+ * skip carries the streak across its period, and a period missed without a completion ends it.
+ * Where the database has window functions, habits in the server's zone that are due every period
+ * are recomputed with one gaps-and-islands query. The other habits, or all of them elsewhere, are
+ * recomputed from their logs streamed in (habit, time) order: each habit's logs form a partition
+ * folded on a fork-join pool, in the habit's own zone and with its due periods worked out from its
+ * recurrence. Only a few partitions are buffered at a time, so memory stays flat however
+ * many logs there are. Habits without logs get their streaks cleared.
+ * <p>
+ * Streak changes made while a run is in progress may be overwritten by it.
+ */
+@Service
+public class StreakBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(StreakBackfill.class);
+    private static final long PROGRESS_EVERY_LOGS = 100_000;
+
+    public record Progress(boolean running, String mode, long logsScanned, long habitsUpdated,
+                           LocalDateTime startedAt, LocalDateTime finishedAt, String error) {
+    }
+
+    private record Target(StreakEngine.Cadence cadence, ZoneId zone, LongUnaryOperator nextDuePeriod) {
+    }
+
+    private final HabitRepository habitRepository;
+    private final HabitLogRepository habitLogRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SleepWindow sleepWindow;
+    private final int parallelism;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong logsScanned = new AtomicLong();
+    private final AtomicLong habitsUpdated = new AtomicLong();
+    private volatile String mode;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    @Autowired
+    public StreakBackfill(HabitRepository habitRepository,
+                          HabitLogRepository habitLogRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          SleepWindow sleepWindow,
+                          @Value("${habit.streak-backfill.parallelism:0}") int parallelism,
+                          @Value("${habit.streak-backfill.batch-size:500}") int batchSize) {
+        this.habitRepository = habitRepository;
+        this.habitLogRepository = habitLogRepository;
+        this.eventPublisher = eventPublisher;
+        this.sleepWindow = sleepWindow;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Starts a run on a background thread, unless one is already in progress. */
+    public boolean start() {
+        if (running.get()) {
+            return false;
+        }
+        Thread thread = new Thread(this::run, "streak-backfill");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /** Runs a backfill on the calling thread; returns at once if one is already in progress. */
+    public Progress run() {
+        if (!running.compareAndSet(false, true)) {
+            return getProgress();
+        }
+        logsScanned.set(0);
+        habitsUpdated.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        try {
+            backfill(startedAt);
+            eventPublisher.publishEvent(HabitChangeEvent.of(null, HabitChangeEvent.Type.UPDATED));
+            logger.info("Streak backfill done: {}", getProgress());
+        } catch (Exception e) {
+            error = e.getMessage();
+            logger.error("Streak backfill failed", e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+        return getProgress();
+    }
+
+    public Progress getProgress() {
+        return new Progress(running.get(), mode, logsScanned.get(), habitsUpdated.get(), startedAt, finishedAt, error);
+    }
+
+    private void backfill(LocalDateTime before) throws InterruptedException {
+        Map<Long, Target> targets = new HashMap<>();
+        for (Habit habit : habitRepository.findAllWithReminderTimes()) {
+            StreakEngine.Cadence cadence = StreakEngine.Cadence.of(habit);
+            ZoneId zone = RecurrenceIterator.zoneOf(habit);
+            targets.put(habit.getId(), new Target(cadence, zone,
+                last -> StreakEngine.nextDuePeriod(habit, cadence, zone, sleepWindow, last)));
+        }
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        Writer writer = new Writer();
+        String serverZone = ZoneId.systemDefault().getId();
+
+        boolean islands = habitLogRepository.supportsStreakIslands();
+        mode = islands ? "islands+stream" : "stream";
+        if (islands) {
+            habitLogRepository.forEachStreakIslands(serverZone, before, row -> {
+                Target target = targets.get(row.habitId());
+                if (target != null && seen.add(row.habitId())) {
+                    LocalDateTime through = row.countedThrough() != null
+                        ? StreakEngine.periodEnd(target.cadence(), target.zone(), row.countedThrough()) : null;
+                    writer.add(new StreakUpdate(row.habitId(), row.currentStreak(), row.bestStreak(), through));
+                }
+            });
+            logger.info("Streak backfill recomputed {} habits in {} with one query", seen.size(), serverZone);
+        }
+
+        streamPartitions(islands ? serverZone : null, before, targets, seen, writer);
+
+        for (Long habitId : targets.keySet()) {
+            if (!seen.contains(habitId)) {
+                writer.add(new StreakUpdate(habitId, 0, 0, null));
+            }
+        }
+        writer.flush();
+    }
+
+    private void streamPartitions(String islandsZone, LocalDateTime before, Map<Long, Target> targets,
+                                  Set<Long> seen, Writer writer) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Consumer<List<LogStatus>> submit = logs -> {
+            long habitId = logs.get(0).habitId();
+            Target target = targets.get(habitId);
+            if (target == null || !seen.add(habitId)) {
+                return;
+            }
+            inFlight.acquireUninterruptibly();
+            pool.execute(() -> {
+                try {
+                    writer.add(fold(habitId, target.cadence(), target.zone(), target.nextDuePeriod(), logs));
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        };
+
+        try {
+            AtomicReference<List<LogStatus>> partition = new AtomicReference<>(new ArrayList<>());
+            habitLogRepository.forEachLogStatus(islandsZone, before, log -> {
+                List<LogStatus> current = partition.get();
+                if (!current.isEmpty() && current.get(0).habitId() != log.habitId()) {
+                    submit.accept(current);
+                    current = new ArrayList<>();
+                    partition.set(current);
+                }
+                current.add(log);
+                if (logsScanned.incrementAndGet() % PROGRESS_EVERY_LOGS == 0) {
+                    logger.info("Streak backfill: {}", getProgress());
+                }
+            });
+            if (!partition.get().isEmpty()) {
+                submit.accept(partition.get());
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Streak backfill partition failed", failure.get());
+        }
+    }
+
+    /**
+     * Folds one habit's logs, ordered by time, into its streaks; the same rules as the
+     * gaps-and-islands query, applied in the habit's zone. {@code nextDuePeriod} gives the first
+     * period after a given one in which the habit is due.
+     */
+    static StreakUpdate fold(long habitId, StreakEngine.Cadence cadence, ZoneId zone,
+                             LongUnaryOperator nextDuePeriod, List<LogStatus> logs) {
+        int best = 0;
+        int streak = 0;
+        Long lastCounted = null;
+        LocalDateTime countedThrough = null;
+        int i = 0;
+        while (i < logs.size()) {
+            long period = cadence.period(StreakEngine.toZone(logs.get(i).scheduledDateTime(), zone));
+            boolean done = false;
+            boolean skipped = false;
+            boolean missed = false;
+            LocalDateTime last = null;
+            for (; i < logs.size(); i++) {
+                LogStatus log = logs.get(i);
+                if (cadence.period(StreakEngine.toZone(log.scheduledDateTime(), zone)) != period) {
+                    break;
+                }
+                done |= log.completed();
+                skipped |= log.skipped();
+                missed |= log.missed();
+                last = log.scheduledDateTime();
+            }
+            if (done || skipped) {
+                boolean consecutive = lastCounted != null && period == nextDuePeriod.applyAsLong(lastCounted);
+                if (done) {
+                    streak = consecutive && streak > 0 ? streak + 1 : 1;
+                } else if (!consecutive) {
+                    streak = 0;
+                }
+                lastCounted = period;
+                countedThrough = last;
+            } else if (missed) {
+                streak = 0;
+                countedThrough = null;
+            }
+            best = Math.max(best, streak);
+        }
+        LocalDateTime through = countedThrough != null ? StreakEngine.periodEnd(cadence, zone, countedThrough) : null;
+        return new StreakUpdate(habitId, streak, best, through);
+    }
+
+    // Collects updates from the partition workers and writes them in batches
+    private final class Writer {
+        private final List<StreakUpdate> pending = new ArrayList<>();
+
+        synchronized void add(StreakUpdate update) {
+            pending.add(update);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        synchronized void flush() {
+            if (!pending.isEmpty()) {
+                habitsUpdated.addAndGet(habitRepository.updateStreaks(new ArrayList<>(pending)));
+                pending.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.model.RecurrenceRule;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps {@code currentStreak} and {@code bestStreak} of habits up to date from completion, skip and
+ * miss events, at constant cost per event.
+ * <p>
+ * A streak counts consecutive periods of the habit's cadence that have a completion: hours for hourly
+ * habits, days for daily ones and weeks, months or years for the others. Periods in which the habit
+ * is not due (sleep hours, days outside its rule) are stepped over; a skip carries the streak across
+ * its period without extending it, and a miss after the last counted period ends it.
+ * {@link Habit#getStreakThrough()} marks the end of the last counted period and the next expected
+ * period is found with a {@link RecurrenceIterator} starting there, so no history is read.
+ * <p>
+ * The engine also ranks active habits by best and current streak in memory. An entry is refreshed
+ * from the habit row after each committed {@link HabitChangeEvent}, so the top streaks are read
+ * without scanning habits.
+ */
+@Service
+public class StreakEngine {
+    private static final Logger logger = LoggerFactory.getLogger(StreakEngine.class);
+
+    public record Entry(long habitId, int streak) {
+    }
+
+    private final HabitRepository habitRepository;
+    private final SleepWindow sleepWindow;
+    private volatile Ranking best = new Ranking();
+    private volatile Ranking current = new Ranking();
+
+    @Autowired
+    public StreakEngine(HabitRepository habitRepository, SleepWindow sleepWindow) {
+        this.habitRepository = habitRepository;
+        this.sleepWindow = sleepWindow;
+    }
+
+    /** Counts a completion of the occurrence scheduled at {@code scheduled} (system time). */
+    public void onCompleted(Habit habit, LocalDateTime scheduled) {
+        Cadence cadence = Cadence.of(habit);
+        ZoneId zone = RecurrenceIterator.zoneOf(habit);
+        long period = cadence.period(toZone(scheduled, zone));
+        Long last = lastPeriod(habit, cadence, zone);
+        if (last != null && period <= last) {
+            // Already counted, or a late completion of an earlier period
+            return;
+        }
+        boolean consecutive = last != null && habit.getCurrentStreak() > 0
+            && period == nextDuePeriod(habit, cadence, zone, last);
+        habit.setCurrentStreak(consecutive ? habit.getCurrentStreak() + 1 : 1);
+        habit.setStreakThrough(fromZone(cadence.start(period + 1), zone));
+    }
+
+    /** Takes back a completion, as far as it was the last period counted. */
+    public void onUncompleted(Habit habit, LocalDateTime scheduled) {
+        Cadence cadence = Cadence.of(habit);
+        ZoneId zone = RecurrenceIterator.zoneOf(habit);
+        long period = cadence.period(toZone(scheduled, zone));
+        Long last = lastPeriod(habit, cadence, zone);
+        if (last != null && period == last && habit.getCurrentStreak() > 0) {
+            habit.setCurrentStreak(habit.getCurrentStreak() - 1);
+            habit.setStreakThrough(fromZone(cadence.start(period), zone));
+        }
+    }
+
+    /** A skipped occurrence keeps the streak alive without extending it. */
+    public void onSkipped(Habit habit, LocalDateTime scheduled) {
+        Cadence cadence = Cadence.of(habit);
+        ZoneId zone = RecurrenceIterator.zoneOf(habit);
+        long period = cadence.period(toZone(scheduled, zone));
+        Long last = lastPeriod(habit, cadence, zone);
+        if (last != null && period <= last) {
+            return;
+        }
+        if (habit.getCurrentStreak() > 0 && (last == null || period != nextDuePeriod(habit, cadence, zone, last))) {
+            habit.setCurrentStreak(0);
+        }
+        habit.setStreakThrough(fromZone(cadence.start(period + 1), zone));
+    }
+
+    /** A missed occurrence after the last counted period ends the streak. */
+    public void onMissed(Habit habit, LocalDateTime scheduled) {
+        LocalDateTime through = streakThrough(habit, Cadence.of(habit), RecurrenceIterator.zoneOf(habit));
+        if (through == null || !scheduled.isBefore(through)) {
+            habit.setCurrentStreak(0);
+        }
+    }
+
+    /** The active habits with the highest best streaks, highest first. */
+    public List<Entry> topBestStreaks(int limit) {
+        return best.top(limit);
+    }
+
+    /** The active habits with the highest current streaks, highest first. */
+    public List<Entry> topCurrentStreaks(int limit) {
+        return current.top(limit);
+    }
+
+    public Optional<Entry> bestStreak() {
+        return best.top(1).stream().findFirst();
+    }
+
+    public int maxCurrentStreak() {
+        return current.top(1).stream().mapToInt(Entry::streak).findFirst().orElse(0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Ranking rebuiltBest = new Ranking();
+        Ranking rebuiltCurrent = new Ranking();
+        for (Object[] row : habitRepository.findActiveStreaks()) {
+            long habitId = ((Number) row[0]).longValue();
+            rebuiltBest.put(habitId, ((Number) row[1]).intValue());
+            rebuiltCurrent.put(habitId, ((Number) row[2]).intValue());
+        }
+        best = rebuiltBest;
+        current = rebuiltCurrent;
+        logger.debug("Ranked streaks of {} active habits", rebuiltBest.size());
+    }
+
+    // Runs before the today-view cache drops its entries, so recomputed stats see the new ranking
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onHabitChange(HabitChangeEvent event) {
+        if (event.type() == HabitChangeEvent.Type.GENERATED) {
+            return;
+        }
+        if (event.habitId() == null) {
+            rebuild();
+            return;
+        }
+        long habitId = event.habitId();
+        Optional<Habit> habit = event.type() == HabitChangeEvent.Type.DELETED
+            ? Optional.empty() : habitRepository.findById(habitId);
+        if (habit.isPresent() && !habit.get().isArchived()) {
+            best.put(habitId, habit.get().getBestStreak());
+            current.put(habitId, habit.get().getCurrentStreak());
+        } else {
+            best.remove(habitId);
+            current.remove(habitId);
+        }
+    }
+
+    private Long lastPeriod(Habit habit, Cadence cadence, ZoneId zone) {
+        LocalDateTime through = streakThrough(habit, cadence, zone);
+        return through == null ? null : cadence.period(toZone(through, zone).minusNanos(1));
+    }
+
+    // Habits whose streak predates streakThrough end it with the period of their last completion
+    private LocalDateTime streakThrough(Habit habit, Cadence cadence, ZoneId zone) {
+        if (habit.getStreakThrough() != null) {
+            return habit.getStreakThrough();
+        }
+        if (habit.getLastCompleted() == null || habit.getCurrentStreak() == 0) {
+            return null;
+        }
+        long period = cadence.period(habit.getLastCompleted().atTime(LocalTime.MAX));
+        return fromZone(cadence.start(period + 1), zone);
+    }
+
+    private long nextDuePeriod(Habit habit, Cadence cadence, ZoneId zone, long last) {
+        return nextDuePeriod(habit, cadence, zone, sleepWindow, last);
+    }
+
+    // First period after 'last' in which the habit is due
+    static long nextDuePeriod(Habit habit, Cadence cadence, ZoneId zone, SleepWindow sleepWindow, long last) {
+        try {
+            RecurrenceIterator occurrences = RecurrenceIterator.startingAt(habit,
+                cadence.start(last + 1).atZone(zone), sleepWindow);
+            return occurrences.hasNext() ? cadence.period(occurrences.next()) : last + 1;
+        } catch (IllegalArgumentException e) {
+            return last + 1;
+        }
+    }
+
+    /** End of the period, in system time, that the system time {@code time} falls in. */
+    static LocalDateTime periodEnd(Cadence cadence, ZoneId zone, LocalDateTime time) {
+        return fromZone(cadence.start(cadence.period(toZone(time, zone)) + 1), zone);
+    }
+
+    static LocalDateTime toZone(LocalDateTime systemTime, ZoneId zone) {
+        return systemTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDateTime();
+    }
+
+    private static LocalDateTime fromZone(LocalDateTime habitTime, ZoneId zone) {
+        return habitTime.atZone(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    /** Numbers the periods of a habit's cadence consecutively, in the habit's zone. */
+    enum Cadence {
+        HOURLY {
+            long period(LocalDateTime time) {
+                return time.toLocalDate().toEpochDay() * 24 + time.getHour();
+            }
+
+            LocalDateTime start(long period) {
+                return LocalDate.ofEpochDay(Math.floorDiv(period, 24)).atTime(Math.floorMod(period, 24), 0);
+            }
+        },
+        DAILY {
+            long period(LocalDateTime time) {
+                return time.toLocalDate().toEpochDay();
+            }
+
+            LocalDateTime start(long period) {
+                return LocalDate.ofEpochDay(period).atStartOfDay();
+            }
+        },
+        WEEKLY {
+            long period(LocalDateTime time) {
+                return RecurrenceRule.periodIndex(Recurrence.WEEKLY, time.toLocalDate());
+            }
+
+            LocalDateTime start(long period) {
+                // Inverse of the Monday-based epoch week
+                return LocalDate.ofEpochDay(period * 7 - 3).atStartOfDay();
+            }
+        },
+        MONTHLY {
+            long period(LocalDateTime time) {
+                return RecurrenceRule.periodIndex(Recurrence.MONTHLY, time.toLocalDate());
+            }
+
+            LocalDateTime start(long period) {
+                return LocalDate.of((int) Math.floorDiv(period, 12), (int) Math.floorMod(period, 12) + 1, 1).atStartOfDay();
+            }
+        },
+        YEARLY {
+            long period(LocalDateTime time) {
+                return time.getYear();
+            }
+
+            LocalDateTime start(long period) {
+                return LocalDate.of((int) period, 1, 1).atStartOfDay();
+            }
+        };
+
+        abstract long period(LocalDateTime time);
+
+        abstract LocalDateTime start(long period);
+
+        static Cadence of(Recurrence recurrence) {
+            return recurrence != null ? valueOf(recurrence.name()) : DAILY;
+        }
+
+        static Cadence of(Habit habit) {
+            Recurrence recurrence = habit.getRecurrence() != null ? habit.getRecurrence() : Recurrence.DAILY;
+            if (habit.getRecurrenceRule() != null && !habit.getRecurrenceRule().isBlank()) {
+                try {
+                    recurrence = RecurrenceRule.compiled(habit).getFrequency();
+                } catch (IllegalArgumentException e) {
+                    // Keep the legacy recurrence
+                }
+            }
+            return valueOf(recurrence.name());
+        }
+    }
+
+    /** Habits ordered by a streak value, highest first. */
+    static final class Ranking {
+        private final ConcurrentSkipListSet<Entry> order = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt(Entry::streak).reversed().thenComparingLong(Entry::habitId));
+        private final ConcurrentHashMap<Long, Entry> byHabit = new ConcurrentHashMap<>();
+
+        void put(long habitId, int streak) {
+            Entry entry = new Entry(habitId, streak);
+            byHabit.compute(habitId, (id, previous) -> {
+                if (previous != null) {
+                    order.remove(previous);
+                }
+                order.add(entry);
+                return entry;
+            });
+        }
+
+        void remove(long habitId) {
+            byHabit.computeIfPresent(habitId, (id, previous) -> {
+                order.remove(previous);
+                return null;
+            });
+        }
+
+        List<Entry> top(int limit) {
+            return order.stream().limit(limit).toList();
+        }
+
+        int size() {
+            return byHabit.size();
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.yourapp.dashboard.productivity_dashboard.service;
 
+import com.yourapp.dashboard.productivity_dashboard.dto.TaskView;
 import com.yourapp.dashboard.productivity_dashboard.model.Habit;
-import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
 import com.yourapp.dashboard.productivity_dashboard.model.MatrixItem;
 import com.yourapp.dashboard.productivity_dashboard.model.Task;
 import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
@@ -24,6 +24,10 @@ import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
+    private static final Set<DataVersionRegistry.Domain> TASK_DATA = EnumSet.of(DataVersionRegistry.Domain.TASKS);
+    private static final Set<DataVersionRegistry.Domain> MATRIX_DATA = EnumSet.of(DataVersionRegistry.Domain.TASKS,
+        DataVersionRegistry.Domain.HABITS, DataVersionRegistry.Domain.LOGS);
+
     @Autowired
     private TaskRepository repo;
 
@@ -33,8 +37,24 @@ public class TaskService {
     @Autowired
     private HabitService habitService;
 
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private DataVersionRegistry dataVersions;
+
+    @Autowired
+    private StaleWhileRevalidate staleReads;
+
     public List<Task> getAllTasks() { return repo.findAll(); }
-    public void saveTask(Task task) { task.setCompleted(false);repo.save(task); }
+    public void saveTask(Task task) {
+        Optional<LocalDateTime> previousDueDate = task.getId() != null ? repo.findDueDateById(task.getId()) : Optional.empty();
+        task.setCompleted(false);
+        repo.save(task);
+        // Saving reopens the task, so the day it was due on loses a completion
+        previousDueDate.ifPresent(rollupService::refreshActivityDay);
+        dataVersions.bump(DataVersionRegistry.Domain.TASKS);
+    }
     
     public Task getTaskById(Long id) {
         return repo.findById(id).orElse(null);
@@ -42,11 +62,14 @@ public class TaskService {
 
 
     public void deleteTask(Long id) {
+        Optional<LocalDateTime> dueDate = repo.findDueDateById(id);
         repo.deleteById(id);
+        dueDate.ifPresent(rollupService::refreshActivityDay);
+        dataVersions.bump(DataVersionRegistry.Domain.TASKS);
     }
 
-    public List<Task> findTasksForToday() {
-        return repo.findByDueDate(LocalDateTime.now());
+    public List<TaskView> findTasksForToday() {
+        return staleReads.get("tasksForToday", TASK_DATA, () -> repo.findViewsByDueDate(LocalDateTime.now()));
     }
     
     public List<Integer> getAvailableYears() {
@@ -64,12 +87,12 @@ public class TaskService {
             ));
     }
     
-    public List<Task> getPendingTasks() {
-        return repo.findByCompleted(false);
+    public List<TaskView> getPendingTasks() {
+        return staleReads.get("pendingTasks", TASK_DATA, () -> repo.findViewsByCompleted(false));
     }
     
-    public List<Task> getCompletedTasks() {
-        return repo.findByCompleted(true);
+    public List<TaskView> getCompletedTasks() {
+        return staleReads.get("completedTasks", TASK_DATA, () -> repo.findViewsByCompleted(true));
     }
     
     public Map<String, List<Task>> getCompletedTasksGroupedByMonth() {
@@ -125,39 +148,32 @@ public class TaskService {
                 task.setCompletionTimestamp(null);
             }
             repo.save(task);
+            rollupService.refreshActivityDay(task.getDueDate());
+            dataVersions.bump(DataVersionRegistry.Domain.TASKS);
         }
     }
 
+    // Indexed by day of week from Sunday = 0, read from the daily rollups
     public long[] countCompletedTasksByDay(LocalDateTime start, LocalDateTime end) {
-        long[] weeklyTasks = new long[7];
-        repo.countCompletedTasksByDay(start, end)
-                .forEach(row -> weeklyTasks[((int) row[0]) - 1] = (long) row[1]);
-        return weeklyTasks;
+        return rollupService.tasksCompletedByDayOfWeek(start.toLocalDate(), end.toLocalDate());
     }
+    // Concurrent page loads share one computation, the result must not be modified
     public Map<String, List<MatrixItem>> getMatrixItems() {
+        return staleReads.get("matrixItems", MATRIX_DATA, this::loadMatrixItems);
+    }
+
+    private Map<String, List<MatrixItem>> loadMatrixItems() {
         LocalDateTime now = LocalDateTime.now();
 
-        // Get incomplete tasks
-        List<Task> tasks = repo.findAll().stream()
-                .filter(t -> !t.isCompleted() && t.getDueDate() != null)
-                .toList();
+        // Incomplete tasks, read straight into matrix items
+        List<MatrixItem> allItems = new ArrayList<>(repo.findOpenMatrixItems());
 
-        // Get habits
+        // Habits at their next upcoming occurrence, looked up for all of them at once
         List<Habit> habits = habitService.getAllHabits();
-
-        // Prepare unified task+habit view model
-        List<MatrixItem> allItems = new ArrayList<>();
-
-        // Convert tasks
-        for (Task task : tasks) {
-            allItems.add(new MatrixItem(task.getTitle(), task.getPriority(), task.getDueDate()));
-        }
-
-        // Convert habits using next upcoming log date
+        Map<Long, LocalDateTime> upcoming = habitService.getNextUpcomingTimes(habits, now);
         for (Habit habit : habits) {
-            List<HabitLog> upcoming = habitService.getUpcomingLogs(habit);
-            if (!upcoming.isEmpty()) {
-                LocalDateTime due = upcoming.get(0).getScheduledDateTime();
+            LocalDateTime due = upcoming.get(habit.getId());
+            if (due != null) {
                 allItems.add(new MatrixItem(habit.getName(), habit.getPriority(), due));
             }
         }
@@ -215,6 +231,8 @@ public class TaskService {
                 .filter(t -> t.getDueDate() != null && t.getDueDate().getYear() == year)
                 .toList();
         repo.deleteAll(tasksToDelete);
+        rollupService.refreshActivityDays(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        dataVersions.bump(DataVersionRegistry.Domain.TASKS);
     }
 
     public void exportTasksForYearToExcel(int year, ServletOutputStream outputStream) throws IOException {
@@ -0,0 +1,137 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.event.HabitChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache for the "today" views of the habit pages (today's habits, habit stats).
+ * <p>
+ * Entries are keyed by view name, local date and time zone, so they roll over at midnight on their
+ * own; views that depend on the current hour are bucketed per hour instead. Every
+ * {@link HabitChangeEvent} clears the cache once the publishing transaction commits, there is no
+ * time-based expiry. A load that overlaps an invalidation is not stored, so a reader never caches
+ * data from before a committed change.
+ */
+@Component
+public class TodayViewCache {
+    private static final Logger logger = LoggerFactory.getLogger(TodayViewCache.class);
+
+    private record Key(String view, LocalDateTime period, ZoneId zone) {
+    }
+
+    private final Map<Key, Object> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+    private final Counter invalidations;
+    private final Counter rollovers;
+
+    public TodayViewCache(MeterRegistry meterRegistry,
+                          @Value("${habit.today-cache.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.invalidations = Counter.builder("habit.today.cache.evictions")
+            .description("Today-view entries dropped from the cache")
+            .tag("cause", "change")
+            .register(meterRegistry);
+        this.rollovers = Counter.builder("habit.today.cache.evictions")
+            .description("Today-view entries dropped from the cache")
+            .tag("cause", "rollover")
+            .register(meterRegistry);
+        Gauge.builder("habit.today.cache.size", entries, Map::size)
+            .description("Today-view entries currently cached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached value of {@code view} for today in {@code zone}, loading it on a miss.
+     * The loader's result must not be modified afterwards, it is shared between requests.
+     */
+    public <T> T get(String view, ZoneId zone, Supplier<T> loader) {
+        return get(view, zone, ChronoUnit.DAYS, loader);
+    }
+
+    /**
+     * Like {@link #get(String, ZoneId, Supplier)}, but starts a new entry every {@code period}
+     * (days or hours) of local time in {@code zone}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String view, ZoneId zone, ChronoUnit period, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(view, LocalDateTime.now(zone).truncatedTo(period), zone);
+        Object cached = entries.get(key);
+        if (cached != null) {
+            counter(hits, "habit.today.cache.hits", view).increment();
+            return (T) cached;
+        }
+        counter(misses, "habit.today.cache.misses", view).increment();
+
+        long seen = generation.get();
+        T value = loader.get();
+        // A stale fallback served while the database was slow is not kept
+        if (value != null && !StaleWhileRevalidate.servedStale()) {
+            dropOtherPeriods(key);
+            entries.put(key, value);
+            // An invalidation ran while we were loading, the value may predate that change
+            if (generation.get() != seen) {
+                entries.remove(key, value);
+            }
+        }
+        return value;
+    }
+
+    // Runs before the version counters move, so a response with the new ETag never gets an old view
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(1)
+    public void onHabitChange(HabitChangeEvent event) {
+        logger.debug("Invalidating today views after {} of habit {}", event.type(), event.habitId());
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        int size = entries.size();
+        entries.clear();
+        if (size > 0) {
+            invalidations.increment(size);
+        }
+    }
+
+    private void dropOtherPeriods(Key key) {
+        entries.keySet().removeIf(existing -> {
+            boolean stale = existing.view().equals(key.view()) && existing.zone().equals(key.zone())
+                && !existing.period().equals(key.period());
+            if (stale) {
+                rollovers.increment();
+            }
+            return stale;
+        });
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String view) {
+        return counters.computeIfAbsent(view, v -> Counter.builder(name)
+            .description("Today-view cache lookups")
+            .tag("view", v)
+            .register(meterRegistry));
+    }
+}
@@ -0,0 +1,148 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Rolling 7, 30 and 90 day totals over per-day counters, plus weekday and hour-of-day totals over
+ * the whole 90 days. Days are kept in a ring buffer; moving to a new day drops the days that leave
+ * each window from its running sums, and correcting a day applies the difference, so neither costs
+ * more than a constant whatever the length of the history. Weekdays are indexed from Sunday = 0.
+ * Not thread-safe.
+ */
+public final class TrendWindow {
+
+    public static final int SPAN = 90;
+    private static final int[] WINDOWS = {7, 30, SPAN};
+    private static final int HOURS = 24;
+
+    private final int[] completed = new int[SPAN];
+    private final int[] resolved = new int[SPAN];
+    private final int[] hours = new int[SPAN * HOURS];
+    private final int[] windowCompleted = new int[WINDOWS.length];
+    private final int[] windowResolved = new int[WINDOWS.length];
+    private final int[] weekdayCompleted = new int[7];
+    private final int[] weekdayResolved = new int[7];
+    private final int[] hourCompleted = new int[HOURS];
+    private long today;
+
+    public TrendWindow(LocalDate today) {
+        this.today = today.toEpochDay();
+    }
+
+    public static int[] windows() {
+        return WINDOWS.clone();
+    }
+
+    public LocalDate getToday() {
+        return LocalDate.ofEpochDay(today);
+    }
+
+    /** The oldest day still inside the 90-day window. */
+    public LocalDate getFirstDay() {
+        return LocalDate.ofEpochDay(today - SPAN + 1);
+    }
+
+    /**
+     * Replaces the counters of {@code day}; days outside the window are ignored.
+     *
+     * @param completedByHour completions per hour of day, or {@code null} for none
+     */
+    public void set(LocalDate day, int dayCompleted, int dayResolved, int[] completedByHour) {
+        long epochDay = day.toEpochDay();
+        long age = today - epochDay;
+        if (age < 0 || age >= SPAN) {
+            return;
+        }
+        int slot = slot(epochDay);
+        int completedDelta = dayCompleted - completed[slot];
+        int resolvedDelta = dayResolved - resolved[slot];
+        completed[slot] = dayCompleted;
+        resolved[slot] = dayResolved;
+        for (int w = 0; w < WINDOWS.length; w++) {
+            if (age < WINDOWS[w]) {
+                windowCompleted[w] += completedDelta;
+                windowResolved[w] += resolvedDelta;
+            }
+        }
+        int weekday = day.getDayOfWeek().getValue() % 7;
+        weekdayCompleted[weekday] += completedDelta;
+        weekdayResolved[weekday] += resolvedDelta;
+        int base = slot * HOURS;
+        for (int hour = 0; hour < HOURS; hour++) {
+            int value = completedByHour != null ? completedByHour[hour] : 0;
+            hourCompleted[hour] += value - hours[base + hour];
+            hours[base + hour] = value;
+        }
+    }
+
+    /** Slides the window forward to {@code newToday}; the days entering it start empty. */
+    public void advanceTo(LocalDate newToday) {
+        long target = newToday.toEpochDay();
+        if (target <= today) {
+            return;
+        }
+        if (target - today >= SPAN) {
+            clear();
+            today = target;
+            return;
+        }
+        while (today < target) {
+            today++;
+            for (int w = 0; w < WINDOWS.length; w++) {
+                int leaving = slot(today - WINDOWS[w]);
+                windowCompleted[w] -= completed[leaving];
+                windowResolved[w] -= resolved[leaving];
+            }
+            // The slot of the day leaving the 90-day window is the one today reuses
+            int slot = slot(today);
+            int weekday = LocalDate.ofEpochDay(today - SPAN).getDayOfWeek().getValue() % 7;
+            weekdayCompleted[weekday] -= completed[slot];
+            weekdayResolved[weekday] -= resolved[slot];
+            int base = slot * HOURS;
+            for (int hour = 0; hour < HOURS; hour++) {
+                hourCompleted[hour] -= hours[base + hour];
+                hours[base + hour] = 0;
+            }
+            completed[slot] = 0;
+            resolved[slot] = 0;
+        }
+    }
+
+    /** Completions in the {@code w}-th window of {@link #windows()}. */
+    public int completed(int w) {
+        return windowCompleted[w];
+    }
+
+    /** Completed, missed and skipped occurrences in the {@code w}-th window of {@link #windows()}. */
+    public int resolved(int w) {
+        return windowResolved[w];
+    }
+
+    public int[] weekdayCompleted() {
+        return weekdayCompleted.clone();
+    }
+
+    public int[] weekdayResolved() {
+        return weekdayResolved.clone();
+    }
+
+    public int[] hourCompleted() {
+        return hourCompleted.clone();
+    }
+
+    private void clear() {
+        Arrays.fill(completed, 0);
+        Arrays.fill(resolved, 0);
+        Arrays.fill(hours, 0);
+        Arrays.fill(windowCompleted, 0);
+        Arrays.fill(windowResolved, 0);
+        Arrays.fill(weekdayCompleted, 0);
+        Arrays.fill(weekdayResolved, 0);
+        Arrays.fill(hourCompleted, 0);
+    }
+
+    private static int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) SPAN);
+    }
+}
@@ -0,0 +1,159 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.dto.Trends;
+import com.yourapp.dashboard.productivity_dashboard.event.RollupChangeEvent;
+import com.yourapp.dashboard.productivity_dashboard.model.DailyActivityRollup;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitDailyRollup;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitHourRollup;
+import com.yourapp.dashboard.productivity_dashboard.repository.DailyActivityRollupRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitDailyRollupRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitHourRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rolling 7/30/90-day completion rates and weekday and hour-of-day patterns of every habit, kept in
+ * memory as one {@link TrendWindow} per habit over the daily rollups. The windows are loaded once,
+ * slide forward a day at a time as the date changes, and reload only the days a
+ * {@link RollupChangeEvent} reports as recounted.
+ */
+@Service
+public class TrendsService {
+
+    private final ActiveHabitRegistry activeHabits;
+    private final HabitDailyRollupRepository dailyRollupRepo;
+    private final HabitHourRollupRepository hourRollupRepo;
+    private final DailyActivityRollupRepository activityRollupRepo;
+
+    private final Map<Long, TrendWindow> windows = new HashMap<>();
+    // Newest day in the windows, null until the first request loads them
+    private LocalDate today;
+
+    @Autowired
+    public TrendsService(ActiveHabitRegistry activeHabits,
+                         HabitDailyRollupRepository dailyRollupRepo,
+                         HabitHourRollupRepository hourRollupRepo,
+                         DailyActivityRollupRepository activityRollupRepo) {
+        this.activeHabits = activeHabits;
+        this.dailyRollupRepo = dailyRollupRepo;
+        this.hourRollupRepo = hourRollupRepo;
+        this.activityRollupRepo = activityRollupRepo;
+    }
+
+    @Transactional(readOnly = true)
+    public Trends trends() {
+        return trends(LocalDate.now());
+    }
+
+    @Transactional(readOnly = true)
+    public synchronized Trends trends(LocalDate now) {
+        if (today == null || now.isBefore(today)) {
+            windows.clear();
+            today = now;
+            reload(null, now.minusDays(TrendWindow.SPAN - 1), now);
+        } else if (now.isAfter(today)) {
+            LocalDate firstNewDay = today.plusDays(1);
+            windows.values().forEach(window -> window.advanceTo(now));
+            today = now;
+            reload(null, firstNewDay, now);
+        }
+
+        int[] days = TrendWindow.windows();
+        List<Trends.HabitTrend> habits = new ArrayList<>();
+        for (Habit habit : activeHabits.activeHabits()) {
+            TrendWindow window = windows.getOrDefault(habit.getId(), new TrendWindow(today));
+            List<Trends.Rate> rates = new ArrayList<>(days.length);
+            for (int w = 0; w < days.length; w++) {
+                rates.add(Trends.Rate.of(days[w], window.completed(w), window.resolved(w)));
+            }
+            habits.add(new Trends.HabitTrend(habit.getId(), habit.getName(), rates,
+                window.weekdayCompleted(), window.weekdayResolved(), window.hourCompleted()));
+        }
+        return new Trends(today, habits, taskRates(days));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRollupChange(RollupChangeEvent event) {
+        if (today == null) {
+            return;
+        }
+        if (event.from() == null) {
+            windows.remove(event.habitId());
+        } else {
+            reload(event.habitId(), event.from(), event.to());
+        }
+    }
+
+    /** Reloads {@code [from, to]}, clamped to the window, for one habit or, with {@code null}, all. */
+    private void reload(Long habitId, LocalDate from, LocalDate to) {
+        LocalDate first = today.minusDays(TrendWindow.SPAN - 1);
+        if (from.isBefore(first)) {
+            from = first;
+        }
+        if (to.isAfter(today)) {
+            to = today;
+        }
+        if (from.isAfter(to)) {
+            return;
+        }
+        List<HabitDailyRollup> dayRows = habitId != null
+            ? dailyRollupRepo.findByHabitIdAndDayBetween(habitId, from, to)
+            : dailyRollupRepo.findByDayBetween(from, to);
+        List<HabitHourRollup> hourRows = habitId != null
+            ? hourRollupRepo.findByHabitIdAndDayBetween(habitId, from, to)
+            : hourRollupRepo.findByDayBetween(from, to);
+
+        Map<Long, Map<LocalDate, HabitDailyRollup>> byHabit = new HashMap<>();
+        for (HabitDailyRollup row : dayRows) {
+            byHabit.computeIfAbsent(row.getHabitId(), id -> new HashMap<>()).put(row.getDay(), row);
+        }
+        Map<Long, Map<LocalDate, int[]>> hoursByHabit = new HashMap<>();
+        for (HabitHourRollup row : hourRows) {
+            hoursByHabit.computeIfAbsent(row.getHabitId(), id -> new HashMap<>())
+                .computeIfAbsent(row.getDay(), day -> new int[24])[row.getHour()] = row.getCompleted();
+        }
+
+        // Days without rows are set too, so counts that dropped to zero are cleared
+        Set<Long> habitIds = new HashSet<>(byHabit.keySet());
+        if (habitId != null) {
+            habitIds.add(habitId);
+        } else {
+            habitIds.addAll(windows.keySet());
+        }
+        for (Long id : habitIds) {
+            TrendWindow window = windows.computeIfAbsent(id, key -> new TrendWindow(today));
+            Map<LocalDate, HabitDailyRollup> daysOfHabit = byHabit.getOrDefault(id, Map.of());
+            Map<LocalDate, int[]> hoursOfHabit = hoursByHabit.getOrDefault(id, Map.of());
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                HabitDailyRollup row = daysOfHabit.get(day);
+                int completed = row != null ? row.getCompleted() : 0;
+                int resolved = row != null ? row.getCompleted() + row.getMissed() + row.getSkipped() : 0;
+                window.set(day, completed, resolved, hoursOfHabit.get(day));
+            }
+        }
+    }
+
+    // A single query of at most 90 rows, cheap enough to run per request
+    private List<Trends.Rate> taskRates(int[] days) {
+        TrendWindow tasks = new TrendWindow(today);
+        for (DailyActivityRollup row : activityRollupRepo.findByDayBetween(tasks.getFirstDay(), today)) {
+            tasks.set(row.getDay(), (int) row.getTasksCompleted(), 0, null);
+        }
+        List<Trends.Rate> rates = new ArrayList<>(days.length);
+        for (int w = 0; w < days.length; w++) {
+            rates.add(new Trends.Rate(days[w], tasks.completed(w), 0, 0));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,36 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Allows at most one habit_log row per habit and scheduled time, so log generation can upsert.
+ */
+public class V20261017_UniqueHabitLogSlot extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new SingleConnectionDataSource(context.getConnection(), true)
+        );
+
+        // Drop duplicate slots, keeping a completed log if there is one, else the oldest
+        jdbcTemplate.execute("""
+            DELETE FROM habit_log
+            WHERE id NOT IN (
+                SELECT id FROM (
+                    SELECT COALESCE(MIN(CASE WHEN completed = TRUE THEN id END), MIN(id)) AS id
+                    FROM habit_log
+                    GROUP BY habit_id, scheduled_date_time
+                ) keep
+            )
+        """);
+
+        jdbcTemplate.execute("""
+            ALTER TABLE habit_log
+            ADD CONSTRAINT uk_habit_log_habit_slot UNIQUE (habit_id, scheduled_date_time)
+        """);
+    }
+}
@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Adds the job_watermark table the missed-occurrence sweeper keeps its progress in.
+ */
+public class V20261018_AddJobWatermark extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new SingleConnectionDataSource(context.getConnection(), true)
+        );
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS job_watermark (
+                name VARCHAR(100) NOT NULL PRIMARY KEY,
+                watermark TIMESTAMP NULL,
+                updated_at TIMESTAMP NULL
+            )
+        """);
+
+        // The sweeper scans habit_log by scheduled time
+        jdbcTemplate.execute("CREATE INDEX idx_habit_log_scheduled ON habit_log (scheduled_date_time)");
+    }
+}
@@ -0,0 +1,32 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Adds the habit_year_bitmap table behind the heatmap API. Rows are built from the logs on first use.
+ */
+public class V20261019_AddHabitYearBitmap extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new SingleConnectionDataSource(context.getConnection(), true)
+        );
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS habit_year_bitmap (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                habit_id BIGINT NOT NULL,
+                bitmap_year INT NOT NULL,
+                hourly BOOLEAN NOT NULL,
+                runs VARBINARY(16384),
+                completed INT NOT NULL,
+                updated_at TIMESTAMP NULL,
+                CONSTRAINT uk_habit_year_bitmap UNIQUE (habit_id, bitmap_year)
+            )
+        """);
+    }
+}
@@ -0,0 +1,40 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Adds the daily rollup tables behind habit stats and the weekly dashboard charts. They are filled
+ * from history when the application first starts with them empty.
+ */
+public class V20261020_AddDailyRollups extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new SingleConnectionDataSource(context.getConnection(), true)
+        );
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS habit_daily_rollup (
+                habit_id BIGINT NOT NULL,
+                rollup_day DATE NOT NULL,
+                completed INT NOT NULL,
+                missed INT NOT NULL,
+                skipped INT NOT NULL,
+                PRIMARY KEY (habit_id, rollup_day)
+            )
+        """);
+        jdbcTemplate.execute("CREATE INDEX idx_habit_daily_rollup_day ON habit_daily_rollup (rollup_day)");
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS daily_activity_rollup (
+                activity_day DATE NOT NULL PRIMARY KEY,
+                tasks_completed BIGINT NOT NULL,
+                focus_minutes BIGINT NOT NULL
+            )
+        """);
+    }
+}
@@ -0,0 +1,31 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Adds the habit_hour_rollup table behind the hour-of-day trends. It is filled from history when
+ * the application first starts with it empty.
+ */
+public class V20261021_AddHabitHourRollup extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new SingleConnectionDataSource(context.getConnection(), true)
+        );
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS habit_hour_rollup (
+                habit_id BIGINT NOT NULL,
+                rollup_day DATE NOT NULL,
+                hour_of_day INT NOT NULL,
+                completed INT NOT NULL,
+                PRIMARY KEY (habit_id, rollup_day, hour_of_day)
+            )
+        """);
+        jdbcTemplate.execute("CREATE INDEX idx_habit_hour_rollup_day ON habit_hour_rollup (rollup_day)");
+    }
+}
@@ -0,0 +1,29 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Adds the habit_reminder_times table now that the reminder times are mapped as an element
+ * collection. The old habit.daily_reminder_times column was never filled by the forms and is left
+ * in place.
+ */
+public class V20261022_AddHabitReminderTimes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new SingleConnectionDataSource(context.getConnection(), true)
+        );
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS habit_reminder_times (
+                habit_id BIGINT NOT NULL,
+                reminder_time TIME
+            )
+        """);
+        jdbcTemplate.execute("CREATE INDEX idx_habit_reminder_times_habit ON habit_reminder_times (habit_id)");
+    }
+}
@@ -0,0 +1,200 @@
+package com.yourapp.dashboard.productivity_dashboard;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.model.JobWatermark;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.JobWatermarkRepository;
+import com.yourapp.dashboard.productivity_dashboard.scheduler.MissedOccurrenceSweeper;
+import com.yourapp.dashboard.productivity_dashboard.scheduler.MissedOccurrenceSweeper.SweepStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the missed-occurrence sweeper against H2 with a fixed clock, checking which logs its chunked
+ * UPDATEs mark, the missed counts and streaks they write to the habits, and how the watermark and
+ * grace periods bound the range it looks at.
+ */
+@SpringBootTest(properties = {
+    "telegram.bot-token=test", "telegram.chat-id=test",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    // Reads go to the database, not to a JVM-wide cache manager another test context may have closed
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+class MissedOccurrenceSweeperIntegrationTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    @Autowired
+    private MissedOccurrenceSweeper sweeper;
+
+    @Autowired
+    private HabitRepository habitRepo;
+
+    @Autowired
+    private HabitLogRepository logRepo;
+
+    @Autowired
+    private JobWatermarkRepository watermarkRepo;
+
+    @BeforeEach
+    void setUp() {
+        logRepo.deleteAllInBatch();
+        habitRepo.deleteAll();
+        watermarkRepo.deleteAll();
+    }
+
+    @Test
+    void firstSweepMarksOverdueOpenLogsAndSetsTheWatermark() {
+        Habit habit = saveHabit(15);
+        HabitLog overdue = saveLog(habit, NOW.minusHours(2));
+        HabitLog completed = saveLog(habit, NOW.minusHours(3));
+        completed.setCompleted(true);
+        logRepo.save(completed);
+        HabitLog skipped = saveLog(habit, NOW.minusHours(4));
+        skipped.setSkipped(true);
+        logRepo.save(skipped);
+        HabitLog inGrace = saveLog(habit, NOW.minusMinutes(10));
+        // Older than the 90 days a first sweep looks back
+        HabitLog tooOld = saveLog(habit, NOW.minusDays(91));
+
+        SweepStats stats = sweeper.sweep(NOW);
+
+        assertEquals(1, stats.logsMarked());
+        assertTrue(reload(overdue).getMissed());
+        assertEquals(NOW, reload(overdue).getMissedDateTime());
+        assertFalse(reload(completed).getMissed());
+        assertFalse(reload(skipped).getMissed());
+        assertFalse(reload(inGrace).getMissed());
+        assertFalse(reload(tooOld).getMissed());
+        assertEquals(1, reload(habit).getMissedCount());
+        assertEquals(NOW, sweeper.getWatermark());
+    }
+
+    @Test
+    void logIsOverdueOnlyOnceItsGracePeriodHasPassed() {
+        Habit habit = saveHabit(30);
+        HabitLog atBoundary = saveLog(habit, NOW.minusMinutes(30));
+        HabitLog pastBoundary = saveLog(habit, NOW.minusMinutes(30).minusSeconds(1));
+
+        assertEquals(1, sweeper.sweep(NOW).logsMarked());
+        assertFalse(reload(atBoundary).getMissed());
+        assertTrue(reload(pastBoundary).getMissed());
+
+        assertEquals(1, sweeper.sweep(NOW.plusSeconds(1)).logsMarked());
+        assertTrue(reload(atBoundary).getMissed());
+        assertEquals(2, reload(habit).getMissedCount());
+    }
+
+    @Test
+    void sweepStartsAtTheWatermarkLessTheOverlapAndGracePeriod() {
+        Habit habit = saveHabit(15);
+        watermarkRepo.save(new JobWatermark("missed-occurrence-sweeper", NOW.minusHours(2)));
+        // The range starts at 12:00 - 2h - 60 min overlap - 15 min grace = 08:45
+        HabitLog beforeRange = saveLog(habit, NOW.minusHours(3).minusMinutes(16));
+        HabitLog inOverlap = saveLog(habit, NOW.minusHours(3).minusMinutes(14));
+
+        SweepStats stats = sweeper.sweep(NOW);
+
+        assertEquals(1, stats.logsMarked());
+        assertEquals(1, stats.chunks());
+        assertFalse(reload(beforeRange).getMissed());
+        assertTrue(reload(inOverlap).getMissed());
+
+        // Sweeping the overlap again neither marks nor counts the log twice
+        assertEquals(0, sweeper.sweep(NOW.plusMinutes(5)).logsMarked());
+        assertEquals(1, reload(habit).getMissedCount());
+    }
+
+    @Test
+    void everyChunkOfEveryGracePeriodIsSwept() {
+        Habit quick = saveHabit(15);
+        Habit slow = saveHabit(120);
+        HabitLog weeksAgo = saveLog(quick, NOW.minusDays(40));
+        HabitLog daysAgo = saveLog(quick, NOW.minusDays(3).plusHours(5));
+        HabitLog hoursAgo = saveLog(slow, NOW.minusHours(3));
+        HabitLog stillInGrace = saveLog(slow, NOW.minusMinutes(90));
+
+        SweepStats stats = sweeper.sweep(NOW);
+
+        assertEquals(2, stats.gracePeriods());
+        // 90 days of one-day chunks per grace period
+        assertEquals(180, stats.chunks());
+        assertEquals(3, stats.logsMarked());
+        assertTrue(reload(weeksAgo).getMissed());
+        assertTrue(reload(daysAgo).getMissed());
+        assertTrue(reload(hoursAgo).getMissed());
+        assertFalse(reload(stillInGrace).getMissed());
+        assertEquals(2, reload(quick).getMissedCount());
+        assertEquals(1, reload(slow).getMissedCount());
+    }
+
+    @Test
+    void missAfterTheCountedPeriodsEndsTheStreak() {
+        Habit broken = saveHabit(15);
+        broken.setCurrentStreak(3);
+        broken.setStreakThrough(NOW.truncatedTo(ChronoUnit.DAYS).minusDays(1));
+        habitRepo.save(broken);
+        saveLog(broken, NOW.minusHours(3));
+        // A miss inside the last counted period, e.g. an earlier slot of a day already completed
+        Habit kept = saveHabit(15);
+        kept.setCurrentStreak(3);
+        kept.setStreakThrough(NOW.truncatedTo(ChronoUnit.DAYS).plusDays(1));
+        habitRepo.save(kept);
+        saveLog(kept, NOW.minusHours(3));
+
+        assertEquals(2, sweeper.sweep(NOW).logsMarked());
+        assertEquals(0, reload(broken).getCurrentStreak());
+        assertEquals(3, reload(kept).getCurrentStreak());
+    }
+
+    @Test
+    void archivedHabitsAreLeftAlone() {
+        Habit habit = saveHabit(15);
+        habit.setArchived(true);
+        habitRepo.save(habit);
+        HabitLog log = saveLog(habit, NOW.minusHours(2));
+
+        assertEquals(0, sweeper.sweep(NOW).logsMarked());
+        assertFalse(reload(log).getMissed());
+        assertEquals(0, reload(habit).getMissedCount());
+    }
+
+    private Habit saveHabit(int gracePeriodMinutes) {
+        Habit habit = new Habit();
+        habit.setName("Grace " + gracePeriodMinutes);
+        habit.setGracePeriodMinutes(gracePeriodMinutes);
+        return habitRepo.save(habit);
+    }
+
+    private HabitLog saveLog(Habit habit, LocalDateTime scheduled) {
+        HabitLog log = new HabitLog();
+        log.setHabit(habit);
+        log.setScheduledDateTime(scheduled);
+        log.setCompleted(false);
+        log.setMissed(false);
+        log.setSkipped(false);
+        log.setTimeZone(habit.getTimeZone());
+        return logRepo.save(log);
+    }
+
+    private HabitLog reload(HabitLog log) {
+        return logRepo.findById(log.getId()).orElseThrow();
+    }
+
+    private Habit reload(Habit habit) {
+        return habitRepo.findById(habit.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,172 @@
+package com.yourapp.dashboard.productivity_dashboard;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Task;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepositoryCustom;
+import com.yourapp.dashboard.productivity_dashboard.repository.TaskRepository;
+import com.yourapp.dashboard.productivity_dashboard.service.TaskService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts database loads with Hibernate statistics to check that the l2cache profile serves repeated
+ * reads of habits, their reminder times, tasks and the cacheable queries from memory, and that
+ * writes are not hidden by it.
+ */
+@SpringBootTest(properties = {
+    "telegram.bot-token=test", "telegram.chat-id=test",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("l2cache")
+class SecondLevelCacheIntegrationTests {
+
+    private static final String REMINDER_TIMES = Habit.class.getName() + ".dailyReminderTimes";
+
+    @Autowired
+    private HabitRepository habitRepo;
+
+    @Autowired
+    private TaskRepository taskRepo;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        tx = new TransactionTemplate(transactionManager);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void habitAndReminderTimesAreLoadedOnce() {
+        Long id = saveHabit("Stretch", List.of(LocalTime.of(8, 0), LocalTime.of(20, 0))).getId();
+        entityManagerFactory.getCache().evictAll();
+
+        long habitLoads = habitLoads();
+        long reminderLoads = reminderTimeLoads();
+        assertEquals(2, readReminderTimes(id));
+        assertEquals(habitLoads + 1, habitLoads());
+        assertEquals(reminderLoads + 1, reminderTimeLoads());
+
+        assertEquals(2, readReminderTimes(id));
+        assertEquals(2, readReminderTimes(id));
+        assertEquals(habitLoads + 1, habitLoads());
+        assertEquals(reminderLoads + 1, reminderTimeLoads());
+    }
+
+    @Test
+    void habitUpdatesAreVisibleWithoutReloading() {
+        Long id = saveHabit("Read", List.of()).getId();
+        tx.executeWithoutResult(status -> habitRepo.findById(id).orElseThrow().setName("Read more"));
+
+        long habitLoads = habitLoads();
+        assertEquals("Read more", tx.execute(status -> habitRepo.findById(id).orElseThrow().getName()));
+        assertEquals(habitLoads, habitLoads());
+    }
+
+    @Test
+    void streaksWrittenWithJdbcEvictTheHabit() {
+        Long id = saveHabit("Walk", List.of()).getId();
+        habitRepo.findById(id);
+
+        habitRepo.updateStreaks(List.of(new HabitRepositoryCustom.StreakUpdate(id, 3, 5, null)));
+
+        long habitLoads = habitLoads();
+        assertEquals(3, habitRepo.findById(id).orElseThrow().getCurrentStreak());
+        assertEquals(habitLoads + 1, habitLoads());
+    }
+
+    @Test
+    void taskIsLoadedOnce() {
+        Long id = saveTask("Pay rent", false).getId();
+        entityManagerFactory.getCache().evictAll();
+
+        long taskLoads = taskLoads();
+        assertEquals("Pay rent", taskService.getTaskById(id).getTitle());
+        assertEquals("Pay rent", taskService.getTaskById(id).getTitle());
+        assertEquals(taskLoads + 1, taskLoads());
+    }
+
+    @Test
+    void cachedTaskQueryIsInvalidatedByWrites() {
+        saveTask("Call bank", false);
+        int pending = taskRepo.findByCompleted(false).size();
+        long misses = taskQueryMisses();
+        long hits = taskQueryHits();
+
+        assertEquals(pending, taskRepo.findByCompleted(false).size());
+        assertEquals(misses, taskQueryMisses());
+        assertEquals(hits + 1, taskQueryHits());
+
+        saveTask("Renew passport", false);
+        assertEquals(pending + 1, taskRepo.findByCompleted(false).size());
+        assertEquals(misses + 1, taskQueryMisses());
+    }
+
+    private Habit saveHabit(String name, List<LocalTime> reminderTimes) {
+        Habit habit = new Habit();
+        habit.setName(name);
+        habit.setDailyReminderTimes(reminderTimes);
+        return habitRepo.save(habit);
+    }
+
+    private Task saveTask(String title, boolean completed) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDueDate(LocalDateTime.now().plusDays(1));
+        task.setCompleted(completed);
+        return taskRepo.save(task);
+    }
+
+    private int readReminderTimes(Long id) {
+        return tx.execute(status -> habitRepo.findById(id).orElseThrow().getDailyReminderTimes().size());
+    }
+
+    private long habitLoads() {
+        return statistics.getEntityStatistics(Habit.class.getName()).getLoadCount();
+    }
+
+    private long reminderTimeLoads() {
+        return statistics.getCollectionStatistics(REMINDER_TIMES).getLoadCount();
+    }
+
+    private long taskLoads() {
+        return statistics.getEntityStatistics(Task.class.getName()).getLoadCount();
+    }
+
+    private long taskQueryHits() {
+        return statistics.getQueryRegionStatistics("task-queries").getHitCount();
+    }
+
+    private long taskQueryMisses() {
+        return statistics.getQueryRegionStatistics("task-queries").getMissCount();
+    }
+}
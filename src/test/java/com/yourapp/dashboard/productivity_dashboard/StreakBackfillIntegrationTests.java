@@ -0,0 +1,159 @@
+package com.yourapp.dashboard.productivity_dashboard;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepository;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepository;
+import com.yourapp.dashboard.productivity_dashboard.service.StreakBackfill;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the streak backfill on H2. Habits in the server's zone that are due every period go through
+ * the gaps-and-islands query, hourly habits and habits in another zone through the streamed fold,
+ * and both have to end up with the streaks {@code StreakEngine} would have kept.
+ */
+@SpringBootTest(properties = {
+    "telegram.bot-token=test", "telegram.chat-id=test",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    // Reads go to the database, not to a JVM-wide cache manager another test context may have closed
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+class StreakBackfillIntegrationTests {
+
+    // Far enough from any server zone that the fold is used for habits in it
+    private static final String OTHER_ZONE = ZoneId.systemDefault().getId().equals("Pacific/Kiritimati")
+        ? "Pacific/Pago_Pago" : "Pacific/Kiritimati";
+
+    @Autowired
+    private HabitRepository habitRepo;
+
+    @Autowired
+    private HabitLogRepository logRepo;
+
+    @Autowired
+    private StreakBackfill streakBackfill;
+
+    @Test
+    void islandsQueryIsUsedOnH2() {
+        assertTrue(logRepo.supportsStreakIslands());
+        streakBackfill.run();
+        assertEquals("islands+stream", streakBackfill.getProgress().mode());
+    }
+
+    @Test
+    void dayWithoutALogEndsTheStreakInBothPaths() {
+        for (String zone : new String[] {ZoneId.systemDefault().getId(), OTHER_ZONE}) {
+            Habit habit = saveHabit(Recurrence.DAILY, zone);
+            saveLog(habit, "2026-03-02T09:00", true, false, false);
+            saveLog(habit, "2026-03-03T09:00", true, false, false);
+            saveLog(habit, "2026-03-04T09:00", true, false, false);
+            // Nothing on 5 March
+            saveLog(habit, "2026-03-06T09:00", true, false, false);
+            saveLog(habit, "2026-03-07T09:00", true, false, false);
+
+            Habit backfilled = backfill(habit);
+            assertEquals(2, backfilled.getCurrentStreak(), zone);
+            assertEquals(3, backfilled.getBestStreak(), zone);
+        }
+    }
+
+    @Test
+    void openDayBeforeACompletionEndsTheStreakButATrailingOneDoesNot() {
+        Habit habit = saveHabit(Recurrence.DAILY, ZoneId.systemDefault().getId());
+        saveLog(habit, "2026-03-02T09:00", true, false, false);
+        saveLog(habit, "2026-03-03T09:00", false, false, false);
+        saveLog(habit, "2026-03-04T09:00", true, false, false);
+        saveLog(habit, "2026-03-05T09:00", true, false, false);
+        saveLog(habit, "2026-03-06T09:00", false, false, false);
+
+        Habit backfilled = backfill(habit);
+        assertEquals(2, backfilled.getCurrentStreak());
+        assertEquals(2, backfilled.getBestStreak());
+        assertEquals(LocalDateTime.parse("2026-03-06T00:00"), backfilled.getStreakThrough());
+    }
+
+    @Test
+    void skipCarriesTheStreakAndAMissEndsIt() {
+        Habit habit = saveHabit(Recurrence.DAILY, ZoneId.systemDefault().getId());
+        saveLog(habit, "2026-03-02T09:00", true, false, false);
+        saveLog(habit, "2026-03-03T09:00", false, true, false);
+        saveLog(habit, "2026-03-04T09:00", true, false, false);
+        saveLog(habit, "2026-03-05T09:00", false, false, true);
+
+        Habit backfilled = backfill(habit);
+        assertEquals(0, backfilled.getCurrentStreak());
+        assertEquals(2, backfilled.getBestStreak());
+        assertNull(backfilled.getStreakThrough());
+    }
+
+    @Test
+    void weeklyAndMonthlyPeriodsAreConsecutiveAcrossTheYearEnd() {
+        Habit weekly = saveHabit(Recurrence.WEEKLY, ZoneId.systemDefault().getId());
+        saveLog(weekly, "2025-12-22T09:00", true, false, false);
+        saveLog(weekly, "2025-12-29T09:00", true, false, false);
+        saveLog(weekly, "2026-01-05T09:00", true, false, false);
+        Habit monthly = saveHabit(Recurrence.MONTHLY, ZoneId.systemDefault().getId());
+        saveLog(monthly, "2025-11-30T09:00", true, false, false);
+        saveLog(monthly, "2025-12-31T09:00", true, false, false);
+        saveLog(monthly, "2026-01-31T09:00", true, false, false);
+        saveLog(monthly, "2026-03-31T09:00", true, false, false);
+
+        streakBackfill.run();
+        assertEquals(3, habitRepo.findById(weekly.getId()).orElseThrow().getCurrentStreak());
+        Habit backfilledMonthly = habitRepo.findById(monthly.getId()).orElseThrow();
+        assertEquals(1, backfilledMonthly.getCurrentStreak());
+        assertEquals(3, backfilledMonthly.getBestStreak());
+    }
+
+    @Test
+    void hourlyHabitsStepOverTheSleepWindow() {
+        Habit habit = saveHabit(Recurrence.HOURLY, ZoneId.systemDefault().getId());
+        saveLog(habit, "2026-03-02T22:00", true, false, false);
+        saveLog(habit, "2026-03-02T23:00", true, false, false);
+        // 00:00 to 05:00 are inside the sleep window
+        saveLog(habit, "2026-03-03T06:00", true, false, false);
+
+        assertEquals(3, backfill(habit).getCurrentStreak());
+    }
+
+    private Habit backfill(Habit habit) {
+        streakBackfill.run();
+        return habitRepo.findById(habit.getId()).orElseThrow();
+    }
+
+    private Habit saveHabit(Recurrence recurrence, String zone) {
+        Habit habit = new Habit();
+        habit.setName(recurrence + " in " + zone);
+        habit.setRecurrence(recurrence);
+        habit.setScheduledTime(LocalTime.of(9, 0));
+        habit.setWeeklyDay(DayOfWeek.MONDAY);
+        habit.setMonthlyDay(31);
+        habit.setTimeZone(zone);
+        return habitRepo.save(habit);
+    }
+
+    private void saveLog(Habit habit, String scheduled, boolean completed, boolean skipped, boolean missed) {
+        HabitLog log = new HabitLog();
+        log.setHabit(habit);
+        log.setScheduledDateTime(LocalDateTime.parse(scheduled));
+        log.setCompleted(completed);
+        log.setSkipped(skipped);
+        log.setMissed(missed);
+        log.setTimeZone(habit.getTimeZone());
+        logRepo.save(log);
+    }
+}
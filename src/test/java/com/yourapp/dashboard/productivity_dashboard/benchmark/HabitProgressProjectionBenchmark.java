@@ -0,0 +1,183 @@
+package com.yourapp.dashboard.productivity_dashboard.benchmark;
+
+import com.yourapp.dashboard.productivity_dashboard.dto.HabitProgressView;
+import com.yourapp.dashboard.productivity_dashboard.service.HabitProgressProjectionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading the habit page's progress the old way against the single grouped
+ * {@code countProgressByActiveHabit} query, on an in-memory H2 database over JDBC.
+ * <p>
+ * {@code pageLoop} is the old {@code HabitController.viewHabits}: for every habit it ran a whole
+ * pass of per-habit queries and kept only that habit's entry, so a page cost N passes.
+ * {@code perHabitQueries} is one such pass and {@code singleQuery} runs the grouped query once. All
+ * build the views with {@link HabitProgressProjectionService#project}. In-process H2 has no network
+ * round trip, so the per-habit sides are a lower bound for a real database. Run with
+ * {@code mvn -Pbenchmark test -Dbenchmark=HabitProgressProjection}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HabitProgressProjectionBenchmark {
+
+    private static final String[] RECURRENCES = {"HOURLY", "DAILY", "WEEKLY", "MONTHLY", "YEARLY"};
+
+    // Same shape as HabitLogRepository.countProgressByActiveHabit
+    private static final String GROUPED = "SELECT h.id, COUNT(l.id), SUM(CASE WHEN l.completed THEN 1 ELSE 0 END) " +
+        "FROM habit_log l JOIN habit h ON h.id = l.habit_id WHERE h.archived = FALSE AND l.scheduled_date_time < ? AND (" +
+        "(h.recurrence = 'HOURLY' AND l.scheduled_date_time >= ?) OR " +
+        "(h.recurrence = 'DAILY' AND l.scheduled_date_time >= ?) OR " +
+        "(h.recurrence = 'WEEKLY' AND l.scheduled_date_time >= ?) OR " +
+        "(h.recurrence IN ('MONTHLY', 'YEARLY') AND l.scheduled_date_time >= ?)) " +
+        "GROUP BY h.id";
+
+    private static final String PER_HABIT = "SELECT COUNT(id), SUM(CASE WHEN completed THEN 1 ELSE 0 END) " +
+        "FROM habit_log WHERE habit_id = ? AND scheduled_date_time >= ? AND scheduled_date_time < ?";
+
+    // The page loop is quadratic, larger pages take minutes per invocation
+    @Param({"50", "100", "250"})
+    public int habitCount;
+
+    private Connection connection;
+    private List<Long> habitIds;
+    private List<String> recurrences;
+    private Timestamp dayStart;
+    private Timestamp weekStart;
+    private Timestamp monthStart;
+    private Timestamp yearStart;
+    private Timestamp end;
+
+    @Setup
+    public void setUp() throws SQLException {
+        // H2 would otherwise hand back the previous result of an unchanged query without running it
+        connection = DriverManager.getConnection("jdbc:h2:mem:progress-" + habitCount + ";OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE habit (id BIGINT PRIMARY KEY, recurrence VARCHAR(16), archived BOOLEAN)");
+            statement.execute("CREATE TABLE habit_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, habit_id BIGINT, " +
+                "scheduled_date_time TIMESTAMP, completed BOOLEAN)");
+            statement.execute("CREATE INDEX idx_habit_log_habit_time ON habit_log (habit_id, scheduled_date_time)");
+            statement.execute("CREATE INDEX idx_habit_log_time ON habit_log (scheduled_date_time)");
+        }
+
+        LocalDate today = LocalDate.now();
+        dayStart = Timestamp.valueOf(today.atStartOfDay());
+        weekStart = Timestamp.valueOf(today.with(DayOfWeek.MONDAY).atStartOfDay());
+        monthStart = Timestamp.valueOf(today.withDayOfMonth(1).atStartOfDay());
+        yearStart = Timestamp.valueOf(today.withDayOfYear(1).atStartOfDay());
+        end = Timestamp.valueOf(today.plusDays(1).atStartOfDay());
+
+        habitIds = new ArrayList<>(habitCount);
+        recurrences = new ArrayList<>(habitCount);
+        try (PreparedStatement habits = connection.prepareStatement("INSERT INTO habit VALUES (?, ?, FALSE)");
+             PreparedStatement logs = connection.prepareStatement(
+                 "INSERT INTO habit_log (habit_id, scheduled_date_time, completed) VALUES (?, ?, ?)")) {
+            for (long id = 1; id <= habitCount; id++) {
+                String recurrence = RECURRENCES[(int) (id % RECURRENCES.length)];
+                habitIds.add(id);
+                recurrences.add(recurrence);
+                habits.setLong(1, id);
+                habits.setString(2, recurrence);
+                habits.addBatch();
+                // A day of hourly logs, otherwise one log a day for the last 30 days
+                int count = recurrence.equals("HOURLY") ? 24 : 30;
+                for (int i = 0; i < count; i++) {
+                    LocalDateTime at = recurrence.equals("HOURLY")
+                        ? today.atStartOfDay().plusHours(i)
+                        : today.minusDays(i).atTime(9, 0);
+                    logs.setLong(1, id);
+                    logs.setTimestamp(2, Timestamp.valueOf(at));
+                    logs.setBoolean(3, (id + i) % 2 == 0);
+                    logs.addBatch();
+                }
+            }
+            habits.executeBatch();
+            logs.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void singleQuery(Blackhole blackhole) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(habitCount);
+        try (PreparedStatement query = connection.prepareStatement(GROUPED)) {
+            query.setTimestamp(1, end);
+            query.setTimestamp(2, dayStart);
+            query.setTimestamp(3, weekStart);
+            query.setTimestamp(4, monthStart);
+            query.setTimestamp(5, yearStart);
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    rows.add(new Object[] {result.getLong(1), result.getLong(2), result.getLong(3)});
+                }
+            }
+        }
+        consume(blackhole, HabitProgressProjectionService.project(habitIds, rows));
+    }
+
+    @Benchmark
+    public void perHabitQueries(Blackhole blackhole) throws SQLException {
+        consume(blackhole, HabitProgressProjectionService.project(habitIds, perHabitRows()));
+    }
+
+    @Benchmark
+    public void pageLoop(Blackhole blackhole) throws SQLException {
+        for (Long habitId : habitIds) {
+            blackhole.consume(HabitProgressProjectionService.project(habitIds, perHabitRows()).get(habitId));
+        }
+    }
+
+    private List<Object[]> perHabitRows() throws SQLException {
+        List<Object[]> rows = new ArrayList<>(habitCount);
+        try (PreparedStatement query = connection.prepareStatement(PER_HABIT)) {
+            for (int i = 0; i < habitIds.size(); i++) {
+                query.setLong(1, habitIds.get(i));
+                query.setTimestamp(2, periodStart(recurrences.get(i)));
+                query.setTimestamp(3, end);
+                try (ResultSet result = query.executeQuery()) {
+                    if (result.next() && result.getLong(1) > 0) {
+                        rows.add(new Object[] {habitIds.get(i), result.getLong(1), result.getLong(2)});
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private Timestamp periodStart(String recurrence) {
+        return switch (recurrence) {
+            case "HOURLY" -> dayStart;
+            case "DAILY" -> weekStart;
+            case "WEEKLY" -> monthStart;
+            default -> yearStart;
+        };
+    }
+
+    private void consume(Blackhole blackhole, Map<Long, HabitProgressView> views) {
+        for (Long habitId : habitIds) {
+            blackhole.consume(views.get(habitId));
+        }
+    }
+}
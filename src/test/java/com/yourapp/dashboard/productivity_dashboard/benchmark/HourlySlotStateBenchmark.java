@@ -0,0 +1,75 @@
+package com.yourapp.dashboard.productivity_dashboard.benchmark;
+
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.service.HourlySlotState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding each hour's log of an hourly habit by scanning the day's logs (the old
+ * {@code processHourlyHabit} / {@code getUpcomingLogs} loops) with indexing them once into an
+ * {@link HourlySlotState}. Allocation is the interesting number, run with the GC profiler:
+ * {@code mvn -Pbenchmark test -Dbenchmark="HourlySlotState -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HourlySlotStateBenchmark {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    // How many of the 24 hours already have a log
+    @Param({"6", "24"})
+    public int existingLogs;
+
+    private LocalDate day;
+    private List<HabitLog> logs;
+
+    @Setup
+    public void setUp() {
+        day = LocalDate.of(2025, 3, 10);
+        logs = new ArrayList<>(existingLogs);
+        for (int hour = 0; hour < existingLogs; hour++) {
+            HabitLog log = new HabitLog();
+            log.setScheduledDateTime(HourlySlotState.empty(day, IST).systemTimeOf(hour));
+            log.setCompleted(hour % 3 == 0);
+            logs.add(log);
+        }
+    }
+
+    @Benchmark
+    public void streamScanPerHour(Blackhole blackhole) {
+        LocalDateTime midnight = day.atStartOfDay();
+        for (int hour = 0; hour < HourlySlotState.HOURS; hour++) {
+            final LocalDateTime scheduledTime = midnight.plusHours(hour);
+            Optional<HabitLog> existingLog = logs.stream()
+                .filter(log -> {
+                    ZonedDateTime logTime = log.getScheduledDateTime().atZone(ZoneId.systemDefault())
+                        .withZoneSameInstant(IST);
+                    return logTime.toLocalDateTime().equals(scheduledTime);
+                })
+                .findFirst();
+            blackhole.consume(existingLog.orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void slotState(Blackhole blackhole) {
+        HourlySlotState slots = HourlySlotState.of(day, IST, logs);
+        for (int hour = 0; hour < HourlySlotState.HOURS; hour++) {
+            blackhole.consume(slots.get(hour));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.yourapp.dashboard.productivity_dashboard.benchmark;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.service.RecurrenceIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks one year of a habit's occurrences with {@link RecurrenceIterator}, against the day-by-day
+ * scan {@code HabitProcessingService} used before, which checked every day of the range.
+ * Run with {@code mvn -Pbenchmark test -Dbenchmark="RecurrenceIterator -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecurrenceIteratorBenchmark {
+
+    @Param({"DAILY", "WEEKLY", "MONTHLY"})
+    public Recurrence recurrence;
+
+    private Habit habit;
+    private ZoneId zone;
+    private ZonedDateTime start;
+    private ZonedDateTime end;
+
+    @Setup
+    public void setUp() {
+        habit = new Habit();
+        habit.setRecurrence(recurrence);
+        habit.setTimeZone("Asia/Kolkata");
+        habit.setScheduledTime(LocalTime.of(9, 0));
+        habit.setWeeklyDay(DayOfWeek.MONDAY);
+        habit.setMonthlyDay(31);
+        habit.setAllowMultipleDaily(true);
+        habit.setDailyReminderTimes(List.of(LocalTime.of(8, 0), LocalTime.of(13, 0), LocalTime.of(20, 0)));
+        zone = ZoneId.of(habit.getTimeZone());
+        start = LocalDate.of(2025, 1, 1).atStartOfDay(zone);
+        end = start.plusYears(1);
+    }
+
+    @Benchmark
+    public void iterator(Blackhole blackhole) {
+        RecurrenceIterator occurrences = RecurrenceIterator.startingAt(habit, start, null);
+        LocalDateTime limit = end.toLocalDateTime();
+        while (occurrences.hasNext()) {
+            LocalDateTime occurrence = occurrences.next();
+            if (!occurrence.isBefore(limit)) {
+                break;
+            }
+            blackhole.consume(occurrence);
+        }
+    }
+
+    @Benchmark
+    public void dayScan(Blackhole blackhole) {
+        List<LocalTime> times = recurrence == Recurrence.DAILY
+            ? habit.getDailyReminderTimes() : List.of(habit.getScheduledTime());
+        for (LocalDate day = start.toLocalDate(); day.isBefore(end.toLocalDate()); day = day.plusDays(1)) {
+            if (!isDueOn(day)) {
+                continue;
+            }
+            for (LocalTime time : times) {
+                blackhole.consume(day.atTime(time).atZone(zone));
+            }
+        }
+    }
+
+    private boolean isDueOn(LocalDate day) {
+        switch (recurrence) {
+            case WEEKLY:
+                return day.getDayOfWeek() == habit.getWeeklyDay();
+            case MONTHLY:
+                return day.getDayOfMonth() == Math.min(habit.getMonthlyDay(), day.lengthOfMonth());
+            default:
+                return true;
+        }
+    }
+}
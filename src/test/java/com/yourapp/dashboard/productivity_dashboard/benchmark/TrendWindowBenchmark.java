@@ -0,0 +1,126 @@
+package com.yourapp.dashboard.productivity_dashboard.benchmark;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import com.yourapp.dashboard.productivity_dashboard.service.TrendWindow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares working out 7/30/90-day rates and weekday/hour patterns of every habit by scanning three
+ * years of synthetic logs per request with keeping a {@link TrendWindow} per habit and sliding it one
+ * day. {@code mvn -Pbenchmark test -Dbenchmark=TrendWindow}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendWindowBenchmark {
+
+    private static final int HISTORY_DAYS = 3 * 365;
+    private static final int[] WINDOWS = TrendWindow.windows();
+
+    @Param({"10", "100"})
+    public int habits;
+
+    private LocalDate firstDay;
+    private List<HabitLog> logs;
+    // Synthetic per-day counters, [habit][day]
+    private int[][] completed;
+    private int[][] resolved;
+    private int[][][] completedByHour;
+    private TrendWindow[] windows;
+    private int nextDay;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        firstDay = LocalDate.of(2022, 1, 1);
+        logs = new ArrayList<>(habits * HISTORY_DAYS);
+        completed = new int[habits][HISTORY_DAYS];
+        resolved = new int[habits][HISTORY_DAYS];
+        completedByHour = new int[habits][HISTORY_DAYS][];
+        for (int h = 0; h < habits; h++) {
+            Habit habit = new Habit();
+            habit.setId((long) h);
+            for (int d = 0; d < HISTORY_DAYS; d++) {
+                boolean done = random.nextInt(100) < 70;
+                int hour = 6 + random.nextInt(16);
+                HabitLog log = new HabitLog();
+                log.setHabit(habit);
+                log.setScheduledDateTime(firstDay.plusDays(d).atTime(hour, 0));
+                log.setCompleted(done);
+                log.setMissed(!done);
+                logs.add(log);
+                completed[h][d] = done ? 1 : 0;
+                resolved[h][d] = 1;
+                if (done) {
+                    completedByHour[h][d] = new int[24];
+                    completedByHour[h][d][hour] = 1;
+                }
+            }
+        }
+        windows = new TrendWindow[habits];
+        for (int h = 0; h < habits; h++) {
+            windows[h] = new TrendWindow(firstDay);
+            for (int d = 0; d < HISTORY_DAYS; d++) {
+                windows[h].advanceTo(firstDay.plusDays(d));
+                windows[h].set(firstDay.plusDays(d), completed[h][d], resolved[h][d], completedByHour[h][d]);
+            }
+        }
+        nextDay = HISTORY_DAYS;
+    }
+
+    @Benchmark
+    public void scanLogs(Blackhole blackhole) {
+        LocalDateTime end = firstDay.plusDays(HISTORY_DAYS).atStartOfDay();
+        Map<Long, int[]> totals = new HashMap<>();
+        for (HabitLog log : logs) {
+            int[] habitTotals = totals.computeIfAbsent(log.getHabit().getId(), id -> new int[2 * WINDOWS.length + 14 + 24]);
+            LocalDateTime scheduled = log.getScheduledDateTime();
+            for (int w = 0; w < WINDOWS.length; w++) {
+                if (!scheduled.isBefore(end.minusDays(WINDOWS[w]))) {
+                    habitTotals[2 * w] += log.getCompleted() ? 1 : 0;
+                    habitTotals[2 * w + 1]++;
+                }
+            }
+            if (!scheduled.isBefore(end.minusDays(TrendWindow.SPAN))) {
+                int weekday = scheduled.getDayOfWeek().getValue() % 7;
+                habitTotals[2 * WINDOWS.length + weekday] += log.getCompleted() ? 1 : 0;
+                habitTotals[2 * WINDOWS.length + 7 + weekday]++;
+                if (log.getCompleted()) {
+                    habitTotals[2 * WINDOWS.length + 14 + scheduled.getHour()]++;
+                }
+            }
+        }
+        blackhole.consume(totals);
+    }
+
+    @Benchmark
+    public void slideOneDay(Blackhole blackhole) {
+        int d = nextDay % HISTORY_DAYS;
+        LocalDate day = firstDay.plusDays(nextDay++);
+        for (int h = 0; h < habits; h++) {
+            TrendWindow window = windows[h];
+            window.advanceTo(day);
+            window.set(day, completed[h][d], resolved[h][d], completedByHour[h][d]);
+            for (int w = 0; w < WINDOWS.length; w++) {
+                blackhole.consume(window.completed(w));
+                blackhole.consume(window.resolved(w));
+            }
+            blackhole.consume(window.weekdayCompleted());
+            blackhole.consume(window.hourCompleted());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.yourapp.dashboard.productivity_dashboard.repository;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.HabitLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts batches that overlap existing logs with
+ * {@link HabitLogRepositoryImpl#insertLogsIgnoringDuplicates} on H2, with its MERGE statement and with
+ * the one-row-at-a-time fallback for unknown databases.
+ */
+@SpringBootTest(properties = {
+    "telegram.bot-token=test", "telegram.chat-id=test",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    // Reads go to the database, not to a JVM-wide cache manager another test context may have closed
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+class HabitLogInsertIntegrationTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    @Autowired
+    private HabitRepository habitRepo;
+
+    @Autowired
+    private HabitLogRepository logRepo;
+
+    @Autowired
+    private HabitLogRepositoryImpl logRepoImpl;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void detectDialectAgain() {
+        useDialect(null);
+    }
+
+    @Test
+    void existingSlotsAreSkippedAndOnlyNewRowsCounted() {
+        Habit habit = saveHabit();
+        HabitLog completed = saveLog(habit, START);
+        completed.setCompleted(true);
+        logRepo.save(completed);
+        saveLog(habit, START.plusDays(2));
+
+        int inserted = logRepo.insertLogsIgnoringDuplicates(newLogs(habit, 4));
+
+        assertEquals(2, inserted);
+        assertEquals(4, countLogs(habit));
+        assertTrue(logRepo.findById(completed.getId()).orElseThrow().getCompleted());
+    }
+
+    @Test
+    void batchesLargerThanOneStatementAreCountedAcrossChunks() {
+        Habit habit = saveHabit();
+        logRepo.insertLogsIgnoringDuplicates(newLogs(habit, 100));
+
+        int inserted = logRepo.insertLogsIgnoringDuplicates(newLogs(habit, 1200));
+
+        assertEquals(1100, inserted);
+        assertEquals(1200, countLogs(habit));
+    }
+
+    @Test
+    void unknownDatabaseSkipsDuplicatesOneRowAtATime() {
+        useDialect(HabitLogRepositoryImpl.Dialect.GENERIC);
+        Habit habit = saveHabit();
+        saveLog(habit, START.plusDays(1));
+        saveLog(habit, START.plusDays(3));
+
+        int inserted = logRepo.insertLogsIgnoringDuplicates(newLogs(habit, 5));
+
+        assertEquals(3, inserted);
+        assertEquals(5, countLogs(habit));
+    }
+
+    private void useDialect(HabitLogRepositoryImpl.Dialect dialect) {
+        HabitLogRepositoryImpl target = AopTestUtils.getTargetObject(logRepoImpl);
+        ReflectionTestUtils.setField(target, "dialect", dialect);
+    }
+
+    private Habit saveHabit() {
+        Habit habit = new Habit();
+        habit.setName("Stretch");
+        return habitRepo.save(habit);
+    }
+
+    private HabitLog saveLog(Habit habit, LocalDateTime scheduled) {
+        HabitLog log = new HabitLog();
+        log.setHabit(habit);
+        log.setScheduledDateTime(scheduled);
+        log.setCompleted(false);
+        log.setMissed(false);
+        log.setSkipped(false);
+        return logRepo.save(log);
+    }
+
+    // One log a day from START on
+    private List<HabitLog> newLogs(Habit habit, int days) {
+        List<HabitLog> logs = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            HabitLog log = new HabitLog();
+            log.setHabit(habit);
+            log.setScheduledDateTime(START.plusDays(day));
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    private int countLogs(Habit habit) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM habit_log WHERE habit_id = ?",
+            Integer.class, habit.getId());
+    }
+}
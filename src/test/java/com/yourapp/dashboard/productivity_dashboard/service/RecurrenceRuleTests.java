@@ -0,0 +1,149 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.model.RecurrenceRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the compiled masks and intervals of {@link RecurrenceRule} at week, month and year
+ * boundaries, and how {@link RecurrenceIterator} places the due days in the habit's zone.
+ */
+class RecurrenceRuleTests {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    @Test
+    void weeklyIntervalCountsMondayBasedWeeksAcrossTheYearEnd() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,SU", LocalDate.of(2025, 12, 22));
+
+        assertTrue(rule.isDueOn(LocalDate.of(2025, 12, 22)));
+        // Sunday closes the Monday-based week it started in
+        assertTrue(rule.isDueOn(LocalDate.of(2025, 12, 28)));
+        assertFalse(rule.isDueOn(LocalDate.of(2025, 12, 29)));
+        assertFalse(rule.isDueOn(LocalDate.of(2026, 1, 4)));
+        assertTrue(rule.isDueOn(LocalDate.of(2026, 1, 5)));
+    }
+
+    @Test
+    void monthlyIntervalClampsToShortMonthsAcrossTheYearEnd() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;INTERVAL=2;BYMONTHDAY=31", LocalDate.of(2025, 10, 31));
+
+        assertTrue(rule.isDueOn(LocalDate.of(2025, 10, 31)));
+        assertFalse(rule.isDueOn(LocalDate.of(2025, 11, 30)));
+        assertTrue(rule.isDueOn(LocalDate.of(2025, 12, 31)));
+        assertFalse(rule.isDueOn(LocalDate.of(2026, 1, 31)));
+        assertTrue(rule.isDueOn(LocalDate.of(2026, 2, 28)));
+        assertFalse(rule.isDueOn(LocalDate.of(2026, 2, 27)));
+    }
+
+    @Test
+    void yearlyLeapDayFallsOnTheLastDayOfFebruary() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=29", LocalDate.of(2024, 2, 29));
+
+        assertTrue(rule.isDueOn(LocalDate.of(2024, 2, 29)));
+        assertTrue(rule.isDueOn(LocalDate.of(2025, 2, 28)));
+        assertFalse(rule.isDueOn(LocalDate.of(2028, 2, 28)));
+        assertTrue(rule.isDueOn(LocalDate.of(2028, 2, 29)));
+        assertFalse(rule.isDueOn(LocalDate.of(2028, 3, 1)));
+    }
+
+    @Test
+    void countEndsOnTheLastDueDayAcrossRollovers() {
+        assertEquals(LocalDate.of(2026, 1, 5),
+            RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,FR;COUNT=4", LocalDate.of(2025, 12, 26)).getUntil());
+        assertEquals(LocalDate.of(2026, 2, 28),
+            RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=31;COUNT=3", LocalDate.of(2025, 12, 31)).getUntil());
+        assertEquals(LocalDate.of(2027, 12, 31),
+            RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=2;COUNT=2", LocalDate.of(2025, 12, 31)).getUntil());
+    }
+
+    @Test
+    void countOfARareRuleIsExpandedPeriodByPeriod() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=1000;COUNT=10000", start);
+
+        assertEquals(start.plusDays(9_999_000L), rule.getUntil());
+    }
+
+    @Test
+    void rejectsMalformedRules() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("BYDAY=MO", start));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=XX", start));
+        assertThrows(IllegalArgumentException.class,
+            () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=2;UNTIL=20260201", start));
+    }
+
+    @Test
+    void occurrencesKeepTheirWallClockTimeAcrossDaylightSavingChanges() {
+        Habit habit = habit(Recurrence.WEEKLY, NEW_YORK.getId());
+        habit.setRecurrenceRule("FREQ=WEEKLY;BYDAY=SU");
+        habit.setRuleStart(LocalDate.of(2026, 3, 1));
+
+        // Clocks go forward on 2026-03-08 and back on 2026-11-01
+        List<ZonedDateTime> spring = RecurrenceIterator.between(habit,
+            ZonedDateTime.of(2026, 3, 1, 0, 0, 0, 0, NEW_YORK),
+            ZonedDateTime.of(2026, 3, 9, 0, 0, 0, 0, NEW_YORK), null).toList();
+        assertEquals(List.of(LocalDateTime.of(2026, 3, 1, 9, 0), LocalDateTime.of(2026, 3, 8, 9, 0)),
+            spring.stream().map(ZonedDateTime::toLocalDateTime).toList());
+        assertEquals(Duration.ofDays(7).minusHours(1), Duration.between(spring.get(0), spring.get(1)));
+
+        List<ZonedDateTime> autumn = RecurrenceIterator.between(habit,
+            ZonedDateTime.of(2026, 10, 25, 0, 0, 0, 0, NEW_YORK),
+            ZonedDateTime.of(2026, 11, 2, 0, 0, 0, 0, NEW_YORK), null).toList();
+        assertEquals(Duration.ofDays(7).plusHours(1), Duration.between(autumn.get(0), autumn.get(1)));
+    }
+
+    @Test
+    void dueDaysFollowTheHabitZoneRatherThanTheSystemZone() {
+        Habit ist = habit(Recurrence.DAILY, IST.getId());
+        ist.setRecurrenceRule("FREQ=DAILY;BYDAY=MO");
+        ist.setRuleStart(LocalDate.of(2026, 3, 1));
+
+        // Sunday 19:00 UTC is already Monday 00:30 in IST
+        ZonedDateTime start = ZonedDateTime.of(2026, 3, 1, 19, 0, 0, 0, ZoneId.of("UTC"));
+        RecurrenceIterator occurrences = RecurrenceIterator.startingAt(ist, start, null);
+        assertEquals(IST, occurrences.getZone());
+        assertEquals(LocalDateTime.of(2026, 3, 2, 9, 0), occurrences.next());
+        assertEquals(LocalDateTime.of(2026, 3, 9, 9, 0), occurrences.next());
+    }
+
+    @Test
+    void habitWithoutAValidZoneUsesTheSystemZone() {
+        Habit habit = habit(Recurrence.DAILY, null);
+        assertEquals(ZoneId.systemDefault(), RecurrenceIterator.zoneOf(habit));
+        habit.setTimeZone("Not/AZone");
+        assertEquals(ZoneId.systemDefault(), RecurrenceIterator.zoneOf(habit));
+
+        // The same instant gives the IST habit and the system-zone habit their own first day
+        ZonedDateTime start = ZonedDateTime.of(2026, 3, 1, 19, 0, 0, 0, ZoneId.of("UTC"));
+        LocalDate systemDay = start.withZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+        LocalDateTime first = RecurrenceIterator.startingAt(habit, start, null).next();
+        assertFalse(first.toLocalDate().isBefore(systemDay));
+        assertTrue(first.toLocalDate().isBefore(systemDay.plusDays(2)));
+        assertEquals(LocalTime.of(9, 0), first.toLocalTime());
+    }
+
+    private static Habit habit(Recurrence recurrence, String timeZone) {
+        Habit habit = new Habit();
+        habit.setRecurrence(recurrence);
+        habit.setScheduledTime(LocalTime.of(9, 0));
+        habit.setTimeZone(timeZone);
+        return habit;
+    }
+}
@@ -0,0 +1,174 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitLogRepositoryCustom.LogStatus;
+import com.yourapp.dashboard.productivity_dashboard.repository.HabitRepositoryCustom.StreakUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Folds log histories with {@link StreakBackfill#fold} and checks that they come out as
+ * {@link StreakEngine} would have left them. Habits live in UTC, as in {@link StreakEngineTests}.
+ */
+class StreakBackfillTests {
+
+    private SleepWindow sleepWindow;
+
+    @BeforeEach
+    void setUp() {
+        sleepWindow = new SleepWindow();
+        sleepWindow.setStart("23:00");
+        sleepWindow.setEnd("06:00");
+        sleepWindow.init();
+    }
+
+    @Test
+    void consecutiveCompletionsFormOneStreak() {
+        StreakUpdate update = fold(habit(Recurrence.DAILY),
+            done("2026-03-02T09:00"), done("2026-03-03T09:00"), done("2026-03-04T09:00"));
+
+        assertEquals(3, update.currentStreak());
+        assertEquals(3, update.bestStreak());
+        assertEquals(at("2026-03-05T00:00"), update.streakThrough());
+    }
+
+    @Test
+    void dayWithoutALogRestartsTheStreak() {
+        StreakUpdate update = fold(habit(Recurrence.DAILY),
+            done("2026-03-02T09:00"), done("2026-03-03T09:00"), done("2026-03-05T09:00"));
+
+        assertEquals(1, update.currentStreak());
+        assertEquals(2, update.bestStreak());
+    }
+
+    @Test
+    void openDayBeforeACompletionRestartsTheStreak() {
+        StreakUpdate update = fold(habit(Recurrence.DAILY),
+            done("2026-03-02T09:00"), open("2026-03-03T09:00"), done("2026-03-04T09:00"));
+
+        assertEquals(1, update.currentStreak());
+        assertEquals(1, update.bestStreak());
+    }
+
+    @Test
+    void trailingOpenDayKeepsTheStreak() {
+        StreakUpdate update = fold(habit(Recurrence.DAILY),
+            done("2026-03-02T09:00"), done("2026-03-03T09:00"), open("2026-03-04T09:00"));
+
+        assertEquals(2, update.currentStreak());
+        assertEquals(at("2026-03-04T00:00"), update.streakThrough());
+    }
+
+    @Test
+    void missEndsTheStreak() {
+        StreakUpdate update = fold(habit(Recurrence.DAILY),
+            done("2026-03-02T09:00"), done("2026-03-03T09:00"), missed("2026-03-04T09:00"));
+
+        assertEquals(0, update.currentStreak());
+        assertEquals(2, update.bestStreak());
+        assertNull(update.streakThrough());
+    }
+
+    @Test
+    void skipCarriesTheStreakButNotAcrossAGap() {
+        Habit habit = habit(Recurrence.DAILY);
+        assertEquals(2, fold(habit,
+            done("2026-03-02T09:00"), skipped("2026-03-03T09:00"), done("2026-03-04T09:00")).currentStreak());
+        assertEquals(1, fold(habit,
+            done("2026-03-02T09:00"), skipped("2026-03-04T09:00"), done("2026-03-05T09:00")).currentStreak());
+    }
+
+    @Test
+    void hourlyStreakStepsOverSleepHours() {
+        StreakUpdate update = fold(habit(Recurrence.HOURLY),
+            done("2026-03-02T22:00"), done("2026-03-02T23:00"), done("2026-03-03T06:00"));
+
+        assertEquals(3, update.currentStreak());
+    }
+
+    @Test
+    void ruleStepsOverDaysItIsNotDueOn() {
+        Habit habit = habit(Recurrence.DAILY);
+        habit.setRecurrenceRule("FREQ=DAILY;BYDAY=MO,WE,FR");
+        habit.setRuleStart(LocalDate.of(2026, 3, 2));
+
+        assertEquals(3, fold(habit,
+            done("2026-03-04T09:00"), done("2026-03-06T09:00"), done("2026-03-09T09:00")).currentStreak());
+        // Wednesday 11 March has no log
+        assertEquals(1, fold(habit,
+            done("2026-03-06T09:00"), done("2026-03-09T09:00"), done("2026-03-13T09:00")).currentStreak());
+    }
+
+    @Test
+    void matchesTheEngineReplayingTheSameEvents() {
+        Habit habit = habit(Recurrence.DAILY);
+        List<LogStatus> logs = List.of(done("2026-03-02T09:00"), done("2026-03-03T09:00"),
+            skipped("2026-03-04T09:00"), done("2026-03-05T09:00"), done("2026-03-07T09:00"),
+            done("2026-03-08T09:00"), done("2026-03-09T09:00"));
+        StreakEngine engine = new StreakEngine(null, sleepWindow);
+        Habit replayed = habit(Recurrence.DAILY);
+        int best = 0;
+        for (LogStatus log : logs) {
+            if (log.completed()) {
+                engine.onCompleted(replayed, log.scheduledDateTime());
+            } else {
+                engine.onSkipped(replayed, log.scheduledDateTime());
+            }
+            best = Math.max(best, replayed.getCurrentStreak());
+        }
+
+        StreakUpdate update = fold(habit, logs.toArray(LogStatus[]::new));
+        assertEquals(replayed.getCurrentStreak(), update.currentStreak());
+        assertEquals(best, update.bestStreak());
+        assertEquals(replayed.getStreakThrough(), update.streakThrough());
+    }
+
+    private StreakUpdate fold(Habit habit, LogStatus... logs) {
+        StreakEngine.Cadence cadence = StreakEngine.Cadence.of(habit);
+        ZoneId zone = RecurrenceIterator.zoneOf(habit);
+        return StreakBackfill.fold(1L, cadence, zone,
+            last -> StreakEngine.nextDuePeriod(habit, cadence, zone, sleepWindow, last), List.of(logs));
+    }
+
+    private static Habit habit(Recurrence recurrence) {
+        Habit habit = new Habit();
+        habit.setRecurrence(recurrence);
+        habit.setScheduledTime(LocalTime.of(9, 0));
+        habit.setTimeZone("UTC");
+        return habit;
+    }
+
+    private static LogStatus done(String utc) {
+        return new LogStatus(1L, at(utc), true, false, false);
+    }
+
+    private static LogStatus skipped(String utc) {
+        return new LogStatus(1L, at(utc), false, true, false);
+    }
+
+    private static LogStatus missed(String utc) {
+        return new LogStatus(1L, at(utc), false, false, true);
+    }
+
+    private static LogStatus open(String utc) {
+        return new LogStatus(1L, at(utc), false, false, false);
+    }
+
+    // A UTC wall-clock time as the system time the backfill reads from the logs
+    private static LocalDateTime at(String utc) {
+        return LocalDateTime.parse(utc).atOffset(ZoneOffset.UTC)
+            .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,243 @@
+package com.yourapp.dashboard.productivity_dashboard.service;
+
+import com.yourapp.dashboard.productivity_dashboard.config.SleepWindow;
+import com.yourapp.dashboard.productivity_dashboard.model.Habit;
+import com.yourapp.dashboard.productivity_dashboard.model.Recurrence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives {@link StreakEngine} with completion, skip and miss events. Habits live in UTC and event
+ * times are converted to system time, as the engine expects, so the results do not depend on the
+ * zone of the machine running the tests.
+ */
+class StreakEngineTests {
+
+    private StreakEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        SleepWindow sleepWindow = new SleepWindow();
+        sleepWindow.setStart("23:00");
+        sleepWindow.setEnd("06:00");
+        sleepWindow.init();
+        // The repository is only used by the ranking, which these tests do not touch
+        engine = new StreakEngine(null, sleepWindow);
+    }
+
+    @Test
+    void consecutiveDaysExtendTheStreak() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onCompleted(habit, at("2026-03-03T09:00"));
+        engine.onCompleted(habit, at("2026-03-04T09:00"));
+
+        assertEquals(3, habit.getCurrentStreak());
+        assertEquals(3, habit.getBestStreak());
+        assertEquals(at("2026-03-05T00:00"), habit.getStreakThrough());
+    }
+
+    @Test
+    void secondCompletionInTheSamePeriodIsCountedOnce() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onCompleted(habit, at("2026-03-02T18:00"));
+
+        assertEquals(1, habit.getCurrentStreak());
+    }
+
+    @Test
+    void gapRestartsTheStreak() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onCompleted(habit, at("2026-03-03T09:00"));
+        engine.onCompleted(habit, at("2026-03-05T09:00"));
+
+        assertEquals(1, habit.getCurrentStreak());
+        assertEquals(2, habit.getBestStreak());
+    }
+
+    @Test
+    void hourlyStreakStepsOverSleepHours() {
+        Habit habit = habit(Recurrence.HOURLY);
+        engine.onCompleted(habit, at("2026-03-02T22:00"));
+        engine.onCompleted(habit, at("2026-03-02T23:00"));
+        // 00:00 to 05:00 are inside the sleep window
+        engine.onCompleted(habit, at("2026-03-03T06:00"));
+
+        assertEquals(3, habit.getCurrentStreak());
+
+        engine.onCompleted(habit, at("2026-03-03T08:00"));
+        assertEquals(1, habit.getCurrentStreak());
+    }
+
+    @Test
+    void ruleStepsOverDaysItIsNotDueOn() {
+        Habit habit = habit(Recurrence.DAILY);
+        habit.setRecurrenceRule("FREQ=DAILY;BYDAY=MO,WE,FR");
+        habit.setRuleStart(LocalDate.of(2026, 3, 2));
+        engine.onCompleted(habit, at("2026-03-04T09:00"));
+        engine.onCompleted(habit, at("2026-03-06T09:00"));
+        engine.onCompleted(habit, at("2026-03-09T09:00"));
+
+        assertEquals(3, habit.getCurrentStreak());
+    }
+
+    @Test
+    void weeklyIntervalStepsOverTheWeeksInBetween() {
+        Habit habit = habit(Recurrence.WEEKLY);
+        habit.setRecurrenceRule("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO");
+        habit.setRuleStart(LocalDate.of(2025, 12, 22));
+        engine.onCompleted(habit, at("2025-12-22T09:00"));
+        engine.onCompleted(habit, at("2026-01-05T09:00"));
+
+        assertEquals(2, habit.getCurrentStreak());
+    }
+
+    @Test
+    void weeklyStreakContinuesAcrossTheYearEnd() {
+        Habit habit = habit(Recurrence.WEEKLY);
+        habit.setWeeklyDay(DayOfWeek.MONDAY);
+        engine.onCompleted(habit, at("2025-12-22T09:00"));
+        engine.onCompleted(habit, at("2025-12-29T09:00"));
+        engine.onCompleted(habit, at("2026-01-05T09:00"));
+
+        assertEquals(3, habit.getCurrentStreak());
+        assertEquals(at("2026-01-12T00:00"), habit.getStreakThrough());
+    }
+
+    @Test
+    void monthlyStreakContinuesThroughShortMonthsAndTheYearEnd() {
+        Habit habit = habit(Recurrence.MONTHLY);
+        habit.setMonthlyDay(31);
+        engine.onCompleted(habit, at("2025-12-31T09:00"));
+        engine.onCompleted(habit, at("2026-01-31T09:00"));
+        engine.onCompleted(habit, at("2026-02-28T09:00"));
+
+        assertEquals(3, habit.getCurrentStreak());
+        assertEquals(at("2026-03-01T00:00"), habit.getStreakThrough());
+    }
+
+    @Test
+    void yearlyStreakCountsYears() {
+        Habit habit = habit(Recurrence.YEARLY);
+        habit.setYearlyMonth(2);
+        habit.setYearlyDay(29);
+        engine.onCompleted(habit, at("2024-02-29T09:00"));
+        engine.onCompleted(habit, at("2025-02-28T09:00"));
+
+        assertEquals(2, habit.getCurrentStreak());
+        assertEquals(at("2026-01-01T00:00"), habit.getStreakThrough());
+    }
+
+    @Test
+    void skipCarriesTheStreakWithoutExtendingIt() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onSkipped(habit, at("2026-03-03T09:00"));
+
+        assertEquals(1, habit.getCurrentStreak());
+        assertEquals(at("2026-03-04T00:00"), habit.getStreakThrough());
+
+        engine.onCompleted(habit, at("2026-03-04T09:00"));
+        assertEquals(2, habit.getCurrentStreak());
+    }
+
+    @Test
+    void skipAfterAGapEndsTheStreak() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onSkipped(habit, at("2026-03-04T09:00"));
+
+        assertEquals(0, habit.getCurrentStreak());
+        assertEquals(1, habit.getBestStreak());
+    }
+
+    @Test
+    void missAfterTheLastCountedPeriodEndsTheStreak() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onCompleted(habit, at("2026-03-03T09:00"));
+        engine.onMissed(habit, at("2026-03-04T09:00"));
+
+        assertEquals(0, habit.getCurrentStreak());
+        assertEquals(2, habit.getBestStreak());
+    }
+
+    @Test
+    void missInsideACountedPeriodKeepsTheStreak() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T18:00"));
+        engine.onMissed(habit, at("2026-03-02T09:00"));
+
+        assertEquals(1, habit.getCurrentStreak());
+    }
+
+    @Test
+    void uncompletingTheLastPeriodTakesItBack() {
+        Habit habit = habit(Recurrence.DAILY);
+        engine.onCompleted(habit, at("2026-03-02T09:00"));
+        engine.onCompleted(habit, at("2026-03-03T09:00"));
+
+        // Only the last counted period can be taken back
+        engine.onUncompleted(habit, at("2026-03-02T09:00"));
+        assertEquals(2, habit.getCurrentStreak());
+
+        engine.onUncompleted(habit, at("2026-03-03T09:00"));
+        assertEquals(1, habit.getCurrentStreak());
+        assertEquals(at("2026-03-03T00:00"), habit.getStreakThrough());
+
+        engine.onCompleted(habit, at("2026-03-03T09:00"));
+        assertEquals(2, habit.getCurrentStreak());
+    }
+
+    @Test
+    void streakWithoutStreakThroughEndsOnTheLastCompletedDay() {
+        Habit habit = habit(Recurrence.DAILY);
+        habit.setCurrentStreak(3);
+        habit.setLastCompleted(LocalDate.of(2026, 3, 4));
+
+        // A late completion of the last completed day is already counted
+        engine.onCompleted(habit, at("2026-03-04T09:00"));
+        assertEquals(3, habit.getCurrentStreak());
+
+        engine.onCompleted(habit, at("2026-03-05T09:00"));
+        assertEquals(4, habit.getCurrentStreak());
+    }
+
+    @Test
+    void missWithoutStreakThroughIsMeasuredFromTheLastCompletedDay() {
+        Habit habit = habit(Recurrence.DAILY);
+        habit.setCurrentStreak(3);
+        habit.setLastCompleted(LocalDate.of(2026, 3, 4));
+
+        engine.onMissed(habit, at("2026-03-04T09:00"));
+        assertEquals(3, habit.getCurrentStreak());
+
+        engine.onMissed(habit, at("2026-03-05T09:00"));
+        assertEquals(0, habit.getCurrentStreak());
+    }
+
+    private static Habit habit(Recurrence recurrence) {
+        Habit habit = new Habit();
+        habit.setRecurrence(recurrence);
+        habit.setScheduledTime(LocalTime.of(9, 0));
+        habit.setTimeZone("UTC");
+        return habit;
+    }
+
+    // A UTC wall-clock time as the system time the engine receives
+    private static LocalDateTime at(String utc) {
+        return LocalDateTime.parse(utc).atOffset(ZoneOffset.UTC)
+            .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}